@@ -0,0 +1,135 @@
+package net.sudologic.elytraDogfightsRedux;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.logging.Logger;
+
+// A server stand-in for benchmarks of code that reads the tick counter, looks players up, parses block
+// data or schedules tasks. One-off tasks run right away, repeating tasks are collected instead of run
+// so a benchmark can invoke them itself.
+public final class BenchmarkServer {
+    private static BenchmarkServer installed;
+
+    private final Map<UUID, Player> players = new HashMap<>();
+    private final Map<String, BlockData> blockData = new HashMap<>();
+    private final List<Runnable> timers = new ArrayList<>();
+    private final Logger logger = Logger.getLogger("Benchmark");
+    private int currentTick;
+
+    private BenchmarkServer() {
+    }
+
+    // Installs the stand-in as Bukkit's server once per JVM, later calls get it back cleared
+    public static synchronized BenchmarkServer install() {
+        if (installed == null) {
+            installed = new BenchmarkServer();
+            Server server = proxy(Server.class, (proxy, method, args) -> switch (method.getName()) {
+                case "getCurrentTick" -> installed.currentTick;
+                case "getPlayer" -> args[0] instanceof UUID ? installed.players.get(args[0]) : null;
+                case "getOnlinePlayers" -> installed.players.values();
+                case "getScheduler" -> installed.scheduler();
+                case "isPrimaryThread" -> true;
+                case "createBlockData" -> installed.blockData((String) args[0]);
+                case "getLogger" -> installed.logger;
+                case "getName", "getVersion", "getBukkitVersion" -> "Benchmark";
+                default -> BenchmarkWorlds.defaultValue(method.getReturnType());
+            });
+            // Bukkit.setServer would print the server's build info, which a stand-in does not have
+            try {
+                Field field = Bukkit.class.getDeclaredField("server");
+                field.setAccessible(true);
+                field.set(null, server);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not install the benchmark server", e);
+            }
+        }
+        installed.players.clear();
+        installed.timers.clear();
+        return installed;
+    }
+
+    public void tick() {
+        currentTick++;
+    }
+
+    // Tasks given to runTaskTimer since install(), in order
+    public List<Runnable> getTimers() {
+        return timers;
+    }
+
+    // An online player gliding at a fixed spot
+    public Player addGlidingPlayer(String name, double x, double y, double z) {
+        UUID playerId = UUID.randomUUID();
+        Player player = proxy(Player.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getUniqueId" -> playerId;
+            case "getName", "toString" -> name;
+            case "isGliding", "isOnline" -> true;
+            case "getLocation" -> {
+                if (args == null || args[0] == null) yield new Location(null, x, y, z);
+                Location reuse = (Location) args[0];
+                reuse.setX(x);
+                reuse.setY(y);
+                reuse.setZ(z);
+                yield reuse;
+            }
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> playerId.hashCode();
+            default -> BenchmarkWorlds.defaultValue(method.getReturnType());
+        });
+        players.put(playerId, player);
+        return player;
+    }
+
+    public Plugin plugin(File dataFolder) {
+        return proxy(Plugin.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getDataFolder" -> dataFolder;
+            case "getLogger" -> logger;
+            case "getName", "toString" -> "ElytraDogfightsRedux";
+            case "isEnabled" -> true;
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> BenchmarkWorlds.defaultValue(method.getReturnType());
+        });
+    }
+
+    // One instance per block state string, so equal states compare equal like the server's
+    public BlockData blockData(String state) {
+        return blockData.computeIfAbsent(state, key -> proxy(BlockData.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getAsString", "toString" -> key;
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> key.hashCode();
+            default -> BenchmarkWorlds.defaultValue(method.getReturnType());
+        }));
+    }
+
+    // runTask runs right away, this is the main thread; runTaskTimer is collected, see getTimers()
+    private BukkitScheduler scheduler() {
+        return proxy(BukkitScheduler.class, (proxy, method, args) -> {
+            if (method.getName().equals("runTask") && args[1] instanceof Runnable task) {
+                task.run();
+            } else if (method.getName().equals("runTaskTimer") && args[1] instanceof Runnable task) {
+                timers.add(task);
+            }
+            return method.getReturnType() == BukkitTask.class
+                ? proxy(BukkitTask.class, (task, taskMethod, taskArgs) -> BenchmarkWorlds.defaultValue(taskMethod.getReturnType()))
+                : BenchmarkWorlds.defaultValue(method.getReturnType());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+}
@@ -0,0 +1,34 @@
+package net.sudologic.elytraDogfightsRedux;
+
+import org.bukkit.World;
+
+import java.lang.reflect.Proxy;
+
+// Stand-ins for the server objects benchmarks need, there is no server in a benchmark run
+public final class BenchmarkWorlds {
+    private BenchmarkWorlds() {
+    }
+
+    // A world that only knows its name, enough for arena bounds and map lookups
+    public static World named(String name) {
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] { World.class },
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getName", "toString" -> name;
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> defaultValue(method.getReturnType());
+            });
+    }
+
+    public static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        if (type == float.class) return 0f;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        if (type == char.class) return (char) 0;
+        return null;
+    }
+}
@@ -0,0 +1,154 @@
+package net.sudologic.elytraDogfightsRedux.arena;
+
+import net.sudologic.elytraDogfightsRedux.BenchmarkServer;
+import net.sudologic.elytraDogfightsRedux.BenchmarkWorlds;
+import net.sudologic.elytraDogfightsRedux.config.ArenaBounds;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// A full arena reset after a match damaged part of the box, one tick after another until it is done.
+// The score is the wall time of the whole reset; the ticks it took and its busiest tick, to hold
+// against the budget, are secondary results listed under each iteration (the summary line adds them
+// up). Blocks live in an array behind a stand-in world, whose block handle is reused between lookups.
+// The stand-in still boxes every coordinate, so the young generation is made big enough, and emptied
+// before each reset, so no collection lands inside a reset and shows up as a long tick.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = 10)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Xmn3g"})
+public class ArenaResetBenchmark {
+    private static final long BUDGET_NANOS = 5_000_000L; // The default reset budget
+    private static final String[] STATES = {
+        "minecraft:air", "minecraft:stone", "minecraft:dirt", "minecraft:grass_block[snowy=false]",
+        "minecraft:oak_planks", "minecraft:glass", "minecraft:oak_log[axis=y]", "minecraft:white_wool"
+    };
+
+    // 50x40x50, 100x100x100 and 250x160x250 blocks
+    @Param({"100000", "1000000", "10000000"})
+    public int volume;
+
+    // Share of the box a match changed
+    @Param({"0.05"})
+    public double damaged;
+
+    private BenchmarkServer server;
+    private int sizeX, sizeY, sizeZ;
+    private BlockData[] original;
+    private BlockData[] blocks;
+    private World world;
+    private int blockIndex; // Block the shared handle points at
+    private ArenaTemplate template;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = BenchmarkServer.install();
+        switch (volume) {
+            case 100_000 -> { sizeX = 50; sizeY = 40; sizeZ = 50; }
+            case 1_000_000 -> { sizeX = 100; sizeY = 100; sizeZ = 100; }
+            default -> { sizeX = 250; sizeY = 160; sizeZ = 250; }
+        }
+
+        // Solid ground, scattered structures, open air above
+        Random random = new Random(1);
+        original = new BlockData[sizeX * sizeY * sizeZ];
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    String state = y < sizeY / 4 ? STATES[1 + random.nextInt(3)]
+                        : random.nextInt(20) == 0 ? STATES[4 + random.nextInt(4)] : STATES[0];
+                    original[index(x, y, z)] = server.blockData(state);
+                }
+            }
+        }
+        file = Files.createTempFile("arena-reset", ".template");
+        ArenaTemplateWriter.write(file, new ArenaBounds("world", 0, 0, 0, sizeX - 1, sizeY - 1, sizeZ - 1),
+            (x, y, z) -> original[index(x, y, z)].getAsString());
+        template = ArenaTemplate.open(file);
+
+        blocks = original.clone();
+        world = blockWorld();
+    }
+
+    @Setup(Level.Invocation)
+    public void damage() {
+        System.arraycopy(original, 0, blocks, 0, blocks.length);
+        Random random = new Random(2);
+        BlockData air = server.blockData(STATES[0]);
+        BlockData stone = server.blockData(STATES[1]);
+        for (int i = 0, count = (int) (blocks.length * damaged); i < count; i++) {
+            int index = random.nextInt(blocks.length);
+            blocks[index] = blocks[index] == air ? stone : air;
+        }
+        System.gc();
+    }
+
+    // Secondary results of the last reset in the iteration
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ResetTicks {
+        public int ticks;
+        public double busiestTickMs;
+    }
+
+    @Benchmark
+    public ArenaReset reset(ResetTicks result) {
+        ArenaReset reset = new ArenaReset("benchmark", world, template, 0, 0, 0, BUDGET_NANOS, () -> { });
+        reset.start(server.plugin(null));
+        List<Runnable> timers = server.getTimers();
+        Runnable tick = timers.get(timers.size() - 1);
+        while (!reset.isDone()) {
+            tick.run();
+        }
+        result.ticks = reset.getTicks();
+        result.busiestTickMs = reset.getBusiestTickNanos() / 1e6;
+        return reset;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private int index(int x, int y, int z) {
+        return (y * sizeZ + z) * sizeX + x;
+    }
+
+    private World blockWorld() {
+        Chunk chunk = (Chunk) Proxy.newProxyInstance(Chunk.class.getClassLoader(), new Class<?>[] { Chunk.class },
+            (proxy, method, args) -> BenchmarkWorlds.defaultValue(method.getReturnType()));
+        Block block = (Block) Proxy.newProxyInstance(Block.class.getClassLoader(), new Class<?>[] { Block.class },
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getBlockData" -> blocks[blockIndex];
+                case "setBlockData" -> {
+                    blocks[blockIndex] = (BlockData) args[0];
+                    yield null;
+                }
+                default -> BenchmarkWorlds.defaultValue(method.getReturnType());
+            });
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] { World.class },
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getName" -> "world";
+                case "getChunkAtAsync" -> CompletableFuture.completedFuture(chunk);
+                case "getBlockAt" -> {
+                    blockIndex = index((Integer) args[0], (Integer) args[1], (Integer) args[2]);
+                    yield block;
+                }
+                default -> BenchmarkWorlds.defaultValue(method.getReturnType());
+            });
+    }
+}
@@ -0,0 +1,126 @@
+package net.sudologic.elytraDogfightsRedux.arena;
+
+import net.sudologic.elytraDogfightsRedux.config.ArenaBounds;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Loading a template from disk cold, with the file out of the OS page cache, and warm, with it still
+// cached from the last load. open is what startup does per map, nearSpawn adds the few sections a
+// match needs first, every reads every block the way a full reset does. Dropping the page cache needs
+// root on Linux; without it the cold runs only measure first touches of a fresh mapping. The template's
+// file size, and whether the page cache was dropped, are secondary results listed under each iteration
+// (the summary line adds them up).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 50)
+@Measurement(iterations = 20)
+public class ArenaTemplateLoadBenchmark {
+    private static final Path DROP_CACHES = Path.of("/proc/sys/vm/drop_caches");
+
+    // 100x100x100 and 250x160x250 blocks
+    @Param({"1000000", "10000000"})
+    public int volume;
+
+    @Param({"cold", "warm"})
+    public String cache;
+
+    private Path file;
+    private int sizeX, sizeY, sizeZ;
+    private long fileBytes;
+    private boolean cacheDropped = true;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class LoadInfo {
+        public long fileBytes;
+        public int cacheDropped; // 1 when the run read the file from disk
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (volume == 1_000_000) {
+            sizeX = 100; sizeY = 100; sizeZ = 100;
+        } else {
+            sizeX = 250; sizeY = 160; sizeZ = 250;
+        }
+        String[] states = {"minecraft:stone", "minecraft:dirt", "minecraft:oak_planks", "minecraft:glass", "minecraft:white_wool"};
+        // Solid ground, scattered structures, open air above, the same mix as the reset benchmark
+        Random random = new Random(1);
+        file = Files.createTempFile("arena-load", ".template");
+        ArenaTemplateWriter.write(file, new ArenaBounds("world", 0, 0, 0, sizeX - 1, sizeY - 1, sizeZ - 1),
+            (x, y, z) -> y < sizeY / 4 ? states[random.nextInt(2)]
+                : random.nextInt(20) == 0 ? states[2 + random.nextInt(3)] : "minecraft:air");
+        fileBytes = Files.size(file);
+    }
+
+    @Setup(Level.Invocation)
+    public void dropCache() {
+        if (!cache.equals("cold") || !cacheDropped) return;
+        try {
+            Files.writeString(DROP_CACHES, "1");
+        } catch (IOException | SecurityException e) {
+            cacheDropped = false; // Shows as cacheDropped 0 on the cold runs
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public ArenaTemplate open(LoadInfo info) throws IOException {
+        report(info);
+        return ArenaTemplate.open(file);
+    }
+
+    // The 3x3x3 sections around the middle of the box, where a spawn point would be
+    @Benchmark
+    public long nearSpawn(LoadInfo info) throws IOException {
+        report(info);
+        ArenaTemplate template = ArenaTemplate.open(file);
+        int middle = template.getSectionIndex(sizeX / 2, sizeY / 2, sizeZ / 2);
+        int sectionsX = ArenaTemplate.sectionCount(sizeX);
+        int layer = sectionsX * ArenaTemplate.sectionCount(sizeZ);
+        long sum = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    sum += readSection(template, middle + dy * layer + dz * sectionsX + dx);
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long every(LoadInfo info) throws IOException {
+        report(info);
+        ArenaTemplate template = ArenaTemplate.open(file);
+        long sum = 0;
+        for (int i = 0; i < template.getSectionCount(); i++) {
+            sum += readSection(template, i);
+        }
+        return sum;
+    }
+
+    private void report(LoadInfo info) {
+        info.fileBytes = fileBytes;
+        info.cacheDropped = cache.equals("cold") && cacheDropped ? 1 : 0;
+    }
+
+    private static long readSection(ArenaTemplate template, int sectionIndex) {
+        TemplateSection section = template.getSection(sectionIndex);
+        long sum = 0;
+        for (int i = 0; i < section.getVolume(); i++) {
+            sum += section.getPaletteIndex(i);
+        }
+        return sum;
+    }
+}
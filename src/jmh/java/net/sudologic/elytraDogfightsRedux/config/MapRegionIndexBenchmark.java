@@ -0,0 +1,82 @@
+package net.sudologic.elytraDogfightsRedux.config;
+
+import net.sudologic.elytraDogfightsRedux.BenchmarkWorlds;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Arena lookup through MapRegionIndex against checking every map's bounds in turn, with arenas
+// laid out on a grid in one world. Half of the probed points are inside an arena, half in the gaps.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapRegionIndexBenchmark {
+    private static final int ARENA_SIZE = 96;
+    private static final int ARENA_SPACING = 160;
+    private static final int PROBES = 1024;
+
+    @Param({"10", "100", "1000"})
+    public int mapCount;
+
+    private final MapRegionIndex index = new MapRegionIndex();
+    private DogfightMap[] maps;
+    private int[] probeX, probeY, probeZ;
+    private int probe;
+
+    @Setup
+    public void setUp() {
+        World world = BenchmarkWorlds.named("world");
+        int columns = (int) Math.ceil(Math.sqrt(mapCount));
+        List<DogfightMap> list = new ArrayList<>(mapCount);
+        for (int i = 0; i < mapCount; i++) {
+            int x = (i % columns) * ARENA_SPACING;
+            int z = (i / columns) * ARENA_SPACING;
+            list.add(new DogfightMap("map" + i, new Location(world, x, 64, z),
+                new Location(world, x + ARENA_SIZE - 1, 64 + ARENA_SIZE - 1, z + ARENA_SIZE - 1), TeamConfiguration.FREE_FOR_ALL));
+        }
+        maps = list.toArray(new DogfightMap[0]);
+        index.rebuild(list);
+
+        Random random = new Random(1);
+        probeX = new int[PROBES];
+        probeY = new int[PROBES];
+        probeZ = new int[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            ArenaBounds bounds = maps[random.nextInt(mapCount)].getBounds();
+            // Odd probes land in the gap past the arena's far edge
+            int inset = i % 2 == 0 ? random.nextInt(ARENA_SIZE) : ARENA_SIZE + random.nextInt(ARENA_SPACING - ARENA_SIZE);
+            probeX[i] = bounds.getMinX() + inset;
+            probeY[i] = bounds.getMinY() + random.nextInt(ARENA_SIZE);
+            probeZ[i] = bounds.getMinZ() + random.nextInt(ARENA_SIZE);
+        }
+    }
+
+    @Benchmark
+    public void index(Blackhole blackhole) {
+        int i = probe++ & (PROBES - 1);
+        blackhole.consume(index.find("world", probeX[i], probeY[i], probeZ[i]));
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole blackhole) {
+        int i = probe++ & (PROBES - 1);
+        blackhole.consume(scan("world", probeX[i], probeY[i], probeZ[i]));
+    }
+
+    // The lookup before the index: every map's bounds, in order
+    private DogfightMap scan(String worldName, int x, int y, int z) {
+        for (DogfightMap map : maps) {
+            ArenaBounds bounds = map.getBounds();
+            if (bounds != null && bounds.getWorldName().equals(worldName) && bounds.contains(x, y, z)) {
+                return map;
+            }
+        }
+        return null;
+    }
+}
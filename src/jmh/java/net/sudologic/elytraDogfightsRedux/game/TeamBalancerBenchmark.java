@@ -0,0 +1,36 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Time to split a lobby into rating-balanced teams as the lobby grows. Ratings are drawn around the
+// starting rating with a spread like a settled server's, fresh for each invocation so the swap phase
+// does a realistic amount of work.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TeamBalancerBenchmark {
+    @Param({"6", "12", "30", "60", "120", "300"})
+    public int lobbySize;
+
+    @Param({"2", "3"})
+    public int teamCount;
+
+    private final Random random = new Random(1);
+    private double[] ratings;
+
+    @Setup(Level.Invocation)
+    public void drawRatings() {
+        ratings = new double[lobbySize];
+        for (int i = 0; i < lobbySize; i++) {
+            ratings[i] = 1000 + random.nextGaussian() * 200;
+        }
+    }
+
+    @Benchmark
+    public int[] partition() {
+        return TeamBalancer.partition(ratings, teamCount);
+    }
+}
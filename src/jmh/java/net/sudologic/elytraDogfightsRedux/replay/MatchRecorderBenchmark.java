@@ -0,0 +1,79 @@
+package net.sudologic.elytraDogfightsRedux.replay;
+
+import net.sudologic.elytraDogfightsRedux.BenchmarkServer;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Main thread cost of recording a match with every player gliding. The store keeps only a count of
+// what it is handed, the writer thread's work is not on the tick and is left out.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MatchRecorderBenchmark {
+    @Param({"2", "10", "30"})
+    public int players;
+
+    private BenchmarkServer server;
+    private MatchRecorder recorder;
+    private Runnable sampleTask;
+    private UUID[] playerIds;
+    private int next;
+
+    // Swallows chunks, so only the recorder's own work is measured
+    static final class CountingStore extends ReplayStore {
+        long events;
+
+        CountingStore(BenchmarkServer server) {
+            super(server.plugin(new File(System.getProperty("java.io.tmpdir"))));
+        }
+
+        @Override
+        String begin(String mapName, long startedAtMillis, UUID[] players, String[] names, byte[] sides) {
+            return "benchmark";
+        }
+
+        @Override
+        void append(String replayId, ReplayChunk chunk) {
+            events += chunk.size();
+        }
+
+        @Override
+        void finish(String replayId) {
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        server = BenchmarkServer.install();
+        List<UUID> ids = new ArrayList<>();
+        Map<UUID, Integer> sides = new HashMap<>();
+        for (int i = 0; i < players; i++) {
+            Player player = server.addGlidingPlayer("player" + i, i * 3.5, 120, -i * 2.25);
+            ids.add(player.getUniqueId());
+            sides.put(player.getUniqueId(), 3 + i);
+        }
+        playerIds = ids.toArray(new UUID[0]);
+        CountingStore store = new CountingStore(server);
+        recorder = new MatchRecorder(server.plugin(null), store, "benchmark", ids, sides, new HashSet<>(ids));
+        recorder.start();
+        sampleTask = server.getTimers().get(0);
+    }
+
+    // One position sample of every live player, this runs every 10 ticks during a match
+    @Benchmark
+    public void samplePositions() {
+        server.tick();
+        sampleTask.run();
+    }
+
+    // One hit, recorded from the damage listener
+    @Benchmark
+    public void recordDamage() {
+        int victim = next++ % players;
+        recorder.recordDamage(playerIds[victim], playerIds[(victim + 1) % players], 4.5);
+    }
+}
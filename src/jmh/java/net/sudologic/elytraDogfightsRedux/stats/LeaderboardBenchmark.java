@@ -0,0 +1,76 @@
+package net.sudologic.elytraDogfightsRedux.stats;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Leaderboard reads and updates as the number of players with stats grows. Kill counts follow a long
+// tail like a real server's, so many players share low values and the top is sparse.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LeaderboardBenchmark {
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"10000", "100000", "1000000"})
+    public int players;
+
+    private Map<UUID, PlayerStats> totals;
+    private UUID[] playerIds;
+    private Leaderboard leaderboard;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        random = new Random(1);
+        totals = new HashMap<>(players * 2);
+        playerIds = new UUID[players];
+        for (int i = 0; i < players; i++) {
+            UUID playerId = new UUID(random.nextLong(), random.nextLong());
+            PlayerStats row = new PlayerStats(playerId, "player" + i);
+            int kills = (int) (-Math.log(1 - random.nextDouble()) * 20);
+            for (int k = 0; k < kills; k++) {
+                row.addKill();
+            }
+            totals.put(playerId, row);
+            playerIds[i] = playerId;
+        }
+        leaderboard = new Leaderboard(StatType.KILLS);
+        leaderboard.rebuild(totals);
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> topPage() {
+        return leaderboard.page(0, PAGE_SIZE, totals);
+    }
+
+    // Page 100, the walk to the page start is part of the cost
+    @Benchmark
+    public List<LeaderboardEntry> page100() {
+        return leaderboard.page(100 * PAGE_SIZE, PAGE_SIZE, totals);
+    }
+
+    // One kill for a random player, as the stats writer applies it
+    @Benchmark
+    public int killUpdate() {
+        PlayerStats row = totals.get(playerIds[random.nextInt(players)]);
+        long previous = row.getKills();
+        row.addKill();
+        leaderboard.update(row.getPlayerId(), previous, previous + 1, false);
+        return leaderboard.size();
+    }
+
+    // The top page before leaderboards were kept up to date: sort every row on each query
+    @Benchmark
+    public List<LeaderboardEntry> sortEveryQuery() {
+        List<PlayerStats> rows = new ArrayList<>(totals.values());
+        rows.sort(Comparator.comparingLong(PlayerStats::getKills).reversed());
+        List<LeaderboardEntry> entries = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < Math.min(PAGE_SIZE, rows.size()); i++) {
+            PlayerStats row = rows.get(i);
+            entries.add(new LeaderboardEntry(row.getPlayerId(), row.getName(), row.getKills()));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,106 @@
+package net.sudologic.elytraDogfightsRedux.status;
+
+import net.sudologic.elytraDogfightsRedux.BenchmarkServer;
+import net.sudologic.elytraDogfightsRedux.BenchmarkWorlds;
+import net.sudologic.elytraDogfightsRedux.config.DogfightMap;
+import net.sudologic.elytraDogfightsRedux.config.TeamConfiguration;
+import net.sudologic.elytraDogfightsRedux.game.SessionManager;
+import net.sudologic.elytraDogfightsRedux.metrics.Counter;
+import net.sudologic.elytraDogfightsRedux.metrics.MetricsRegistry;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// The status endpoint under load: requests per second for /status over keep-alive connections, the
+// main thread's per-tick publish on its own, and the same publish while requests are being served.
+// The publish renders the sessions and status bodies the way StatusServer does every tick.
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatusEndpointBenchmark {
+    @Param({"10", "100"})
+    public int sessionCount;
+
+    private SessionManager sessionManager;
+    private StatusHttpServer server;
+    private HttpClient client;
+    private HttpRequest status;
+    private byte[] maps;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkServer.install();
+        World world = BenchmarkWorlds.named("world");
+        sessionManager = new SessionManager(new MetricsRegistry());
+        for (int i = 0; i < sessionCount; i++) {
+            sessionManager.createSession(new DogfightMap("map" + i, new Location(world, i * 200, 64, 0),
+                new Location(world, i * 200 + 95, 159, 95), TeamConfiguration.FREE_FOR_ALL));
+        }
+        maps = "[]".getBytes(StandardCharsets.UTF_8);
+
+        Counter requests = new MetricsRegistry().counter("edf_http_requests_total", "Requests served by the status endpoint");
+        server = new StatusHttpServer("127.0.0.1", 0, requests);
+        publish();
+        server.start();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        status = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/status")).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        server.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(4)
+    public int request() throws IOException, InterruptedException {
+        return send();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void publish() {
+        String sessions = StatusServer.renderSessions(sessionManager.getAllSessions());
+        byte[] body = new JsonWriter().beginObject()
+            .field("server", "benchmark")
+            .field("tick", 0)
+            .field("publishedAt", System.currentTimeMillis())
+            .field("online", 0)
+            .field("matchmakingQueue", 0)
+            .field("activeSessions", sessionManager.getActiveSessionCount())
+            .name("sessions").rawValue(sessions)
+            .endObject().toString().getBytes(StandardCharsets.UTF_8);
+        server.publish(new StatusHttpServer.Snapshot(body, sessions.getBytes(StandardCharsets.UTF_8), maps, maps, maps));
+    }
+
+    @Benchmark
+    @Group("underLoad")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.AverageTime)
+    public void publishUnderLoad() {
+        publish();
+    }
+
+    @Benchmark
+    @Group("underLoad")
+    @GroupThreads(3)
+    @BenchmarkMode(Mode.AverageTime)
+    public int requestUnderLoad() throws IOException, InterruptedException {
+        return send();
+    }
+
+    private int send() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(status, HttpResponse.BodyHandlers.ofByteArray());
+        return response.statusCode() + response.body().length;
+    }
+}
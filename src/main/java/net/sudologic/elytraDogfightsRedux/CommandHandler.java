@@ -2,24 +2,34 @@ package net.sudologic.elytraDogfightsRedux;
 
 import net.kyori.adventure.text.Component;
 import net.sudologic.elytraDogfightsRedux.config.ConfigManager;
+import net.sudologic.elytraDogfightsRedux.config.MatchMode;
 import net.sudologic.elytraDogfightsRedux.config.TeamConfiguration;
+import net.sudologic.elytraDogfightsRedux.game.Session;
 import net.sudologic.elytraDogfightsRedux.game.SessionManager;
+import net.sudologic.elytraDogfightsRedux.game.SessionState;
+import net.sudologic.elytraDogfightsRedux.stats.PlayerStats;
+import net.sudologic.elytraDogfightsRedux.stats.StatType;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class CommandHandler implements CommandExecutor, TabCompleter {
+    private static final int TOP_PAGE_SIZE = 10;
+    private static final int REPLAY_LIST_SIZE = 10;
+
     private final ElytraDogfightsRedux plugin;
     private final ConfigManager configManager;
     private final SessionManager sessionManager;
@@ -41,7 +51,7 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
     @Override
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
         if (args.length == 0) {
-            sender.sendMessage(Component.text("§eUsage: /elytradogfights <map|play> ..."));
+            sender.sendMessage(Component.text("§eUsage: /elytradogfights <map|play|queue|leave|spectate|stats|top|replays|replay|telemetry|metrics|config|status> ..."));
             return true;
         }
 
@@ -49,8 +59,28 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
             return handleMapCommand(sender, args);
         } else if (args[0].equalsIgnoreCase("play")) {
             return handlePlayCommand(sender, args);
+        } else if (args[0].equalsIgnoreCase("queue")) {
+            return handleQueueCommand(sender, args);
+        } else if (args[0].equalsIgnoreCase("leave")) {
+            return handleLeaveCommand(sender);
+        } else if (args[0].equalsIgnoreCase("spectate")) {
+            return handleSpectateCommand(sender, args);
+        } else if (args[0].equalsIgnoreCase("stats")) {
+            return handleStatsCommand(sender, args);
+        } else if (args[0].equalsIgnoreCase("top")) {
+            return handleTopCommand(sender, args);
+        } else if (args[0].equalsIgnoreCase("replays")) {
+            return handleReplaysCommand(sender);
+        } else if (args[0].equalsIgnoreCase("replay")) {
+            return handleReplayCommand(sender, args);
+        } else if (args[0].equalsIgnoreCase("telemetry")) {
+            return handleTelemetryCommand(sender, args);
+        } else if (args[0].equalsIgnoreCase("metrics")) {
+            return handleMetricsCommand(sender, args);
         } else if (args[0].equalsIgnoreCase("config")) {
             return handleConfigCommand(sender, args);
+        } else if (args[0].equalsIgnoreCase("status")) {
+            return handleStatusCommand(sender);
         }
 
         sender.sendMessage(Component.text("§cUnknown subcommand. Use /elytradogfights map ... or /elytradogfights play ..."));
@@ -59,7 +89,7 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
 
     private boolean handleMapCommand(CommandSender sender, String[] args) {
         if (args.length < 2) {
-            sender.sendMessage(Component.text("§eUsage: /elytradogfights map <add|remove|edit> ..."));
+            sender.sendMessage(Component.text("§eUsage: /elytradogfights map <add|remove|edit|here> ..."));
             return true;
         }
 
@@ -71,8 +101,10 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                 return handleRemove(sender, args);
             case "edit":
                 return handleEdit(sender, args);
+            case "here":
+                return handleHere(sender);
             default:
-                sender.sendMessage(Component.text("§cUnknown map subcommand. Use add, remove, or edit."));
+                sender.sendMessage(Component.text("§cUnknown map subcommand. Use add, remove, edit, or here."));
                 return true;
         }
     }
@@ -101,6 +133,11 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         }
 
         String name = args[2];
+        var map = configManager.getMap(name);
+        if (map != null && sessionManager.isMapBusy(map.getName())) {
+            sender.sendMessage(Component.text("§cWait until no match is running or resetting on '" + map.getName() + "'."));
+            return true;
+        }
         if (configManager.removeMap(name)) {
             sender.sendMessage(Component.text("§aMap '" + name + "' removed."));
         } else {
@@ -109,6 +146,21 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private boolean handleHere(CommandSender sender) {
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(Component.text("§cOnly players can check which arena they are in."));
+            return true;
+        }
+
+        var map = configManager.getMapAt(((Player) sender).getLocation());
+        if (map != null) {
+            sender.sendMessage(Component.text("§aYou are inside the arena of map '" + map.getName() + "'."));
+        } else {
+            sender.sendMessage(Component.text("§eYou are not inside any map's arena."));
+        }
+        return true;
+    }
+
     private boolean handleEdit(CommandSender sender, String[] args) {
         if (args.length < 4) {
             sender.sendMessage(Component.text("§cUsage: /elytradogfights map edit <name> <property> [value...]"));
@@ -124,6 +176,11 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
             sender.sendMessage(Component.text("§cNo map found with that name."));
             return true;
         }
+        // Every edit replaces the map's sessions, and a snapshot would catch the arena mid-match
+        if (sessionManager.isMapBusy(map.getName())) {
+            sender.sendMessage(Component.text("§cWait until no match is running or resetting on '" + map.getName() + "'."));
+            return true;
+        }
 
         switch (property.toLowerCase()) {
             case "teamconfig":
@@ -133,8 +190,7 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                 }
                 try {
                     TeamConfiguration tc = TeamConfiguration.valueOf(value.toUpperCase());
-                    configManager.removeMap(name);
-                    configManager.addMap(new net.sudologic.elytraDogfightsRedux.config.DogfightMap(map.getName(), map.getCorner1(), map.getCorner2(), tc));
+                    configManager.replaceMap(map.withTeamConfig(tc));
                     sender.sendMessage(Component.text("§aTeam configuration updated."));
                 } catch (IllegalArgumentException e) {
                     sender.sendMessage(Component.text("§cInvalid team configuration."));
@@ -148,14 +204,11 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                 }
                 Player player = (Player) sender;
                 var loc = player.getLocation();
-                net.sudologic.elytraDogfightsRedux.config.DogfightMap updatedMap;
                 if (property.equalsIgnoreCase("corner1")) {
-                    updatedMap = new net.sudologic.elytraDogfightsRedux.config.DogfightMap(map.getName(), loc, map.getCorner2(), map.getTeamConfig());
+                    configManager.replaceMap(map.withCorner1(loc));
                 } else {
-                    updatedMap = new net.sudologic.elytraDogfightsRedux.config.DogfightMap(map.getName(), map.getCorner1(), loc, map.getTeamConfig());
+                    configManager.replaceMap(map.withCorner2(loc));
                 }
-                configManager.removeMap(name);
-                configManager.addMap(updatedMap);
                 sender.sendMessage(Component.text("§a" + property + " updated to your current location."));
                 break;
             case "name":
@@ -163,8 +216,10 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                     sender.sendMessage(Component.text("§cUsage: /elytradogfights map edit <name> name <newName>"));
                     return true;
                 }
-                configManager.removeMap(name);
-                configManager.addMap(new net.sudologic.elytraDogfightsRedux.config.DogfightMap(value, map.getCorner1(), map.getCorner2(), map.getTeamConfig()));
+                if (!configManager.renameMap(map.getName(), value)) {
+                    sender.sendMessage(Component.text("§cA map with that name already exists."));
+                    return true;
+                }
                 sender.sendMessage(Component.text("§aMap renamed to '" + value + "'."));
                 break;
             case "spawn":
@@ -177,13 +232,7 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
 
                 if (map.getTeamConfig() == TeamConfiguration.FREE_FOR_ALL) {
                     // For free-for-all, set the single spawn
-                    var spawnPoints = map.getSpawnPoints();
-                    spawnPoints.set(0, playerLoc);
-                    var updatedMapWithSpawn = new net.sudologic.elytraDogfightsRedux.config.DogfightMap(
-                        map.getName(), map.getCorner1(), map.getCorner2(), map.getTeamConfig(), spawnPoints);
-
-                    configManager.removeMap(name);
-                    configManager.addMap(updatedMapWithSpawn);
+                    configManager.replaceMap(map.withSpawnPoint(0, playerLoc));
                     sender.sendMessage(Component.text("§aSpawn point updated to your current location."));
                 } else {
                     // For team modes, require team specification
@@ -211,20 +260,87 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                         return true;
                     }
 
-                    var spawnPoints = map.getSpawnPoints();
-                    spawnPoints.set(spawnIndex, playerLoc);
-                    var updatedMapWithSpawn = new net.sudologic.elytraDogfightsRedux.config.DogfightMap(
-                        map.getName(), map.getCorner1(), map.getCorner2(), map.getTeamConfig(), spawnPoints);
-
-                    configManager.removeMap(name);
-                    configManager.addMap(updatedMapWithSpawn);
+                    configManager.replaceMap(map.withSpawnPoint(spawnIndex, playerLoc));
 
                     String spawnName = map.getSpawnPointName(spawnIndex);
                     sender.sendMessage(Component.text("§a" + spawnName + " updated to your current location."));
                 }
                 break;
+            case "loadout":
+                String[] loadoutArgs = value != null ? value.split(" ") : new String[0];
+                if (loadoutArgs.length < 2) {
+                    sender.sendMessage(Component.text("§cUsage: /elytradogfights map edit <name> loadout <bow|bowpower|arrows|sword|knockback|armor> <value>"));
+                    return true;
+                }
+                var updatedLoadout = map.getLoadout().with(loadoutArgs[0], loadoutArgs[1]);
+                if (updatedLoadout == null) {
+                    sender.sendMessage(Component.text("§cInvalid loadout property or value."));
+                    return true;
+                }
+                configManager.replaceMap(map.withLoadout(updatedLoadout));
+                sender.sendMessage(Component.text("§aLoadout " + loadoutArgs[0].toLowerCase() + " set to " + loadoutArgs[1] + "."));
+                break;
+            case "instances":
+                String[] instanceArgs = value != null ? value.split(" ") : new String[0];
+                if (instanceArgs.length != 1 && instanceArgs.length != 4) {
+                    sender.sendMessage(Component.text("§cUsage: /elytradogfights map edit <name> instances <max> [<offsetX> <offsetY> <offsetZ>]"));
+                    return true;
+                }
+                try {
+                    int maxInstances = Integer.parseInt(instanceArgs[0]);
+                    var offset = instanceArgs.length == 4
+                        ? new Vector(Integer.parseInt(instanceArgs[1]), Integer.parseInt(instanceArgs[2]), Integer.parseInt(instanceArgs[3]))
+                        : map.getInstanceOffset();
+                    if (maxInstances < 1) {
+                        sender.sendMessage(Component.text("§cA map needs at least 1 instance."));
+                        return true;
+                    }
+                    if (maxInstances > 1 && offset == null && !sessionManager.canProvisionInstances()) {
+                        sender.sendMessage(Component.text("§cSet the offset between arena copies, or an arena world with /elytradogfights config arenaworld, to run more than 1 instance."));
+                        return true;
+                    }
+                    configManager.replaceMap(map.withInstances(maxInstances, offset));
+                    sender.sendMessage(Component.text("§aMap '" + map.getName() + "' can now run " + maxInstances + " matches at once."));
+                } catch (NumberFormatException e) {
+                    sender.sendMessage(Component.text("§cInstance count and offsets must be whole numbers."));
+                }
+                break;
+            case "rules":
+                String[] ruleArgs = value != null ? value.split(" ") : new String[0];
+                if (ruleArgs.length < 2) {
+                    sender.sendMessage(Component.text("§cUsage: /elytradogfights map edit <name> rules <mode|lives|timelimit|scorelimit> <value>"));
+                    return true;
+                }
+                var updatedRules = map.getRules().with(ruleArgs[0], ruleArgs[1]);
+                if (updatedRules == null) {
+                    sender.sendMessage(Component.text("§cInvalid rules property or value."));
+                    return true;
+                }
+                configManager.replaceMap(map.withRules(updatedRules));
+                sender.sendMessage(Component.text("§aRules for '" + map.getName() + "' are now: " + updatedRules.describe() + "."));
+                break;
+            case "snapshot":
+                // Retake after building in the arena, arenas are reset to this after every match
+                if (map.getBounds() == null) {
+                    sender.sendMessage(Component.text("§cSet both corners in a loaded world before taking a snapshot."));
+                    return true;
+                }
+                if (configManager.getArenaTemplates().isCapturing(map.getName())) {
+                    sender.sendMessage(Component.text("§cA snapshot of '" + map.getName() + "' is already being taken."));
+                    return true;
+                }
+                sender.sendMessage(Component.text("§eTaking a snapshot of '" + map.getName() + "'..."));
+                configManager.getArenaTemplates().capture(map, template -> {
+                    if (template == null) {
+                        sender.sendMessage(Component.text("§cCould not take a snapshot of '" + map.getName() + "', see the console."));
+                    } else {
+                        sender.sendMessage(Component.text("§aSnapshot of '" + map.getName() + "' saved: " + template.getVolume() + " blocks, "
+                            + template.getPaletteSize() + " block states, " + (template.getFileBytes() / 1024) + " KiB on disk."));
+                    }
+                });
+                break;
             default:
-                sender.sendMessage(Component.text("§cUnknown property. Editable: teamconfig, corner1, corner2, name, spawn."));
+                sender.sendMessage(Component.text("§cUnknown property. Editable: teamconfig, corner1, corner2, name, spawn, loadout, instances, rules, snapshot."));
         }
         return true;
     }
@@ -235,13 +351,13 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        String mapName = args[1];
-
-        // Check if map exists
-        if (configManager.getMap(mapName) == null) {
+        // Check if map exists, map names are case-insensitive
+        var map = configManager.getMap(args[1]);
+        if (map == null) {
             sender.sendMessage(Component.text("§cNo map found with that name."));
             return true;
         }
+        String mapName = map.getName();
 
         // Determine the target player
         Player targetPlayer;
@@ -264,23 +380,31 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
 
         // Check if the map is already in use
         if (sessionManager.isMapInUse(mapName)) {
-            sender.sendMessage(Component.text("§cMap '" + mapName + "' is currently in use."));
+            sender.sendMessage(Component.text("§cEvery arena of map '" + mapName + "' is currently in use."));
             return true;
         }
 
-        // Check if player is already in an active game
-        if (sessionManager.isPlayerInActiveGame(targetPlayer.getUniqueId())) {
+        // Check if player is already in a starting or active game
+        if (sessionManager.isPlayerInMatch(targetPlayer.getUniqueId())) {
             sender.sendMessage(Component.text("§c" + targetPlayer.getName() + " is already in an active game."));
             return true;
         }
 
+        if (sessionManager.isSpectating(targetPlayer.getUniqueId())) {
+            sender.sendMessage(Component.text("§c" + targetPlayer.getName() + " is spectating, use /elytradogfights leave first."));
+            return true;
+        }
+
         // Try to queue the player
         boolean success = sessionManager.queuePlayer(targetPlayer, mapName);
         if (success) {
-            var session = sessionManager.getSession(mapName);
+            // Picking a map by hand replaces any place in the matchmaking queue
+            plugin.getMatchmaker().dequeue(targetPlayer.getUniqueId());
+
+            var session = sessionManager.getPlayerSession(targetPlayer.getUniqueId());
             if (session != null) {
-                sender.sendMessage(Component.text("§a" + targetPlayer.getName() + " has been queued for map '" + mapName + "'."));
-                targetPlayer.sendMessage(Component.text("§aYou have been queued for map '" + mapName + "'. Players: " +
+                sender.sendMessage(Component.text("§a" + targetPlayer.getName() + " has been queued for map '" + session.getDisplayName() + "'."));
+                targetPlayer.sendMessage(Component.text("§aYou have been queued for map '" + session.getDisplayName() + "'. Players: " +
                     session.getQueuedPlayerCount() + "/" + session.getRequiredPlayers()));
 
                 // Notify all queued players about the new player
@@ -299,9 +423,316 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private boolean handleQueueCommand(CommandSender sender, String[] args) {
+        // Determine the target player
+        Player targetPlayer;
+        if (args.length >= 2) {
+            // Command block usage or admin queuing another player
+            targetPlayer = Bukkit.getPlayer(args[1]);
+            if (targetPlayer == null) {
+                sender.sendMessage(Component.text("§cPlayer '" + args[1] + "' not found."));
+                return true;
+            }
+        } else {
+            if (!(sender instanceof Player)) {
+                sender.sendMessage(Component.text("§cOnly players can join matchmaking. Use /elytradogfights queue <playerName> to queue another player."));
+                return true;
+            }
+            targetPlayer = (Player) sender;
+        }
+
+        if (sessionManager.getPlayerSession(targetPlayer.getUniqueId()) != null) {
+            sender.sendMessage(Component.text("§c" + targetPlayer.getName() + " is already queued for a map or in a game."));
+            return true;
+        }
+
+        if (sessionManager.isSpectating(targetPlayer.getUniqueId())) {
+            sender.sendMessage(Component.text("§c" + targetPlayer.getName() + " is spectating, use /elytradogfights leave first."));
+            return true;
+        }
+
+        var matchmaker = plugin.getMatchmaker();
+        if (!matchmaker.enqueue(targetPlayer.getUniqueId())) {
+            sender.sendMessage(Component.text("§c" + targetPlayer.getName() + " is already in matchmaking."));
+            return true;
+        }
+
+        if (sender != targetPlayer) {
+            sender.sendMessage(Component.text("§a" + targetPlayer.getName() + " has joined matchmaking."));
+        }
+        targetPlayer.sendMessage(Component.text("§aYou joined matchmaking. Players searching: " + matchmaker.getQueueSize()));
+        return true;
+    }
+
+    private boolean handleLeaveCommand(CommandSender sender) {
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(Component.text("§cOnly players can leave a queue."));
+            return true;
+        }
+        Player player = (Player) sender;
+
+        if (plugin.getMatchmaker().dequeue(player.getUniqueId())) {
+            sender.sendMessage(Component.text("§aYou left matchmaking."));
+            return true;
+        }
+
+        var spectated = sessionManager.getSpectatedSession(player.getUniqueId());
+        if (spectated != null) {
+            spectated.removeSpectator(player);
+            sender.sendMessage(Component.text("§aYou stopped spectating " + spectated.getDisplayName() + "."));
+            return true;
+        }
+
+        // Players can still back out of a map queue until teleporting starts
+        var session = sessionManager.getPlayerSession(player.getUniqueId());
+        if (session != null && (session.getState() == SessionState.WAITING || session.getState() == SessionState.COUNTDOWN)) {
+            session.removePlayer(player.getUniqueId());
+            sender.sendMessage(Component.text("§aYou left the queue for map '" + session.getDisplayName() + "'."));
+            plugin.getScoreboardManager().updatePlayerScoreboard(player);
+            return true;
+        }
+
+        sender.sendMessage(Component.text("§cYou are not in a queue or spectating."));
+        return true;
+    }
+
+    private boolean handleSpectateCommand(CommandSender sender, String[] args) {
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(Component.text("§cOnly players can spectate."));
+            return true;
+        }
+        if (args.length < 2) {
+            sender.sendMessage(Component.text("§cUsage: /elytradogfights spectate <mapName>"));
+            return true;
+        }
+        Player player = (Player) sender;
+
+        var map = configManager.getMap(args[1]);
+        var pool = map != null ? sessionManager.getPool(map.getName()) : null;
+        if (pool == null) {
+            sender.sendMessage(Component.text("§cNo map found with that name."));
+            return true;
+        }
+
+        if (sessionManager.getPlayerSession(player.getUniqueId()) != null || plugin.getMatchmaker().isQueued(player.getUniqueId())) {
+            sender.sendMessage(Component.text("§cLeave your queue or match before spectating."));
+            return true;
+        }
+
+        // Watch the match with the most players left among the map's running instances
+        Session target = null;
+        for (Session instance : pool.getInstances()) {
+            if (instance.getState() == SessionState.ACTIVE
+                && (target == null || instance.getActivePlayerCount() > target.getActivePlayerCount())) {
+                target = instance;
+            }
+        }
+        if (target == null) {
+            sender.sendMessage(Component.text("§cNo match is running on map '" + map.getName() + "'."));
+            return true;
+        }
+
+        // Switching between matches is allowed
+        var current = sessionManager.getSpectatedSession(player.getUniqueId());
+        if (current == target) {
+            sender.sendMessage(Component.text("§eYou are already spectating " + target.getDisplayName() + "."));
+            return true;
+        }
+        if (current != null) {
+            current.removeSpectator(player);
+        }
+        target.addSpectator(player);
+        return true;
+    }
+
+    private boolean handleStatsCommand(CommandSender sender, String[] args) {
+        var statsStore = plugin.getStatsStore();
+        String name;
+        if (args.length >= 2) {
+            name = args[1];
+        } else if (sender instanceof Player) {
+            name = sender.getName();
+        } else {
+            sender.sendMessage(Component.text("§cUsage: /elytradogfights stats <playerName>"));
+            return true;
+        }
+
+        // Online players are answered from the cache, anyone else is looked up off the main thread
+        Player target = Bukkit.getPlayerExact(name);
+        PlayerStats cached = target != null ? statsStore.getCached(target.getUniqueId()) : null;
+        if (cached != null) {
+            sendStats(sender, target.getName(), cached);
+            return true;
+        }
+
+        statsStore.lookup(name, stats -> {
+            if (stats == null) {
+                sender.sendMessage(Component.text("§cNo statistics found for '" + name + "'."));
+            } else {
+                sendStats(sender, stats.getName(), stats);
+            }
+        });
+        return true;
+    }
+
+    private void sendStats(CommandSender sender, String name, PlayerStats stats) {
+        double kdr = stats.getDeaths() > 0 ? (double) stats.getKills() / stats.getDeaths() : stats.getKills();
+        sender.sendMessage(Component.text("§6Statistics for " + name));
+        sender.sendMessage(Component.text("§eKills: §f" + stats.getKills() + " §eAssists: §f" + stats.getAssists() + " §eDeaths: §f" + stats.getDeaths() + String.format(" §7(K/D %.2f)", kdr)));
+        sender.sendMessage(Component.text("§eWins: §f" + stats.getWins() + " §eLosses: §f" + stats.getLosses() + " §eMatches: §f" + stats.getMatches()));
+        sender.sendMessage(Component.text("§eTime alive: §f" + formatStat(StatType.TIME_ALIVE, stats.getTimeAliveMillis())));
+    }
+
+    private boolean handleTopCommand(CommandSender sender, String[] args) {
+        StatType type = args.length >= 2 ? StatType.fromName(args[1]) : StatType.KILLS;
+        if (type == null) {
+            sender.sendMessage(Component.text("§cUnknown statistic. Use kills, assists, deaths, wins, losses, matches or timealive."));
+            return true;
+        }
+
+        int page = 1;
+        if (args.length >= 3) {
+            try {
+                page = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                page = 0;
+            }
+            if (page < 1) {
+                sender.sendMessage(Component.text("§cPage must be a whole number of at least 1."));
+                return true;
+            }
+        }
+
+        int firstRank = (page - 1) * TOP_PAGE_SIZE + 1;
+        int shownPage = page;
+        plugin.getStatsStore().queryPage(type, page - 1, TOP_PAGE_SIZE, entries -> {
+            sender.sendMessage(Component.text("§6Top " + type.getDisplayName() + " §7(page " + shownPage + ")"));
+            if (entries.isEmpty()) {
+                sender.sendMessage(Component.text("§7No statistics on this page."));
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                var entry = entries.get(i);
+                sender.sendMessage(Component.text("§e" + (firstRank + i) + ". §f" + entry.name() + " §7- §f" + formatStat(type, entry.value())));
+            }
+        });
+        return true;
+    }
+
+    private boolean handleReplaysCommand(CommandSender sender) {
+        plugin.getReplayStore().list(ids -> {
+            if (ids.isEmpty()) {
+                sender.sendMessage(Component.text("§7No replays recorded yet."));
+                return;
+            }
+            sender.sendMessage(Component.text("§6Recent replays §7(" + ids.size() + " stored)"));
+            for (String id : ids.subList(0, Math.min(REPLAY_LIST_SIZE, ids.size()))) {
+                sender.sendMessage(Component.text("§e- §f" + id));
+            }
+        });
+        return true;
+    }
+
+    private boolean handleReplayCommand(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(Component.text("§cUsage: /elytradogfights replay <id>"));
+            return true;
+        }
+
+        String id = args[1];
+        plugin.getReplayStore().summarize(id, summary -> {
+            if (summary == null) {
+                sender.sendMessage(Component.text("§cNo replay named '" + id + "'."));
+                return;
+            }
+            long seconds = summary.durationTicks() / 20L;
+            sender.sendMessage(Component.text("§6Replay " + summary.id() + (summary.complete() ? "" : " §c(incomplete)")));
+            sender.sendMessage(Component.text("§eMap: §f" + summary.mapName() + " §eStarted: §f" + new Date(summary.startedAtMillis())
+                + " §eLength: §f" + (seconds / 60) + "m " + (seconds % 60) + "s"));
+            for (int i = 0; i < summary.players().size(); i++) {
+                sender.sendMessage(Component.text("§e- §f" + summary.players().get(i) + " §7" + summary.kills()[i] + " kills, " + summary.deaths()[i] + " deaths"));
+            }
+            sender.sendMessage(Component.text("§eWinners: §f" + (summary.winners().isEmpty() ? "none" : String.join(", ", summary.winners()))));
+            sender.sendMessage(Component.text("§7" + summary.damageEvents() + " hits and " + summary.positionSamples() + " position samples recorded"));
+        });
+        return true;
+    }
+
+    private boolean handleTelemetryCommand(CommandSender sender, String[] args) {
+        var aggregator = plugin.getTelemetry().getAggregator();
+        if (args.length < 2) {
+            aggregator.list(summaries -> {
+                sender.sendMessage(Component.text("§6Flight telemetry §7(every " + plugin.getTelemetry().getInterval() + " ticks, "
+                    + plugin.getTelemetry().getDroppedSamples() + " samples dropped)"));
+                if (summaries.isEmpty()) {
+                    sender.sendMessage(Component.text("§7No samples yet."));
+                }
+                for (var summary : summaries) {
+                    sender.sendMessage(Component.text("§e- §f" + summary.describe()));
+                }
+            });
+            return true;
+        }
+
+        String mapName = args[1];
+        if (args.length < 3) {
+            aggregator.summarize(mapName, summary -> {
+                if (summary == null) {
+                    sender.sendMessage(Component.text("§cNo telemetry for '" + mapName + "' yet."));
+                } else {
+                    sender.sendMessage(Component.text("§e" + summary.describe()));
+                }
+            });
+            return true;
+        }
+
+        String format = args[2].toLowerCase();
+        if (!format.equals("csv") && !format.equals("png")) {
+            sender.sendMessage(Component.text("§cExport format must be csv or png."));
+            return true;
+        }
+        aggregator.export(mapName, format.equals("png"), file -> {
+            if (file == null) {
+                sender.sendMessage(Component.text("§cCould not export telemetry for '" + mapName + "', see the console if it has samples."));
+            } else {
+                sender.sendMessage(Component.text("§aHeatmap written to §f" + plugin.getDataFolder().toPath().relativize(file)));
+            }
+        });
+        return true;
+    }
+
+    private boolean handleMetricsCommand(CommandSender sender, String[] args) {
+        if (args.length >= 2 && args[1].equalsIgnoreCase("export")) {
+            var exporter = plugin.getMetricsExporter();
+            exporter.export(written -> sender.sendMessage(Component.text(written
+                ? "§aMetrics written to §f" + plugin.getDataFolder().toPath().relativize(exporter.getFile())
+                : "§cCould not export metrics, see the console.")));
+            return true;
+        }
+
+        // Anything else narrows the list to metrics whose name contains it
+        String filter = args.length >= 2 ? args[1].toLowerCase() : null;
+        List<String> lines = plugin.getMetrics().describe(filter);
+        sender.sendMessage(Component.text("§6ElytraDogfights metrics" + (filter != null ? " §7(matching '" + filter + "')" : "")));
+        if (lines.isEmpty()) {
+            sender.sendMessage(Component.text("§7No matching metrics."));
+        }
+        for (String line : lines) {
+            sender.sendMessage(Component.text("§e- §f" + line));
+        }
+        return true;
+    }
+
+    private String formatStat(StatType type, long value) {
+        if (type == StatType.TIME_ALIVE) {
+            long minutes = value / 60_000;
+            return minutes >= 60 ? (minutes / 60) + "h " + (minutes % 60) + "m" : minutes + "m " + (value / 1000 % 60) + "s";
+        }
+        return String.valueOf(value);
+    }
+
     private boolean handleConfigCommand(CommandSender sender, String[] args) {
         if (args.length < 2) {
-            sender.sendMessage(Component.text("§eUsage: /elytradogfights config <servername> [value]"));
+            sender.sendMessage(Component.text("§eUsage: /elytradogfights config <servername|scoreboardinterval|boundarygrace|matchsize|combattag|spectate|telemetry|resetbudget|arenaworld|httpport> [value]"));
             return true;
         }
 
@@ -325,7 +756,269 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        sender.sendMessage(Component.text("§cUnknown config option. Available: servername"));
+        if (configOption.equals("scoreboardinterval")) {
+            if (args.length < 3) {
+                // Show current flush interval
+                int currentInterval = plugin.getScoreboardManager().getUpdateInterval();
+                sender.sendMessage(Component.text("§eCurrent scoreboard update interval: §f" + currentInterval + " ticks"));
+                return true;
+            }
+
+            int ticks;
+            try {
+                ticks = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("§cInterval must be a whole number of ticks."));
+                return true;
+            }
+            if (ticks < 1) {
+                sender.sendMessage(Component.text("§cInterval must be at least 1 tick."));
+                return true;
+            }
+
+            plugin.getScoreboardManager().setUpdateInterval(ticks);
+            sender.sendMessage(Component.text("§aScoreboard update interval set to §f" + ticks + " ticks"));
+            return true;
+        }
+
+        if (configOption.equals("boundarygrace")) {
+            if (args.length < 3) {
+                // Show current grace period
+                sender.sendMessage(Component.text("§eCurrent out-of-bounds grace period: §f" + configManager.getBoundaryGraceSeconds() + " seconds"));
+                return true;
+            }
+
+            int seconds;
+            try {
+                seconds = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("§cGrace period must be a whole number of seconds."));
+                return true;
+            }
+            if (seconds < 0) {
+                sender.sendMessage(Component.text("§cGrace period cannot be negative."));
+                return true;
+            }
+
+            configManager.setBoundaryGraceSeconds(seconds);
+            sender.sendMessage(Component.text("§aOut-of-bounds grace period set to §f" + seconds + " seconds"));
+            return true;
+        }
+
+        if (configOption.equals("matchsize")) {
+            if (args.length < 3) {
+                // Show current matchmaking cap
+                sender.sendMessage(Component.text("§eCurrent matchmaking match size: §f" + configManager.getMatchmakingMaxPlayers() + " players"));
+                return true;
+            }
+
+            int players;
+            try {
+                players = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("§cMatch size must be a whole number of players."));
+                return true;
+            }
+            if (players < 2) {
+                sender.sendMessage(Component.text("§cMatch size must be at least 2 players."));
+                return true;
+            }
+
+            configManager.setMatchmakingMaxPlayers(players);
+            sender.sendMessage(Component.text("§aMatchmaking match size set to §f" + players + " players"));
+            return true;
+        }
+
+        if (configOption.equals("combattag")) {
+            if (args.length < 3) {
+                // Show current combat tag window
+                sender.sendMessage(Component.text("§eCurrent combat tag window: §f" + configManager.getCombatTagSeconds() + " seconds"));
+                return true;
+            }
+
+            int seconds;
+            try {
+                seconds = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("§cCombat tag window must be a whole number of seconds."));
+                return true;
+            }
+            if (seconds < 1) {
+                sender.sendMessage(Component.text("§cCombat tag window must be at least 1 second."));
+                return true;
+            }
+
+            configManager.setCombatTagSeconds(seconds);
+            sender.sendMessage(Component.text("§aCombat tag window set to §f" + seconds + " seconds §7(applies from the next match)"));
+            return true;
+        }
+
+        if (configOption.equals("spectate")) {
+            if (args.length < 3) {
+                // Show whether eliminated players spectate
+                sender.sendMessage(Component.text("§eEliminated players spectate: §f" + configManager.isSpectateOnElimination()));
+                return true;
+            }
+
+            if (!args[2].equalsIgnoreCase("true") && !args[2].equalsIgnoreCase("false")) {
+                sender.sendMessage(Component.text("§cValue must be true or false."));
+                return true;
+            }
+            boolean spectate = Boolean.parseBoolean(args[2]);
+            configManager.setSpectateOnElimination(spectate);
+            sender.sendMessage(Component.text("§aEliminated players spectate: §f" + spectate));
+            return true;
+        }
+
+        if (configOption.equals("telemetry")) {
+            if (args.length < 3) {
+                // Show current sampling rate
+                int interval = plugin.getTelemetry().getInterval();
+                sender.sendMessage(Component.text("§eCurrent telemetry interval: §f" + (interval > 0 ? interval + " ticks" : "off")));
+                return true;
+            }
+
+            int ticks;
+            try {
+                ticks = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("§cInterval must be a whole number of ticks."));
+                return true;
+            }
+            if (ticks < 0) {
+                sender.sendMessage(Component.text("§cInterval cannot be negative, use 0 to turn telemetry off."));
+                return true;
+            }
+
+            plugin.getTelemetry().setInterval(ticks);
+            sender.sendMessage(Component.text("§aTelemetry interval set to §f" + (ticks > 0 ? ticks + " ticks" : "off")));
+            return true;
+        }
+
+        if (configOption.equals("resetbudget")) {
+            if (args.length < 3) {
+                // Show current reset budget
+                sender.sendMessage(Component.text("§eCurrent arena reset budget: §f" + configManager.getResetBudgetMillis() + " ms per tick"));
+                return true;
+            }
+
+            int millis;
+            try {
+                millis = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("§cBudget must be a whole number of milliseconds."));
+                return true;
+            }
+            if (millis < 1 || millis > 40) {
+                sender.sendMessage(Component.text("§cBudget must be between 1 and 40 ms per tick."));
+                return true;
+            }
+
+            configManager.setResetBudgetMillis(millis);
+            sender.sendMessage(Component.text("§aArena reset budget set to §f" + millis + " ms per tick"));
+            return true;
+        }
+
+        if (configOption.equals("arenaworld")) {
+            if (args.length < 3) {
+                // Show the world provisioned copies are pasted into
+                String worldName = configManager.getArenaWorldName();
+                sender.sendMessage(Component.text("§eCurrent arena world: §f" + (worldName.isEmpty() ? "none" : worldName)));
+                return true;
+            }
+
+            String worldName = args[2].equalsIgnoreCase("none") ? "" : args[2];
+            if (!configManager.setArenaWorldName(worldName)) {
+                sender.sendMessage(Component.text("§cCould not use '" + worldName + "' as the arena world, see the console."));
+                return true;
+            }
+            sender.sendMessage(Component.text(worldName.isEmpty()
+                ? "§aArena world turned off, maps without an instance offset run one match at a time."
+                : "§aArena copies are now provisioned in world §f" + worldName));
+            return true;
+        }
+
+        if (configOption.equals("httpport")) {
+            var statusServer = plugin.getStatusServer();
+            if (args.length < 3) {
+                // Show where the status endpoint listens
+                sender.sendMessage(Component.text("§eCurrent status endpoint: §f"
+                    + (statusServer.isRunning() ? "http://" + statusServer.getAddress() + "/" : "off")));
+                return true;
+            }
+
+            int port;
+            try {
+                port = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("§cPort must be a whole number."));
+                return true;
+            }
+            if (port < 0 || port > 65535) {
+                sender.sendMessage(Component.text("§cPort must be between 1 and 65535, use 0 to turn the endpoint off."));
+                return true;
+            }
+
+            if (!statusServer.setPort(port)) {
+                sender.sendMessage(Component.text("§cCould not listen on port " + port + ", see the console."));
+                return true;
+            }
+            sender.sendMessage(Component.text(port > 0
+                ? "§aStatus endpoint now listening on §fhttp://" + statusServer.getAddress() + "/"
+                : "§aStatus endpoint turned off."));
+            return true;
+        }
+
+        sender.sendMessage(Component.text("§cUnknown config option. Available: servername, scoreboardinterval, boundarygrace, matchsize, combattag, spectate, telemetry, resetbudget, arenaworld, httpport"));
+        return true;
+    }
+
+    private boolean handleStatusCommand(CommandSender sender) {
+        var scoreboardManager = plugin.getScoreboardManager();
+        long requested = scoreboardManager.getRequestedUpdates();
+        long rendered = scoreboardManager.getRenderedUpdates();
+
+        sender.sendMessage(Component.text("§6ElytraDogfights status"));
+        sender.sendMessage(Component.text("§eScoreboard updates requested: §f" + requested));
+        sender.sendMessage(Component.text("§eScoreboard updates rendered: §f" + rendered + " §7(" + (requested - rendered) + " coalesced)"));
+
+        var configWriter = configManager.getConfigWriter();
+        sender.sendMessage(Component.text("§emaps.yml saves requested: §f" + configWriter.getRequestedSaves() + " §7(" + configWriter.getCompletedWrites() + " written)"));
+
+        var checkTime = plugin.getBoundaryEnforcer().getCheckTime();
+        sender.sendMessage(Component.text(String.format("§eBoundary checks: §f%d §7(avg %.2fµs, p99 %.2fµs, max %.2fµs)",
+            checkTime.getCount(), checkTime.getMean() * 1e6, checkTime.getPercentile(0.99) * 1e6, checkTime.getMax() * 1e6)));
+
+        var matchmaker = plugin.getMatchmaker();
+        var waitTimes = matchmaker.getWaitTimes();
+        sender.sendMessage(Component.text(String.format("§eMatchmaking: §f%d waiting §7(%d matched, avg %.1fs, p50 %.1fs, p90 %.1fs, max %.1fs)",
+            matchmaker.getQueueSize(), waitTimes.getCount(), waitTimes.getMean(),
+            waitTimes.getPercentile(0.5), waitTimes.getPercentile(0.9), waitTimes.getMax())));
+
+        var statusServer = plugin.getStatusServer();
+        if (statusServer.isRunning()) {
+            sender.sendMessage(Component.text("§eStatus endpoint: §fhttp://" + statusServer.getAddress() + "/ §7(" + statusServer.getRequestCount() + " requests)"));
+        }
+
+        var lastBalance = sessionManager.getLastTeamBalance();
+        if (lastBalance != null) {
+            sender.sendMessage(Component.text("§eLast team balance: §f" + lastBalance.describe()));
+        }
+
+        var lastStart = sessionManager.getLastMatchStartTimings();
+        if (lastStart != null) {
+            sender.sendMessage(Component.text("§eLast match start: §f" + lastStart.describe()));
+        }
+
+        for (Session session : sessionManager.getAllSessions()) {
+            if (session.getState() == SessionState.RESETTING) {
+                sender.sendMessage(Component.text(String.format("§eResetting: §f%s §7(%.0f%%)", session.getDisplayName(), session.getResetProgress() * 100)));
+            }
+        }
+        var lastReset = sessionManager.getLastArenaReset();
+        if (lastReset != null) {
+            sender.sendMessage(Component.text("§eLast arena reset: §f" + lastReset.describe()));
+        }
         return true;
     }
 
@@ -336,25 +1029,54 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         if (args.length == 1) {
             completions.add("map");
             completions.add("play");
+            completions.add("queue");
+            completions.add("leave");
+            completions.add("spectate");
+            completions.add("stats");
+            completions.add("top");
+            completions.add("replays");
+            completions.add("replay");
+            completions.add("telemetry");
+            completions.add("metrics");
             completions.add("config");
+            completions.add("status");
         } else if (args.length == 2) {
             if (args[0].equalsIgnoreCase("map")) {
-                completions.addAll(Arrays.asList("add", "remove", "edit"));
-            } else if (args[0].equalsIgnoreCase("play")) {
-                completions.addAll(configManager.getMaps().stream().map(m -> m.getName()).collect(Collectors.toList()));
+                completions.addAll(Arrays.asList("add", "remove", "edit", "here"));
+            } else if (args[0].equalsIgnoreCase("play") || args[0].equalsIgnoreCase("spectate") || args[0].equalsIgnoreCase("telemetry")) {
+                return filterByPrefix(configManager.getMapNames(), args[1]);
+            } else if (args[0].equalsIgnoreCase("metrics")) {
+                completions.add("export");
+            } else if (args[0].equalsIgnoreCase("top")) {
+                for (StatType type : StatType.values()) {
+                    completions.add(type.name().replace("_", "").toLowerCase());
+                }
+            } else if (args[0].equalsIgnoreCase("queue") || args[0].equalsIgnoreCase("stats")) {
+                completions.addAll(Bukkit.getOnlinePlayers().stream().map(Player::getName).collect(Collectors.toList()));
             } else if (args[0].equalsIgnoreCase("config")) {
                 completions.add("servername");
+                completions.add("scoreboardinterval");
+                completions.add("boundarygrace");
+                completions.add("matchsize");
+                completions.add("combattag");
+                completions.add("spectate");
+                completions.add("telemetry");
+                completions.add("resetbudget");
+                completions.add("arenaworld");
+                completions.add("httpport");
             }
         } else if (args.length == 3) {
             if (args[0].equalsIgnoreCase("map") && (args[1].equalsIgnoreCase("remove") || args[1].equalsIgnoreCase("edit"))) {
-                completions.addAll(configManager.getMaps().stream().map(m -> m.getName()).collect(Collectors.toList()));
+                return filterByPrefix(configManager.getMapNames(), args[2]);
             } else if (args[0].equalsIgnoreCase("play")) {
                 completions.addAll(Bukkit.getOnlinePlayers().stream().map(Player::getName).collect(Collectors.toList()));
+            } else if (args[0].equalsIgnoreCase("telemetry")) {
+                completions.addAll(Arrays.asList("csv", "png"));
             } else if (args[0].equalsIgnoreCase("config") && args[1].equalsIgnoreCase("servername")) {
                 completions.add("<new_server_name>");
             }
         } else if (args.length == 4 && args[0].equalsIgnoreCase("map") && args[1].equalsIgnoreCase("edit")) {
-            completions.addAll(Arrays.asList("teamconfig", "corner1", "corner2", "name", "spawn"));
+            completions.addAll(Arrays.asList("teamconfig", "corner1", "corner2", "name", "spawn", "loadout", "instances", "rules", "snapshot"));
         } else if (args.length == 5 && args[0].equalsIgnoreCase("map") && args[1].equalsIgnoreCase("edit")) {
             if (args[3].equalsIgnoreCase("teamconfig")) {
                 for (TeamConfiguration tc : TeamConfiguration.values()) {
@@ -369,11 +1091,28 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                         completions.add("team" + i);
                     }
                 }
+            } else if (args[3].equalsIgnoreCase("loadout")) {
+                completions.addAll(Arrays.asList("bow", "bowpower", "arrows", "sword", "knockback", "armor"));
+            } else if (args[3].equalsIgnoreCase("rules")) {
+                completions.addAll(Arrays.asList("mode", "lives", "timelimit", "scorelimit"));
+            }
+        } else if (args.length == 6 && args[0].equalsIgnoreCase("map") && args[1].equalsIgnoreCase("edit")
+            && args[3].equalsIgnoreCase("rules") && args[4].equalsIgnoreCase("mode")) {
+            for (MatchMode mode : MatchMode.values()) {
+                completions.add(mode.name());
             }
         }
 
-        return completions.stream()
-                .filter(c -> c.toLowerCase().startsWith(args[args.length - 1].toLowerCase()))
-                .collect(Collectors.toList());
+        return filterByPrefix(completions, args[args.length - 1]);
+    }
+
+    private List<String> filterByPrefix(List<String> options, String prefix) {
+        List<String> matches = new ArrayList<>();
+        for (String option : options) {
+            if (option.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                matches.add(option);
+            }
+        }
+        return matches;
     }
 }
@@ -2,22 +2,82 @@ package net.sudologic.elytraDogfightsRedux;
 
 import net.sudologic.elytraDogfightsRedux.config.ConfigManager;
 import net.sudologic.elytraDogfightsRedux.game.SessionManager;
+import net.sudologic.elytraDogfightsRedux.game.ArenaBoundaryEnforcer;
 import net.sudologic.elytraDogfightsRedux.game.GameEventListener;
 import net.sudologic.elytraDogfightsRedux.game.CustomScoreboard;
+import net.sudologic.elytraDogfightsRedux.game.Matchmaker;
+import net.sudologic.elytraDogfightsRedux.game.PlayerRatings;
+import net.sudologic.elytraDogfightsRedux.metrics.MetricsExporter;
+import net.sudologic.elytraDogfightsRedux.metrics.MetricsRegistry;
+import net.sudologic.elytraDogfightsRedux.replay.ReplayStore;
+import net.sudologic.elytraDogfightsRedux.stats.StatsStore;
+import net.sudologic.elytraDogfightsRedux.status.StatusServer;
+import net.sudologic.elytraDogfightsRedux.telemetry.TelemetrySampler;
+import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public final class ElytraDogfightsRedux extends JavaPlugin {
 
+    private MetricsRegistry metrics;
+    private MetricsExporter metricsExporter;
     private ConfigManager configManager;
     private CustomScoreboard scoreboardManager;
+    private ArenaBoundaryEnforcer boundaryEnforcer;
+    private Matchmaker matchmaker;
+    private PlayerRatings ratings;
+    private StatsStore statsStore;
+    private ReplayStore replayStore;
+    private TelemetrySampler telemetry;
+    private StatusServer statusServer;
 
     @Override
     public void onEnable() {
+        // Metrics come first, every other component registers its own when it is created
+        metrics = new MetricsRegistry();
+
         // Initialize configuration manager
         configManager = new ConfigManager(this);
 
+        // Load player skill ratings
+        ratings = new PlayerRatings(this);
+
+        // Load player statistics in the background
+        statsStore = new StatsStore(this);
+        statsStore.start();
+
+        // Match recordings are written in the background
+        replayStore = new ReplayStore(this);
+        replayStore.start();
+
         // Initialize scoreboard manager
         scoreboardManager = new CustomScoreboard(this);
+        scoreboardManager.start();
+        statsStore.setLeaderboardListener(scoreboardManager::updateAllScoreboards);
+
+        // Initialize out-of-bounds enforcement
+        boundaryEnforcer = new ArenaBoundaryEnforcer(this);
+        boundaryEnforcer.start();
+
+        // Initialize the global matchmaking queue
+        matchmaker = new Matchmaker(this);
+        matchmaker.start();
+
+        // Sample flight paths of players in running matches
+        telemetry = new TelemetrySampler(this);
+        telemetry.start();
+
+        // Plugin-wide gauges, everything else is registered by the component it measures
+        metrics.gauge("edf_matchmaking_queue_size", "Players waiting in the matchmaking queue", matchmaker::getQueueSize);
+        metrics.gauge("edf_players_online", "Players online on the server", () -> Bukkit.getOnlinePlayers().size());
+        metrics.gauge("edf_telemetry_dropped_samples", "Telemetry samples dropped because no buffer was free", telemetry::getDroppedSamples);
+
+        // Export to metrics.prom for scrapers
+        metricsExporter = new MetricsExporter(this, metrics);
+        metricsExporter.start();
+
+        // Serve session state and metrics over HTTP, if a port is configured
+        statusServer = new StatusServer(this);
+        statusServer.start();
 
         // Register event listener for player deaths
         getServer().getPluginManager().registerEvents(new GameEventListener(this), this);
@@ -30,14 +90,60 @@ public final class ElytraDogfightsRedux extends JavaPlugin {
 
     @Override
     public void onDisable() {
-        // Save configuration on shutdown
+        if (statusServer != null) {
+            statusServer.stop();
+        }
+
+        // Final export while every component is still running
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+        }
+
+        // Stop the scoreboard flush task
+        if (scoreboardManager != null) {
+            scoreboardManager.stop();
+        }
+        if (boundaryEnforcer != null) {
+            boundaryEnforcer.stop();
+        }
+        if (matchmaker != null) {
+            matchmaker.stop();
+        }
+        if (telemetry != null) {
+            telemetry.shutdown();
+        }
+
+        // Write any pending configuration changes on shutdown
         if (configManager != null) {
-            configManager.saveConfig();
+            configManager.flushConfig();
+            configManager.getArenaTemplates().stop();
+        }
+        if (ratings != null) {
+            ratings.flush();
+        }
+        if (statsStore != null) {
+            statsStore.stop();
+        }
+        if (replayStore != null) {
+            // Matches still running are kept as incomplete replays
+            replayStore.stop();
         }
 
         getLogger().info("ElytraDogfightsRedux has been disabled!");
     }
 
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public MetricsExporter getMetricsExporter() {
+        return metricsExporter;
+    }
+
+    public StatusServer getStatusServer() {
+        return statusServer;
+    }
+
     public ConfigManager getConfigManager() {
         return configManager;
     }
@@ -49,4 +155,28 @@ public final class ElytraDogfightsRedux extends JavaPlugin {
     public CustomScoreboard getScoreboardManager() {
         return scoreboardManager;
     }
+
+    public ArenaBoundaryEnforcer getBoundaryEnforcer() {
+        return boundaryEnforcer;
+    }
+
+    public PlayerRatings getRatings() {
+        return ratings;
+    }
+
+    public StatsStore getStatsStore() {
+        return statsStore;
+    }
+
+    public ReplayStore getReplayStore() {
+        return replayStore;
+    }
+
+    public TelemetrySampler getTelemetry() {
+        return telemetry;
+    }
+
+    public Matchmaker getMatchmaker() {
+        return matchmaker;
+    }
 }
@@ -0,0 +1,168 @@
+package net.sudologic.elytraDogfightsRedux.arena;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Puts an arena's blocks back the way its template recorded them, a slice per tick. Every tick walks
+// the template section by section until its time budget is used up, checking the clock every few
+// hundred blocks, and only blocks that differ from the template are written. The box's chunks are
+// loaded asynchronously and held with tickets first, so no tick ever loads or generates one.
+public class ArenaReset {
+    private static final int BLOCKS_PER_CLOCK_CHECK = 256;
+
+    private final String mapName;
+    private final World world;
+    private final ArenaTemplate template;
+    private final BlockData[] palette; // Parsed once per reset, shared by every block of that state
+    private final int originX, originY, originZ;
+    private final long budgetNanos;
+    private final long volume;
+    private final Runnable onComplete;
+    private final List<Chunk> ticketedChunks;
+    private Plugin plugin;
+    private BukkitTask task;
+    private boolean cancelled;
+
+    private int sectionIndex;
+    private TemplateSection section; // Section being restored, null between sections
+    private int blockInSection;
+    private long restoredBlocks;
+    private long changedBlocks;
+    private int ticks;
+    private long totalNanos;
+    private long busiestTickNanos;
+
+    // origin is the low corner of the box being reset, for an instance the shifted copy's corner
+    public ArenaReset(String mapName, World world, ArenaTemplate template, int originX, int originY, int originZ,
+                      long budgetNanos, Runnable onComplete) {
+        this.mapName = mapName;
+        this.world = world;
+        this.template = template;
+        String[] states = template.getPalette();
+        this.palette = new BlockData[states.length];
+        for (int i = 0; i < states.length; i++) {
+            palette[i] = Bukkit.createBlockData(states[i]);
+        }
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.budgetNanos = budgetNanos;
+        this.volume = template.getVolume();
+        this.onComplete = onComplete;
+        this.ticketedChunks = new ArrayList<>();
+    }
+
+    public void start(Plugin plugin) {
+        this.plugin = plugin;
+        List<CompletableFuture<Chunk>> loads = new ArrayList<>();
+        int maxX = originX + template.getSizeX() - 1;
+        int maxZ = originZ + template.getSizeZ() - 1;
+        for (int chunkX = originX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = originZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                loads.add(world.getChunkAtAsync(chunkX, chunkZ));
+            }
+        }
+        CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> {
+            if (!plugin.isEnabled()) return;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (cancelled) return;
+                for (CompletableFuture<Chunk> load : loads) {
+                    Chunk chunk = load.isCompletedExceptionally() ? null : load.getNow(null);
+                    if (chunk != null && chunk.addPluginChunkTicket(plugin)) {
+                        ticketedChunks.add(chunk);
+                    }
+                }
+                task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+            });
+        });
+    }
+
+    public void cancel() {
+        cancelled = true;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (Chunk chunk : ticketedChunks) {
+            chunk.removePluginChunkTicket(plugin);
+        }
+        ticketedChunks.clear();
+    }
+
+    public boolean isDone() {
+        return sectionIndex >= template.getSectionCount();
+    }
+
+    public double getProgress() {
+        return volume > 0 ? (double) restoredBlocks / volume : 1;
+    }
+
+    private void tick() {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+
+        while (!isDone()) {
+            if (section == null) {
+                section = template.getSection(sectionIndex);
+                blockInSection = 0;
+            }
+            int width = section.getWidth();
+            int layer = width * section.getDepth();
+            int baseX = originX + section.getOriginX();
+            int baseY = originY + section.getOriginY();
+            int baseZ = originZ + section.getOriginZ();
+
+            int end = Math.min(section.getVolume(), blockInSection + BLOCKS_PER_CLOCK_CHECK);
+            restoredBlocks += end - blockInSection;
+            for (; blockInSection < end; blockInSection++) {
+                int y = blockInSection / layer;
+                int rest = blockInSection - y * layer;
+                int z = rest / width;
+                int x = rest - z * width;
+                Block block = world.getBlockAt(baseX + x, baseY + y, baseZ + z);
+                BlockData target = palette[section.getPaletteIndex(blockInSection)];
+                if (!block.getBlockData().equals(target)) {
+                    block.setBlockData(target, false);
+                    changedBlocks++;
+                }
+            }
+            if (blockInSection >= section.getVolume()) {
+                section = null;
+                sectionIndex++;
+            }
+            if (System.nanoTime() >= deadline) break;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        ticks++;
+        totalNanos += elapsed;
+        busiestTickNanos = Math.max(busiestTickNanos, elapsed);
+
+        if (isDone()) {
+            cancel();
+            onComplete.run();
+        }
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public long getBusiestTickNanos() {
+        return busiestTickNanos;
+    }
+
+    public String describe() {
+        return String.format("%s: %d of %d blocks changed over %d ticks, %.1fms total, busiest tick %.2fms (budget %.1fms)",
+            mapName, changedBlocks, volume, ticks, totalNanos / 1e6, busiestTickNanos / 1e6, budgetNanos / 1e6);
+    }
+}
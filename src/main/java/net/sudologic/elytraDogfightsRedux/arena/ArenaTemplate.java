@@ -0,0 +1,200 @@
+package net.sudologic.elytraDogfightsRedux.arena;
+
+import net.sudologic.elytraDogfightsRedux.config.ArenaBounds;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// The blocks of one map's box, read straight from a memory-mapped template file. Opening a template
+// parses only the header, the block state palette and the section index; the block data of a
+// 16x16x16 section is paged in by the OS the first time that section is read, and sections are
+// views onto the mapping rather than copies.
+//
+// File layout, big-endian:
+//   int magic, short version, int sizeX, sizeY, sizeZ
+//   int length + UTF-8 world name, int originX, originY, originZ: the box the blocks were copied from
+//   long paletteOffset
+//   per section, y then z then x: long offset, int localPaletteSize, byte bitsPerEntry
+//   section data at its offset: int[localPaletteSize] palette ids, then the packed longs
+//   at paletteOffset: int paletteSize, then per entry int length + UTF-8 block data string
+// Within a section blocks run x fastest, then z, then y. A section of a single block state has no
+// packed data. Entries never straddle two longs.
+public final class ArenaTemplate {
+    static final int MAGIC = 0x45444154; // "EDAT"
+    static final short VERSION = 3;
+    static final int SECTION_SIZE = 16;
+    static final int INDEX_ENTRY_BYTES = 8 + 4 + 1;
+
+    private final Path file;
+    private final MappedByteBuffer mapped;
+    private final int sizeX, sizeY, sizeZ;
+    private final String worldName;
+    private final int originX, originY, originZ;
+    private final int sectionsX, sectionsY, sectionsZ;
+    private final String[] palette;
+    private final int indexStart;
+
+    private ArenaTemplate(Path file, MappedByteBuffer mapped) throws IOException {
+        this.file = file;
+        this.mapped = mapped;
+        ByteBuffer header = mapped.duplicate();
+        try {
+            if (header.getInt() != MAGIC) throw new IOException("Not an arena template");
+            short version = header.getShort();
+            if (version != VERSION) throw new IOException("Unsupported arena template version " + version);
+            this.sizeX = header.getInt();
+            this.sizeY = header.getInt();
+            this.sizeZ = header.getInt();
+            if (sizeX < 1 || sizeY < 1 || sizeZ < 1) throw new IOException("Arena template has no blocks");
+            this.worldName = readString(header);
+            this.originX = header.getInt();
+            this.originY = header.getInt();
+            this.originZ = header.getInt();
+            long paletteOffset = header.getLong();
+            this.sectionsX = sectionCount(sizeX);
+            this.sectionsY = sectionCount(sizeY);
+            this.sectionsZ = sectionCount(sizeZ);
+            this.indexStart = header.position();
+            long dataStart = indexStart + (long) getSectionCount() * INDEX_ENTRY_BYTES;
+            if (paletteOffset < dataStart || paletteOffset > mapped.capacity()) {
+                throw new IOException("Arena template is truncated");
+            }
+
+            ByteBuffer paletteData = mapped.duplicate().position((int) paletteOffset);
+            int paletteSize = paletteData.getInt();
+            if (paletteSize < 1 || paletteSize > paletteData.remaining() / 4) {
+                throw new IOException("Arena template has a corrupt palette");
+            }
+            this.palette = new String[paletteSize];
+            for (int i = 0; i < palette.length; i++) {
+                palette[i] = readString(paletteData);
+            }
+            checkIndex(dataStart, paletteOffset);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Arena template is truncated", e);
+        }
+    }
+
+    // Every section's data has to lie between the index and the palette, so a damaged file fails
+    // here rather than during a reset
+    private void checkIndex(long dataStart, long paletteOffset) throws IOException {
+        for (int i = 0; i < getSectionCount(); i++) {
+            int entry = indexStart + i * INDEX_ENTRY_BYTES;
+            long offset = mapped.getLong(entry);
+            int localPaletteSize = mapped.getInt(entry + 8);
+            int bits = mapped.get(entry + 12);
+            if (localPaletteSize < 1 || localPaletteSize > palette.length || bits != TemplateSection.bitsFor(localPaletteSize)) {
+                throw new IOException("Arena template has a corrupt section " + i);
+            }
+            int sectionX = i % sectionsX;
+            int sectionZ = (i / sectionsX) % sectionsZ;
+            int sectionY = i / (sectionsX * sectionsZ);
+            int blocks = Math.min(SECTION_SIZE, sizeX - sectionX * SECTION_SIZE)
+                * Math.min(SECTION_SIZE, sizeY - sectionY * SECTION_SIZE)
+                * Math.min(SECTION_SIZE, sizeZ - sectionZ * SECTION_SIZE);
+            long length = localPaletteSize * 4L + (bits > 0 ? TemplateSection.packedLength(blocks, bits) * 8L : 0);
+            if (offset < dataStart || offset + length > paletteOffset) {
+                throw new IOException("Arena template has a corrupt section " + i);
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) throw new IOException("Arena template is truncated");
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static ArenaTemplate open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new ArenaTemplate(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static int sectionCount(int blocks) {
+        return (blocks + SECTION_SIZE - 1) / SECTION_SIZE;
+    }
+
+    // A view of one section's blocks, sections are numbered y then z then x like blocks within them
+    public TemplateSection getSection(int sectionIndex) {
+        int entry = indexStart + sectionIndex * INDEX_ENTRY_BYTES;
+        long offset = mapped.getLong(entry);
+        int localPaletteSize = mapped.getInt(entry + 8);
+        int bits = mapped.get(entry + 12);
+
+        int sectionX = sectionIndex % sectionsX;
+        int sectionZ = (sectionIndex / sectionsX) % sectionsZ;
+        int sectionY = sectionIndex / (sectionsX * sectionsZ);
+        int originX = sectionX * SECTION_SIZE;
+        int originY = sectionY * SECTION_SIZE;
+        int originZ = sectionZ * SECTION_SIZE;
+        int width = Math.min(SECTION_SIZE, sizeX - originX);
+        int height = Math.min(SECTION_SIZE, sizeY - originY);
+        int depth = Math.min(SECTION_SIZE, sizeZ - originZ);
+
+        int[] localPalette = new int[localPaletteSize];
+        for (int i = 0; i < localPaletteSize; i++) {
+            localPalette[i] = mapped.getInt((int) offset + i * 4);
+        }
+        LongBuffer data = null;
+        if (bits > 0) {
+            int longs = TemplateSection.packedLength(width * height * depth, bits);
+            data = mapped.slice((int) offset + localPaletteSize * 4, longs * 8).asLongBuffer();
+        }
+        return new TemplateSection(originX, originY, originZ, width, height, depth, localPalette, bits, data);
+    }
+
+    public int getSectionCount() {
+        return sectionsX * sectionsY * sectionsZ;
+    }
+
+    // Index of the section holding a block, coordinates relative to the box's low corner
+    public int getSectionIndex(int x, int y, int z) {
+        return ((y / SECTION_SIZE) * sectionsZ + z / SECTION_SIZE) * sectionsX + x / SECTION_SIZE;
+    }
+
+    public String[] getPalette() {
+        return palette.clone();
+    }
+
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+    public int getSizeX() { return sizeX; }
+    public int getSizeY() { return sizeY; }
+    public int getSizeZ() { return sizeZ; }
+
+    public long getVolume() {
+        return (long) sizeX * sizeY * sizeZ;
+    }
+
+    public boolean hasSize(int sizeX, int sizeY, int sizeZ) {
+        return this.sizeX == sizeX && this.sizeY == sizeY && this.sizeZ == sizeZ;
+    }
+
+    // True if the blocks were copied from exactly this box, a moved or resized box needs a new template
+    public boolean isOf(ArenaBounds bounds) {
+        return worldName.equals(bounds.getWorldName()) && originX == bounds.getMinX() && originY == bounds.getMinY()
+            && originZ == bounds.getMinZ() && hasSize(bounds.getMaxX() - bounds.getMinX() + 1,
+            bounds.getMaxY() - bounds.getMinY() + 1, bounds.getMaxZ() - bounds.getMinZ() + 1);
+    }
+
+    public long getFileBytes() {
+        return mapped.capacity();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,354 @@
+package net.sudologic.elytraDogfightsRedux.arena;
+
+import net.sudologic.elytraDogfightsRedux.config.ArenaBounds;
+import net.sudologic.elytraDogfightsRedux.config.DogfightMap;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+// Block templates of every map's box, one memory-mapped file per map under arenas/. Chunks are copied
+// on the main thread with Bukkit's chunk snapshots, a few per tick within the same budget arena resets
+// use; everything else (encoding, disk) happens on a single background thread. Startup only maps each
+// file and reads its index, block data is paged in on use.
+public class ArenaTemplateStore {
+    private static final long MAX_VOLUME = 64L * 1024 * 1024; // Blocks, larger boxes are not captured
+    private static final String EXTENSION = ".template";
+
+    private final Plugin plugin;
+    private final Path templateFolder;
+    private final ExecutorService ioExecutor;
+
+    // Main thread only
+    private final Map<String, ArenaTemplate> templates; // Lowercase map name -> template
+    private final Map<String, AtomicBoolean> capturing; // Lowercase map name -> set when the map is deleted or renamed mid-capture
+    private final Map<String, DogfightMap> recaptures; // Maps saved again while their capture was running
+    private long budgetNanos = 5_000_000L; // Main thread time per tick for chunk snapshots
+
+    public ArenaTemplateStore(Plugin plugin) {
+        this.plugin = plugin;
+        this.templateFolder = new File(plugin.getDataFolder(), "arenas").toPath();
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ElytraDogfights-arenas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.templates = new HashMap<>();
+        this.capturing = new HashMap<>();
+        this.recaptures = new HashMap<>();
+    }
+
+    // Shared with arena resets, read when a capture starts
+    public void setBudgetMillis(int millis) {
+        this.budgetNanos = millis * 1_000_000L;
+    }
+
+    public void stop() {
+        ioExecutor.shutdown();
+        try {
+            ioExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The map's template, null if none has been taken or it is still loading
+    public ArenaTemplate get(String mapName) {
+        return templates.get(key(mapName));
+    }
+
+    public boolean isCapturing(String mapName) {
+        return capturing.containsKey(key(mapName));
+    }
+
+    // Maps the stored template of a map in the background, used on startup. A file that cannot be read
+    // or was copied from another box is replaced by a new snapshot
+    public void load(DogfightMap map) {
+        String mapName = map.getName();
+        Path file = getFile(mapName);
+        execute(() -> {
+            if (!Files.exists(file) && !migrateLegacyFile(mapName, file)) return;
+            ArenaTemplate template = null;
+            try {
+                template = ArenaTemplate.open(file);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not open the arena template of " + mapName + ", taking a new one", e);
+            }
+            ArenaTemplate opened = template;
+            runOnMainThread(() -> {
+                ArenaBounds bounds = map.getBounds();
+                if (opened != null && bounds != null && opened.isOf(bounds)) {
+                    templates.putIfAbsent(key(mapName), opened);
+                } else {
+                    captureIfStale(map);
+                }
+            });
+        });
+    }
+
+    // Takes a snapshot unless one of the box's current position and size exists, called whenever a map
+    // is saved. A template of another box is dropped right away so no reset pastes it into this one
+    public void captureIfStale(DogfightMap map) {
+        ArenaBounds bounds = map.getBounds();
+        if (bounds == null) return;
+        ArenaTemplate existing = get(map.getName());
+        if (existing != null && existing.isOf(bounds)) {
+            return;
+        }
+        templates.remove(key(map.getName()));
+        if (isCapturing(map.getName())) {
+            // The running capture may be of the old box, check again once it is done
+            recaptures.put(key(map.getName()), map);
+            return;
+        }
+        capture(map, template -> {
+            if (template != null) {
+                plugin.getLogger().info("Took an arena snapshot of " + map.getName() + " (" + template.getVolume() + " blocks, "
+                    + template.getPaletteSize() + " block states)");
+            }
+        });
+    }
+
+    // Copies the blocks in the map's box, the callback runs on the main thread with null on failure
+    public void capture(DogfightMap map, Consumer<ArenaTemplate> callback) {
+        String mapName = map.getName();
+        ArenaBounds bounds = map.getBounds();
+        World world = bounds != null ? Bukkit.getWorld(bounds.getWorldName()) : null;
+        if (world == null || isCapturing(mapName)) {
+            callback.accept(null);
+            return;
+        }
+        if (bounds.getVolume() > MAX_VOLUME) {
+            plugin.getLogger().warning("The box of map " + mapName + " holds " + bounds.getVolume()
+                + " blocks, more than the " + MAX_VOLUME + " an arena template can cover");
+            callback.accept(null);
+            return;
+        }
+        AtomicBoolean abandoned = new AtomicBoolean();
+        capturing.put(key(mapName), abandoned);
+
+        List<CompletableFuture<Chunk>> loads = new ArrayList<>();
+        for (int chunkX = bounds.getMinX() >> 4; chunkX <= bounds.getMaxX() >> 4; chunkX++) {
+            for (int chunkZ = bounds.getMinZ() >> 4; chunkZ <= bounds.getMaxZ() >> 4; chunkZ++) {
+                loads.add(world.getChunkAtAsync(chunkX, chunkZ));
+            }
+        }
+        long budget = budgetNanos;
+        CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> runOnMainThread(() -> {
+            if (error != null) {
+                finishCapture(mapName, abandoned, null, callback);
+                plugin.getLogger().log(Level.WARNING, "Could not load the chunks of map " + mapName, error);
+                return;
+            }
+            // Held until snapshotted, so a chunk never unloads and has to be loaded again mid-capture
+            List<Chunk> pending = new ArrayList<>(loads.size());
+            Set<Chunk> ticketed = new HashSet<>();
+            for (CompletableFuture<Chunk> load : loads) {
+                Chunk chunk = load.join();
+                pending.add(chunk);
+                if (chunk.addPluginChunkTicket(plugin)) {
+                    ticketed.add(chunk);
+                }
+            }
+            snapshotChunks(mapName, bounds, pending, ticketed, budget, abandoned, callback);
+        }));
+    }
+
+    // Copies the chunks a few per tick, then encodes them on the background thread
+    private void snapshotChunks(String mapName, ArenaBounds bounds, List<Chunk> pending, Set<Chunk> ticketed, long budget,
+                                AtomicBoolean abandoned, Consumer<ArenaTemplate> callback) {
+        // Chunk snapshots are safe to read from any thread
+        Map<Long, ChunkSnapshot> chunks = new HashMap<>(pending.size() * 2);
+        Iterator<Chunk> remaining = pending.iterator();
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                long deadline = System.nanoTime() + budget;
+                // At least one chunk per tick, however small the budget
+                do {
+                    Chunk chunk = remaining.next();
+                    chunks.put(chunkKey(chunk.getX(), chunk.getZ()), chunk.getChunkSnapshot(false, false, false));
+                    if (ticketed.remove(chunk)) {
+                        chunk.removePluginChunkTicket(plugin);
+                    }
+                } while (remaining.hasNext() && System.nanoTime() < deadline);
+                if (remaining.hasNext()) return;
+
+                cancel();
+                execute(() -> {
+                    ArenaTemplate template = save(mapName, bounds, chunks, abandoned);
+                    runOnMainThread(() -> finishCapture(mapName, abandoned, template, callback));
+                });
+            }
+        }.runTaskTimer(plugin, 0L, 1L);
+    }
+
+    private void finishCapture(String mapName, AtomicBoolean abandoned, ArenaTemplate template, Consumer<ArenaTemplate> callback) {
+        if (abandoned.get()) {
+            // The map was deleted or renamed meanwhile, its capture no longer belongs to any map
+            plugin.getLogger().info("Dropped the arena snapshot of " + mapName + ", the map was deleted or renamed while it was taken");
+            callback.accept(null);
+            return;
+        }
+        capturing.remove(key(mapName));
+        if (template != null) {
+            templates.put(key(mapName), template);
+        }
+        callback.accept(template);
+        DogfightMap recapture = recaptures.remove(key(mapName));
+        if (recapture != null) {
+            captureIfStale(recapture);
+        }
+    }
+
+    public void rename(String oldName, String newName) {
+        abandonCapture(oldName);
+        ArenaTemplate template = templates.remove(key(oldName));
+        if (template != null) {
+            templates.put(key(newName), template);
+        }
+        Path from = getFile(oldName);
+        Path to = getFile(newName);
+        execute(() -> {
+            try {
+                if (Files.exists(from)) {
+                    Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not rename the arena template of " + oldName, e);
+            }
+        });
+    }
+
+    public void delete(String mapName) {
+        abandonCapture(mapName);
+        templates.remove(key(mapName));
+        Path file = getFile(mapName);
+        execute(() -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not delete the arena template of " + mapName, e);
+            }
+        });
+    }
+
+    // Stops a running capture from writing or registering its template. Anything it already wrote is
+    // removed or moved by the delete or rename queued after it on the background thread
+    private void abandonCapture(String mapName) {
+        AtomicBoolean abandoned = capturing.remove(key(mapName));
+        if (abandoned != null) {
+            abandoned.set(true);
+        }
+        recaptures.remove(key(mapName));
+    }
+
+    // Writes the template next to its final name, moves it into place and maps it, null on failure or
+    // when the capture was abandoned
+    private ArenaTemplate save(String mapName, ArenaBounds bounds, Map<Long, ChunkSnapshot> chunks, AtomicBoolean abandoned) {
+        if (abandoned.get()) return null;
+        Path file = getFile(mapName);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int minX = bounds.getMinX();
+        int minY = bounds.getMinY();
+        int minZ = bounds.getMinZ();
+        try {
+            Files.createDirectories(templateFolder);
+            ArenaTemplateWriter.write(temp, bounds,
+                (x, y, z) -> {
+                    int worldX = minX + x;
+                    int worldZ = minZ + z;
+                    return chunks.get(chunkKey(worldX >> 4, worldZ >> 4)).getBlockData(worldX & 15, minY + y, worldZ & 15).getAsString();
+                });
+            if (abandoned.get()) {
+                Files.deleteIfExists(temp);
+                return null;
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return ArenaTemplate.open(file);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not save the arena template of " + mapName, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Overwritten by the next capture
+            }
+            return null;
+        }
+    }
+
+    // One file per name: anything but lowercase letters, digits and '-' is written as '_' and its code in
+    // hex, '_' included, so names like "a.b" and "a_b" never share a file
+    static String getFileName(String mapName) {
+        String key = key(mapName);
+        StringBuilder name = new StringBuilder(key.length() + EXTENSION.length());
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-') {
+                name.append(c);
+            } else {
+                name.append('_').append(String.format("%04x", (int) c));
+            }
+        }
+        return name.append(EXTENSION).toString();
+    }
+
+    private Path getFile(String mapName) {
+        return templateFolder.resolve(getFileName(mapName));
+    }
+
+    // Templates used to be named with every other character replaced by '_'. Moves such a file to the
+    // map's current name, a template of another map that shared the name is caught by the box check
+    private boolean migrateLegacyFile(String mapName, Path file) {
+        Path legacy = templateFolder.resolve(key(mapName).replaceAll("[^a-z0-9_-]", "_") + EXTENSION);
+        if (legacy.equals(file) || !Files.exists(legacy)) return false;
+        try {
+            Files.move(legacy, file);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not move the arena template of " + mapName + " to its new name", e);
+            return false;
+        }
+    }
+
+    private static String key(String mapName) {
+        return mapName.toLowerCase(Locale.ROOT);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private void execute(Runnable task) {
+        if (!ioExecutor.isShutdown()) {
+            ioExecutor.execute(task);
+        }
+    }
+
+    private void runOnMainThread(Runnable runnable) {
+        if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, runnable);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package net.sudologic.elytraDogfightsRedux.arena;
+
+import net.sudologic.elytraDogfightsRedux.config.ArenaBounds;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Encodes a box of blocks into the template format, one section at a time so a large arena never
+// needs an array of every block. Each section is written out as soon as it is encoded; the index
+// ahead of the data is reserved and filled in at the end, after the palette. Background thread only.
+final class ArenaTemplateWriter {
+    // Block data string at a position relative to the box's low corner
+    interface BlockSource {
+        String blockAt(int x, int y, int z);
+    }
+
+    private ArenaTemplateWriter() {
+    }
+
+    static void write(Path file, ArenaBounds bounds, BlockSource source) throws IOException {
+        int sizeX = bounds.getMaxX() - bounds.getMinX() + 1;
+        int sizeY = bounds.getMaxY() - bounds.getMinY() + 1;
+        int sizeZ = bounds.getMaxZ() - bounds.getMinZ() + 1;
+        int sectionsX = ArenaTemplate.sectionCount(sizeX);
+        int sectionsY = ArenaTemplate.sectionCount(sizeY);
+        int sectionsZ = ArenaTemplate.sectionCount(sizeZ);
+
+        Map<String, Integer> paletteIds = new HashMap<>();
+        List<String> palette = new ArrayList<>();
+        byte[] worldBytes = bounds.getWorldName().getBytes(StandardCharsets.UTF_8);
+        int paletteOffsetAt = 4 + 2 + 12 + 4 + worldBytes.length + 12;
+        int indexStart = paletteOffsetAt + 8;
+        // Filled in as sections are written, then patched over the zeros reserved for it
+        ByteBuffer index = ByteBuffer.allocate(sectionsX * sectionsY * sectionsZ * ArenaTemplate.INDEX_ENTRY_BYTES);
+
+        long paletteOffset;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 65536))) {
+            out.writeInt(ArenaTemplate.MAGIC);
+            out.writeShort(ArenaTemplate.VERSION);
+            out.writeInt(sizeX);
+            out.writeInt(sizeY);
+            out.writeInt(sizeZ);
+            out.writeInt(worldBytes.length);
+            out.write(worldBytes);
+            out.writeInt(bounds.getMinX());
+            out.writeInt(bounds.getMinY());
+            out.writeInt(bounds.getMinZ());
+            out.writeLong(0); // Palette offset, patched once the palette is complete
+            out.write(new byte[index.capacity()]);
+            long position = indexStart + index.capacity();
+
+            int[] localIds = new int[0]; // Template palette index -> local index + 1, reused per section
+            int[] indices = new int[ArenaTemplate.SECTION_SIZE * ArenaTemplate.SECTION_SIZE * ArenaTemplate.SECTION_SIZE];
+            for (int sectionY = 0; sectionY < sectionsY; sectionY++) {
+                for (int sectionZ = 0; sectionZ < sectionsZ; sectionZ++) {
+                    for (int sectionX = 0; sectionX < sectionsX; sectionX++) {
+                        int originX = sectionX * ArenaTemplate.SECTION_SIZE;
+                        int originY = sectionY * ArenaTemplate.SECTION_SIZE;
+                        int originZ = sectionZ * ArenaTemplate.SECTION_SIZE;
+                        int width = Math.min(ArenaTemplate.SECTION_SIZE, sizeX - originX);
+                        int height = Math.min(ArenaTemplate.SECTION_SIZE, sizeY - originY);
+                        int depth = Math.min(ArenaTemplate.SECTION_SIZE, sizeZ - originZ);
+
+                        List<Integer> local = new ArrayList<>();
+                        int count = 0;
+                        for (int y = 0; y < height; y++) {
+                            for (int z = 0; z < depth; z++) {
+                                for (int x = 0; x < width; x++) {
+                                    String blockData = source.blockAt(originX + x, originY + y, originZ + z);
+                                    Integer id = paletteIds.get(blockData);
+                                    if (id == null) {
+                                        id = palette.size();
+                                        paletteIds.put(blockData, id);
+                                        palette.add(blockData);
+                                    }
+                                    if (id >= localIds.length) {
+                                        localIds = Arrays.copyOf(localIds, Math.max(id + 1, localIds.length * 2));
+                                    }
+                                    if (localIds[id] == 0) {
+                                        local.add(id);
+                                        localIds[id] = local.size();
+                                    }
+                                    indices[count++] = localIds[id] - 1;
+                                }
+                            }
+                        }
+
+                        int bits = TemplateSection.bitsFor(local.size());
+                        long[] packed = pack(indices, count, bits);
+                        index.putLong(position).putInt(local.size()).put((byte) bits);
+                        for (int id : local) {
+                            out.writeInt(id);
+                            localIds[id] = 0;
+                        }
+                        for (long value : packed) {
+                            out.writeLong(value);
+                        }
+                        position += local.size() * 4L + packed.length * 8L;
+                        if (position > Integer.MAX_VALUE) {
+                            throw new IOException("Arena template would exceed 2 GiB");
+                        }
+                    }
+                }
+            }
+
+            paletteOffset = position;
+            out.writeInt(palette.size());
+            for (String blockData : palette) {
+                byte[] bytes = blockData.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            writeFully(channel, ByteBuffer.allocate(8).putLong(0, paletteOffset), paletteOffsetAt);
+            writeFully(channel, index.flip(), indexStart);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static long[] pack(int[] indices, int count, int bits) {
+        if (bits == 0) return new long[0];
+        int perLong = 64 / bits;
+        long[] packed = new long[TemplateSection.packedLength(count, bits)];
+        for (int i = 0; i < count; i++) {
+            packed[i / perLong] |= (long) indices[i] << ((i % perLong) * bits);
+        }
+        return packed;
+    }
+}
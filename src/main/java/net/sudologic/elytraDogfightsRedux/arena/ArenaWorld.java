@@ -0,0 +1,121 @@
+package net.sudologic.elytraDogfightsRedux.arena;
+
+import net.sudologic.elytraDogfightsRedux.config.ArenaBounds;
+import net.sudologic.elytraDogfightsRedux.config.DogfightMap;
+import org.bukkit.Bukkit;
+import org.bukkit.GameRule;
+import org.bukkit.World;
+import org.bukkit.WorldCreator;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+// A void world holding provisioned copies of arenas. The world is laid out as a grid of slots:
+// every map gets its own row the first time one of its copies is placed, and instance N of a map
+// always lands in column N of that row, so a slot only ever holds copies of one map and reusing it
+// after a match only rewrites the blocks that changed. The world is wiped on startup; a marker file
+// in its folder keeps this from ever touching a world the plugin did not create.
+public class ArenaWorld {
+    static final int SLOT_SPACING = 1024; // Blocks between slot origins along x and z
+    private static final int SLOT_MARGIN = 64; // Gap kept between neighbouring copies
+    private static final String MARKER_FILE = "elytradogfights-arenas";
+
+    private final Plugin plugin;
+    private final ArenaTemplateStore templates;
+    private final Map<String, Integer> mapRows; // Lowercase map name -> row of slots
+    private World world;
+
+    public ArenaWorld(Plugin plugin, ArenaTemplateStore templates) {
+        this.plugin = plugin;
+        this.templates = templates;
+        this.mapRows = new HashMap<>();
+    }
+
+    // Creates the world, wiping what earlier runs left in it. False if the name belongs to another world.
+    public boolean open(String worldName) {
+        if (world != null && world.getName().equals(worldName)) {
+            return true;
+        }
+        File folder = new File(Bukkit.getWorldContainer(), worldName);
+        File marker = new File(folder, MARKER_FILE);
+        World loaded = Bukkit.getWorld(worldName);
+        if ((loaded != null || folder.exists()) && !marker.exists()) {
+            plugin.getLogger().warning("World '" + worldName + "' was not created by ElytraDogfights, not using it for arena copies");
+            return false;
+        }
+
+        if (loaded == null && folder.exists()) {
+            // Copies from the last run are stale, their slots are pasted again as instances open
+            try (Stream<Path> files = Files.walk(folder.toPath())) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not clear the arena world " + worldName, e);
+            }
+        }
+
+        World created = loaded != null ? loaded : Bukkit.createWorld(new WorldCreator(worldName)
+            .generator(new VoidGenerator()).generateStructures(false));
+        if (created == null) {
+            plugin.getLogger().warning("Could not create the arena world " + worldName);
+            return false;
+        }
+        created.setGameRule(GameRule.DO_DAYLIGHT_CYCLE, false);
+        created.setGameRule(GameRule.DO_WEATHER_CYCLE, false);
+        created.setGameRule(GameRule.DO_MOB_SPAWNING, false);
+        try {
+            Files.createDirectories(folder.toPath());
+            if (!marker.exists()) {
+                Files.createFile(marker.toPath());
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not mark the arena world " + worldName, e);
+        }
+
+        world = created;
+        mapRows.clear();
+        return true;
+    }
+
+    // New copies go to the default arena locations again, copies already running keep their world
+    public void close() {
+        world = null;
+    }
+
+    public boolean isOpen() {
+        return world != null;
+    }
+
+    public String getWorldName() {
+        return world != null ? world.getName() : null;
+    }
+
+    // The map moved into the slot of one of its instances, null if it cannot be provisioned:
+    // no arena world, no template of the map's current box yet, or a box too wide for a slot
+    public DogfightMap place(DogfightMap map, int instanceIndex) {
+        ArenaBounds bounds = map.getBounds();
+        if (world == null || bounds == null || instanceIndex < 1) {
+            return null;
+        }
+        int sizeX = bounds.getMaxX() - bounds.getMinX() + 1;
+        int sizeY = bounds.getMaxY() - bounds.getMinY() + 1;
+        int sizeZ = bounds.getMaxZ() - bounds.getMinZ() + 1;
+        ArenaTemplate template = templates.get(map.getName());
+        if (template == null || !template.hasSize(sizeX, sizeY, sizeZ)
+                || sizeX > SLOT_SPACING - SLOT_MARGIN || sizeZ > SLOT_SPACING - SLOT_MARGIN) {
+            return null;
+        }
+
+        int row = mapRows.computeIfAbsent(map.getName().toLowerCase(Locale.ROOT), name -> mapRows.size());
+        // Same height as the original so build limits and spawn heights still fit
+        return map.relocate(world, instanceIndex * SLOT_SPACING, bounds.getMinY(), row * SLOT_SPACING);
+    }
+}
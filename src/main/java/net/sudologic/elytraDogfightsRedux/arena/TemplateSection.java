@@ -0,0 +1,56 @@
+package net.sudologic.elytraDogfightsRedux.arena;
+
+import java.nio.LongBuffer;
+
+// Up to 16x16x16 blocks of a template, a view onto the mapped file. Origin and size are in blocks
+// relative to the box's low corner; sections on the far edges of the box are cut short.
+public final class TemplateSection {
+    private final int originX, originY, originZ;
+    private final int width, height, depth;
+    private final int[] palette; // Local index -> index into the template's palette
+    private final int bits;
+    private final int entriesPerLong;
+    private final long mask;
+    private final LongBuffer data; // Null for a section of a single block state
+
+    TemplateSection(int originX, int originY, int originZ, int width, int height, int depth, int[] palette, int bits, LongBuffer data) {
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        this.palette = palette;
+        this.bits = bits;
+        this.entriesPerLong = bits > 0 ? 64 / bits : 0;
+        this.mask = bits > 0 ? (1L << bits) - 1 : 0;
+        this.data = data;
+    }
+
+    static int bitsFor(int paletteSize) {
+        return paletteSize <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(paletteSize - 1);
+    }
+
+    static int packedLength(int blocks, int bits) {
+        int perLong = 64 / bits;
+        return (blocks + perLong - 1) / perLong;
+    }
+
+    // Template palette index of the n-th block of this section, x fastest, then z, then y
+    public int getPaletteIndex(int blockIndex) {
+        if (data == null) return palette[0];
+        long packed = data.get(blockIndex / entriesPerLong);
+        return palette[(int) ((packed >>> ((blockIndex % entriesPerLong) * bits)) & mask)];
+    }
+
+    public int getVolume() {
+        return width * height * depth;
+    }
+
+    public int getOriginX() { return originX; }
+    public int getOriginY() { return originY; }
+    public int getOriginZ() { return originZ; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getDepth() { return depth; }
+}
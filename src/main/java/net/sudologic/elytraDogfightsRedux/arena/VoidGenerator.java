@@ -0,0 +1,7 @@
+package net.sudologic.elytraDogfightsRedux.arena;
+
+import org.bukkit.generator.ChunkGenerator;
+
+// Generates nothing, arena copies are the only blocks in the arena world
+final class VoidGenerator extends ChunkGenerator {
+}
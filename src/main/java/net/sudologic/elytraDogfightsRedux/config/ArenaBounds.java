@@ -0,0 +1,58 @@
+package net.sudologic.elytraDogfightsRedux.config;
+
+import org.bukkit.Location;
+
+// Inclusive block-coordinate box between a map's two corners, kept as primitives for hot-path checks
+public final class ArenaBounds {
+    private final String worldName;
+    private final int minX, minY, minZ;
+    private final int maxX, maxY, maxZ;
+
+    public ArenaBounds(String worldName, int x1, int y1, int z1, int x2, int y2, int z2) {
+        this.worldName = worldName;
+        this.minX = Math.min(x1, x2);
+        this.minY = Math.min(y1, y2);
+        this.minZ = Math.min(z1, z2);
+        this.maxX = Math.max(x1, x2);
+        this.maxY = Math.max(y1, y2);
+        this.maxZ = Math.max(z1, z2);
+    }
+
+    // Returns null unless both corners are set and in the same loaded world
+    public static ArenaBounds of(Location corner1, Location corner2) {
+        if (corner1 == null || corner2 == null || !corner1.isWorldLoaded() || !corner2.isWorldLoaded()) {
+            return null;
+        }
+        String worldName = corner1.getWorld().getName();
+        if (!worldName.equals(corner2.getWorld().getName())) {
+            return null;
+        }
+        return new ArenaBounds(worldName, corner1.getBlockX(), corner1.getBlockY(), corner1.getBlockZ(),
+            corner2.getBlockX(), corner2.getBlockY(), corner2.getBlockZ());
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    public boolean contains(Location location) {
+        return location.isWorldLoaded() && worldName.equals(location.getWorld().getName())
+            && contains(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public ArenaBounds offset(int dx, int dy, int dz) {
+        return new ArenaBounds(worldName, minX + dx, minY + dy, minZ + dz, maxX + dx, maxY + dy, maxZ + dz);
+    }
+
+    public long getVolume() {
+        return (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+
+    public String getWorldName() { return worldName; }
+    public int getMinX() { return minX; }
+    public int getMinY() { return minY; }
+    public int getMinZ() { return minZ; }
+    public int getMaxX() { return maxX; }
+    public int getMaxY() { return maxY; }
+    public int getMaxZ() { return maxZ; }
+}
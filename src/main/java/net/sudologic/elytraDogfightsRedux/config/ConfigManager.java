@@ -1,6 +1,8 @@
 package net.sudologic.elytraDogfightsRedux.config;
 
 import net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux;
+import net.sudologic.elytraDogfightsRedux.arena.ArenaTemplateStore;
+import net.sudologic.elytraDogfightsRedux.arena.ArenaWorld;
 import net.sudologic.elytraDogfightsRedux.game.SessionManager;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -9,27 +11,44 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Level;
 
 public class ConfigManager {
+    private static final long SAVE_DEBOUNCE_TICKS = 40L; // Wait for 2 quiet seconds before writing maps.yml
+
     private final ElytraDogfightsRedux plugin;
     private FileConfiguration config;
     private File configFile;
-    private List<DogfightMap> maps;
+    private DebouncedYamlWriter configWriter;
+    private final MapRegistry maps;
     private Location globalSpawn;
     private final SessionManager sessionManager;
+    private final ArenaTemplateStore arenaTemplates;
+    private final ArenaWorld arenaWorld;
     private int countdownDuration = 10; // Default 10 seconds
     private String serverName = "ElytraDogfights"; // Default server name
+    private int scoreboardUpdateInterval = 1; // Ticks between scoreboard flushes
+    private int boundaryGraceSeconds = 3; // Time a player may spend outside the arena before elimination
+    private int matchmakingMaxPlayers = 16; // Most players the matchmaker puts into one match
+    private int combatTagSeconds = 10; // How long a hit still counts towards a kill or assist
+    private boolean spectateOnElimination = true; // Eliminated players watch the rest of the match
+    private int telemetryInterval = 10; // Ticks between flight telemetry samples, 0 turns sampling off
+    private int resetBudgetMillis = 5; // Time per tick an arena reset may spend restoring blocks
+    private String arenaWorldName = ""; // Void world for provisioned arena copies, empty to turn provisioning off
+    private int httpPort = 0; // Port of the JSON status endpoint, 0 turns it off
+    private String httpBindAddress = "127.0.0.1"; // Interface the status endpoint listens on
 
     public ConfigManager(ElytraDogfightsRedux plugin) {
         this.plugin = plugin;
-        this.maps = new ArrayList<>();
-        this.sessionManager = new SessionManager();
+        this.maps = new MapRegistry();
+        this.sessionManager = new SessionManager(plugin.getMetrics());
+        this.arenaTemplates = new ArenaTemplateStore(plugin);
+        this.arenaWorld = new ArenaWorld(plugin, arenaTemplates);
 
         // Register serialization
+        ConfigurationSerialization.registerClass(Loadout.class);
+        ConfigurationSerialization.registerClass(MatchRules.class);
         ConfigurationSerialization.registerClass(DogfightMap.class);
 
         loadConfig();
@@ -43,22 +62,33 @@ public class ConfigManager {
         }
 
         config = YamlConfiguration.loadConfiguration(configFile);
-        loadMaps();
+        configWriter = new DebouncedYamlWriter(plugin, plugin.getMetrics(), configFile, this::renderConfig, SAVE_DEBOUNCE_TICKS);
+        // Settings first, sessions created by loadMaps pick them up
         loadGlobalSpawn();
+        loadMaps();
     }
 
     private void loadMaps() {
         List<DogfightMap> loadedMaps = (List<DogfightMap>) config.getList("maps", new ArrayList<>());
-        maps.clear();
-        maps.addAll(loadedMaps);
+        maps.putAll(loadedMaps);
 
         // Update SessionManager with countdown duration and global spawn
         sessionManager.setCountdownDuration(countdownDuration);
         sessionManager.setGlobalSpawn(globalSpawn);
+        sessionManager.setCombatTagSeconds(combatTagSeconds);
+        sessionManager.setSpectateOnElimination(spectateOnElimination);
+        sessionManager.setResetBudgetMillis(resetBudgetMillis);
+        arenaTemplates.setBudgetMillis(resetBudgetMillis);
+        sessionManager.setArenaWorld(arenaWorld);
+        if (!arenaWorldName.isEmpty()) {
+            // Created up front so opening an instance never waits on world creation
+            arenaWorld.open(arenaWorldName);
+        }
 
         // Create sessions for all loaded maps
-        for (DogfightMap map : maps) {
+        for (DogfightMap map : maps.getMaps()) {
             sessionManager.createSession(map);
+            arenaTemplates.load(map);
         }
     }
 
@@ -77,44 +107,137 @@ public class ConfigManager {
 
         // Load server name
         serverName = config.getString("serverName", "ElytraDogfights");
+
+        // Load scoreboard flush interval
+        scoreboardUpdateInterval = config.getInt("scoreboardUpdateInterval", 1);
+
+        // Load out-of-bounds grace period
+        boundaryGraceSeconds = config.getInt("boundaryGraceSeconds", 3);
+
+        // Load matchmaking match size cap
+        matchmakingMaxPlayers = config.getInt("matchmakingMaxPlayers", 16);
+
+        // Load combat tag window
+        combatTagSeconds = config.getInt("combatTagSeconds", 10);
+
+        // Load whether eliminated players spectate
+        spectateOnElimination = config.getBoolean("spectateOnElimination", true);
+
+        // Load telemetry sampling rate
+        telemetryInterval = config.getInt("telemetryInterval", 10);
+
+        // Load arena reset time budget
+        resetBudgetMillis = config.getInt("resetBudgetMillis", 5);
+
+        // Load the world name for provisioned arena copies
+        arenaWorldName = config.getString("arenaWorld", "");
+
+        // Load the status endpoint's address
+        httpPort = config.getInt("httpPort", 0);
+        httpBindAddress = config.getString("httpBindAddress", "127.0.0.1");
     }
 
+    // Schedules a write of maps.yml, rapid successive changes are written together off the main thread
     public void saveConfig() {
-        config.set("maps", maps);
+        configWriter.markDirty();
+    }
+
+    // Writes any pending change to maps.yml immediately, used on shutdown
+    public void flushConfig() {
+        configWriter.flush();
+    }
+
+    public DebouncedYamlWriter getConfigWriter() {
+        return configWriter;
+    }
+
+    private String renderConfig() {
+        config.set("maps", new ArrayList<>(maps.getMaps()));
         config.set("globalSpawn", globalSpawn);
         config.set("countdownDuration", countdownDuration);
         config.set("serverName", serverName);
-        try {
-            config.save(configFile);
-        } catch (IOException e) {
-            plugin.getLogger().log(Level.SEVERE, "Could not save maps.yml", e);
-        }
+        config.set("scoreboardUpdateInterval", scoreboardUpdateInterval);
+        config.set("boundaryGraceSeconds", boundaryGraceSeconds);
+        config.set("matchmakingMaxPlayers", matchmakingMaxPlayers);
+        config.set("combatTagSeconds", combatTagSeconds);
+        config.set("spectateOnElimination", spectateOnElimination);
+        config.set("telemetryInterval", telemetryInterval);
+        config.set("resetBudgetMillis", resetBudgetMillis);
+        config.set("arenaWorld", arenaWorldName);
+        config.set("httpPort", httpPort);
+        config.set("httpBindAddress", httpBindAddress);
+        return config.saveToString();
     }
 
+    // Immutable view, safe to iterate without copying
     public List<DogfightMap> getMaps() {
-        return new ArrayList<>(maps);
+        return maps.getMaps();
+    }
+
+    public List<String> getMapNames() {
+        return maps.getNames();
+    }
+
+    public List<DogfightMap> getMapsByTeamConfig(TeamConfiguration teamConfig) {
+        return maps.getByTeamConfig(teamConfig);
+    }
+
+    public List<DogfightMap> getMapsInWorld(String worldName) {
+        return maps.getByWorld(worldName);
+    }
+
+    // The map whose arena contains the location, or null
+    public DogfightMap getMapAt(Location location) {
+        return maps.findAt(location);
+    }
+
+    public int getMapCount() {
+        return maps.size();
     }
 
     public void addMap(DogfightMap map) {
-        maps.add(map);
+        maps.put(map);
         sessionManager.createSession(map);
+        // A new, moved or resized box needs a new snapshot to reset from
+        arenaTemplates.captureIfStale(map);
+        saveConfig();
+    }
+
+    // Replaces the map with the same name, restarting its session with the new settings
+    public void replaceMap(DogfightMap map) {
+        DogfightMap previous = maps.get(map.getName());
+        if (previous != null) {
+            sessionManager.removeSession(previous.getName());
+        }
+        addMap(map);
+    }
+
+    public boolean renameMap(String oldName, String newName) {
+        DogfightMap previous = maps.get(oldName);
+        DogfightMap renamed = maps.rename(oldName, newName);
+        if (renamed == null) {
+            return false;
+        }
+        sessionManager.removeSession(previous.getName());
+        sessionManager.createSession(renamed);
+        arenaTemplates.rename(previous.getName(), renamed.getName());
         saveConfig();
+        return true;
     }
 
     public boolean removeMap(String name) {
-        boolean removed = maps.removeIf(map -> map.getName().equals(name));
-        if (removed) {
-            sessionManager.removeSession(name);
+        DogfightMap removed = maps.remove(name);
+        if (removed != null) {
+            sessionManager.removeSession(removed.getName());
+            arenaTemplates.delete(removed.getName());
             saveConfig();
         }
-        return removed;
+        return removed != null;
     }
 
+    // Case-insensitive
     public DogfightMap getMap(String name) {
-        return maps.stream()
-                .filter(map -> map.getName().equals(name))
-                .findFirst()
-                .orElse(null);
+        return maps.get(name);
     }
 
     public Location getGlobalSpawn() {
@@ -146,6 +269,107 @@ public class ConfigManager {
         saveConfig();
     }
 
+    public int getScoreboardUpdateInterval() {
+        return scoreboardUpdateInterval;
+    }
+
+    public void setScoreboardUpdateInterval(int ticks) {
+        this.scoreboardUpdateInterval = ticks;
+        saveConfig();
+    }
+
+    public int getBoundaryGraceSeconds() {
+        return boundaryGraceSeconds;
+    }
+
+    public void setBoundaryGraceSeconds(int seconds) {
+        this.boundaryGraceSeconds = seconds;
+        saveConfig();
+    }
+
+    public int getMatchmakingMaxPlayers() {
+        return matchmakingMaxPlayers;
+    }
+
+    public void setMatchmakingMaxPlayers(int players) {
+        this.matchmakingMaxPlayers = players;
+        saveConfig();
+    }
+
+    public int getCombatTagSeconds() {
+        return combatTagSeconds;
+    }
+
+    public void setCombatTagSeconds(int seconds) {
+        this.combatTagSeconds = seconds;
+        sessionManager.setCombatTagSeconds(seconds);
+        saveConfig();
+    }
+
+    public boolean isSpectateOnElimination() {
+        return spectateOnElimination;
+    }
+
+    public void setSpectateOnElimination(boolean spectate) {
+        this.spectateOnElimination = spectate;
+        sessionManager.setSpectateOnElimination(spectate);
+        saveConfig();
+    }
+
+    public int getTelemetryInterval() {
+        return telemetryInterval;
+    }
+
+    public void setTelemetryInterval(int ticks) {
+        this.telemetryInterval = ticks;
+        saveConfig();
+    }
+
+    public int getResetBudgetMillis() {
+        return resetBudgetMillis;
+    }
+
+    public void setResetBudgetMillis(int millis) {
+        this.resetBudgetMillis = millis;
+        sessionManager.setResetBudgetMillis(millis);
+        arenaTemplates.setBudgetMillis(millis);
+        saveConfig();
+    }
+
+    public String getArenaWorldName() {
+        return arenaWorldName;
+    }
+
+    // Opens the new world first, false and nothing changed if it cannot be used
+    public boolean setArenaWorldName(String worldName) {
+        if (worldName.isEmpty()) {
+            arenaWorld.close();
+        } else if (!arenaWorld.open(worldName)) {
+            return false;
+        }
+        this.arenaWorldName = worldName;
+        sessionManager.resizePools();
+        saveConfig();
+        return true;
+    }
+
+    public int getHttpPort() {
+        return httpPort;
+    }
+
+    public void setHttpPort(int port) {
+        this.httpPort = port;
+        saveConfig();
+    }
+
+    public String getHttpBindAddress() {
+        return httpBindAddress;
+    }
+
+    public ArenaTemplateStore getArenaTemplates() {
+        return arenaTemplates;
+    }
+
     public SessionManager getSessionManager() {
         return sessionManager;
     }
@@ -0,0 +1,131 @@
+package net.sudologic.elytraDogfightsRedux.config;
+
+import net.sudologic.elytraDogfightsRedux.metrics.Counter;
+import net.sudologic.elytraDogfightsRedux.metrics.Histogram;
+import net.sudologic.elytraDogfightsRedux.metrics.MetricsRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+// Write-behind persistence for a YAML file. Changes only mark the file dirty; once no further change
+// has arrived for the debounce window, the main thread renders the YAML text in memory and a
+// background thread writes it to a temp file and renames it over the original.
+public class DebouncedYamlWriter {
+    private static final long MAX_DELAY_MILLIS = 10_000L; // Continuous edits still get written this often
+
+    private final Plugin plugin;
+    private final File file;
+    private final Supplier<String> snapshot; // Renders the current state, called on the main thread
+    private final long debounceTicks;
+    private final ExecutorService ioExecutor;
+    private BukkitTask pendingWrite;
+    private long dirtySince;
+    private final Counter requestedSaves;
+    private final Counter completedWrites;
+    private final Histogram renderTime; // Main thread cost of each save
+    private final Histogram writeTime;
+
+    public DebouncedYamlWriter(Plugin plugin, MetricsRegistry metrics, File file, Supplier<String> snapshot, long debounceTicks) {
+        this.plugin = plugin;
+        this.file = file;
+        this.snapshot = snapshot;
+        this.debounceTicks = debounceTicks;
+        this.requestedSaves = metrics.counter("edf_yaml_saves_requested_total", "Changes that asked for a YAML file to be saved", "file", file.getName());
+        this.completedWrites = metrics.counter("edf_yaml_writes_total", "YAML files written to disk", "file", file.getName());
+        this.renderTime = metrics.histogram("edf_yaml_render_seconds", "Time spent rendering a YAML file on the main thread", Histogram.NANOS, "file", file.getName());
+        this.writeTime = metrics.histogram("edf_yaml_write_seconds", "Time spent writing a YAML file in the background", Histogram.NANOS, "file", file.getName());
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ElytraDogfights-" + file.getName() + "-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void markDirty() {
+        requestedSaves.increment();
+        long now = System.currentTimeMillis();
+        if (pendingWrite == null) {
+            dirtySince = now;
+        } else if (now - dirtySince < MAX_DELAY_MILLIS) {
+            // Restart the debounce window
+            pendingWrite.cancel();
+        } else {
+            return; // A write is already due soon, let it pick up this change
+        }
+        pendingWrite = Bukkit.getScheduler().runTaskLater(plugin, this::writeAsync, debounceTicks);
+    }
+
+    // Synchronously writes any pending change and stops the writer thread, used on shutdown
+    public void flush() {
+        boolean dirty = pendingWrite != null;
+        if (dirty) {
+            pendingWrite.cancel();
+            pendingWrite = null;
+        }
+
+        // Let writes that were already handed off finish first so they cannot overwrite this one
+        ioExecutor.shutdown();
+        try {
+            ioExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (dirty) {
+            write(render());
+        }
+    }
+
+    public long getRequestedSaves() {
+        return requestedSaves.get();
+    }
+
+    public long getCompletedWrites() {
+        return completedWrites.get();
+    }
+
+    private void writeAsync() {
+        pendingWrite = null;
+        String contents = render();
+        ioExecutor.execute(() -> write(contents));
+    }
+
+    private String render() {
+        long start = System.nanoTime();
+        String contents = snapshot.get();
+        renderTime.record(System.nanoTime() - start);
+        return contents;
+    }
+
+    private synchronized void write(String contents) {
+        long start = System.nanoTime();
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        try {
+            Files.createDirectories(target.getParent());
+            Files.writeString(temp, contents, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            completedWrites.increment();
+            writeTime.record(System.nanoTime() - start);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not save " + file.getName(), e);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package net.sudologic.elytraDogfightsRedux.config;
 
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.configuration.serialization.SerializableAs;
+import org.bukkit.util.Vector;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -16,6 +18,12 @@ public class DogfightMap implements ConfigurationSerializable {
     private final Location corner2;
     private final TeamConfiguration teamConfig;
     private final List<Location> spawnPoints;
+    private final Loadout loadout;
+    private final int maxInstances; // Matches that may run on this map at once
+    private final Vector instanceOffset; // Distance between consecutive arena copies, null if there are none
+    private final MatchRules rules;
+    private ArenaBounds bounds; // Computed on first use, corners never change
+    private boolean boundsComputed;
 
     public DogfightMap(String name, Location corner1, Location corner2, TeamConfiguration teamConfig) {
         this.name = name;
@@ -23,16 +31,39 @@ public class DogfightMap implements ConfigurationSerializable {
         this.corner2 = corner2;
         this.teamConfig = teamConfig;
         this.spawnPoints = new ArrayList<>();
+        this.loadout = Loadout.DEFAULT;
+        this.maxInstances = 1;
+        this.instanceOffset = null;
+        this.rules = MatchRules.DEFAULT;
         // Initialize spawn points based on team configuration
         initializeSpawnPoints();
     }
 
     public DogfightMap(String name, Location corner1, Location corner2, TeamConfiguration teamConfig, List<Location> spawnPoints) {
+        this(name, corner1, corner2, teamConfig, spawnPoints, Loadout.DEFAULT);
+    }
+
+    public DogfightMap(String name, Location corner1, Location corner2, TeamConfiguration teamConfig, List<Location> spawnPoints, Loadout loadout) {
+        this(name, corner1, corner2, teamConfig, spawnPoints, loadout, 1, null);
+    }
+
+    public DogfightMap(String name, Location corner1, Location corner2, TeamConfiguration teamConfig, List<Location> spawnPoints,
+                       Loadout loadout, int maxInstances, Vector instanceOffset) {
+        this(name, corner1, corner2, teamConfig, spawnPoints, loadout, maxInstances, instanceOffset, MatchRules.DEFAULT);
+    }
+
+    public DogfightMap(String name, Location corner1, Location corner2, TeamConfiguration teamConfig, List<Location> spawnPoints,
+                       Loadout loadout, int maxInstances, Vector instanceOffset, MatchRules rules) {
         this.name = name;
         this.corner1 = corner1;
         this.corner2 = corner2;
         this.teamConfig = teamConfig;
         this.spawnPoints = spawnPoints != null ? new ArrayList<>(spawnPoints) : new ArrayList<>();
+        this.loadout = loadout != null ? loadout : Loadout.DEFAULT;
+        // Without an offset, instances past the first are pasted into the arena world when it is set up
+        this.maxInstances = Math.max(1, maxInstances);
+        this.instanceOffset = instanceOffset;
+        this.rules = rules != null ? rules : MatchRules.DEFAULT;
         // Ensure we have the right number of spawn points
         ensureCorrectSpawnPointCount();
     }
@@ -109,6 +140,129 @@ public class DogfightMap implements ConfigurationSerializable {
         return teamConfig;
     }
 
+    public Loadout getLoadout() {
+        return loadout;
+    }
+
+    public MatchRules getRules() {
+        return rules;
+    }
+
+    public int getMaxInstances() {
+        return maxInstances;
+    }
+
+    public Vector getInstanceOffset() {
+        return instanceOffset;
+    }
+
+    // Primitive box between the corners, or null if they are not both set in the same world
+    public ArenaBounds getBounds() {
+        if (!boundsComputed) {
+            bounds = ArenaBounds.of(corner1, corner2);
+            boundsComputed = true;
+        }
+        return bounds;
+    }
+
+    // Name of the world the arena is in, taken from its corners or spawn points
+    public String getWorldName() {
+        for (Location location : new Location[] { corner1, corner2 }) {
+            if (location != null && location.isWorldLoaded()) {
+                return location.getWorld().getName();
+            }
+        }
+        for (Location location : spawnPoints) {
+            if (location != null && location.isWorldLoaded()) {
+                return location.getWorld().getName();
+            }
+        }
+        return null;
+    }
+
+    // Copies with a single property changed
+    public DogfightMap withName(String newName) {
+        return new DogfightMap(newName, corner1, corner2, teamConfig, spawnPoints, loadout, maxInstances, instanceOffset, rules);
+    }
+
+    public DogfightMap withCorner1(Location location) {
+        return new DogfightMap(name, location, corner2, teamConfig, spawnPoints, loadout, maxInstances, instanceOffset, rules);
+    }
+
+    public DogfightMap withCorner2(Location location) {
+        return new DogfightMap(name, corner1, location, teamConfig, spawnPoints, loadout, maxInstances, instanceOffset, rules);
+    }
+
+    public DogfightMap withTeamConfig(TeamConfiguration newTeamConfig) {
+        return new DogfightMap(name, corner1, corner2, newTeamConfig, spawnPoints, loadout, maxInstances, instanceOffset, rules);
+    }
+
+    public DogfightMap withSpawnPoint(int index, Location location) {
+        List<Location> newSpawnPoints = new ArrayList<>(spawnPoints);
+        if (index >= 0 && index < newSpawnPoints.size()) {
+            newSpawnPoints.set(index, location);
+        }
+        return new DogfightMap(name, corner1, corner2, teamConfig, newSpawnPoints, loadout, maxInstances, instanceOffset, rules);
+    }
+
+    public DogfightMap withLoadout(Loadout newLoadout) {
+        return new DogfightMap(name, corner1, corner2, teamConfig, spawnPoints, newLoadout, maxInstances, instanceOffset, rules);
+    }
+
+    public DogfightMap withRules(MatchRules newRules) {
+        return new DogfightMap(name, corner1, corner2, teamConfig, spawnPoints, loadout, maxInstances, instanceOffset, newRules);
+    }
+
+    public DogfightMap withInstances(int newMaxInstances, Vector newInstanceOffset) {
+        return new DogfightMap(name, corner1, corner2, teamConfig, spawnPoints, loadout, newMaxInstances, newInstanceOffset, rules);
+    }
+
+    // The arena copy for the given instance, with corners and spawn points shifted by the instance offset
+    public DogfightMap forInstance(int instanceIndex) {
+        if (instanceIndex == 0 || instanceOffset == null) {
+            return this;
+        }
+        double dx = instanceOffset.getX() * instanceIndex;
+        double dy = instanceOffset.getY() * instanceIndex;
+        double dz = instanceOffset.getZ() * instanceIndex;
+
+        List<Location> shiftedSpawnPoints = new ArrayList<>(spawnPoints.size());
+        for (Location spawnPoint : spawnPoints) {
+            shiftedSpawnPoints.add(shift(spawnPoint, dx, dy, dz));
+        }
+        return new DogfightMap(name, shift(corner1, dx, dy, dz), shift(corner2, dx, dy, dz), teamConfig,
+            shiftedSpawnPoints, loadout, 1, null, rules);
+    }
+
+    // A copy of this map whose box starts at the given corner of another world, used for arena copies
+    // provisioned from the map's template. Null if the corners are not set.
+    public DogfightMap relocate(World world, int minX, int minY, int minZ) {
+        ArenaBounds current = getBounds();
+        if (current == null) {
+            return null;
+        }
+        double dx = minX - current.getMinX();
+        double dy = minY - current.getMinY();
+        double dz = minZ - current.getMinZ();
+
+        List<Location> movedSpawnPoints = new ArrayList<>(spawnPoints.size());
+        for (Location spawnPoint : spawnPoints) {
+            movedSpawnPoints.add(move(spawnPoint, world, dx, dy, dz));
+        }
+        return new DogfightMap(name, move(corner1, world, dx, dy, dz), move(corner2, world, dx, dy, dz), teamConfig,
+            movedSpawnPoints, loadout, 1, null, rules);
+    }
+
+    private static Location move(Location location, World world, double dx, double dy, double dz) {
+        return location != null
+            ? new Location(world, location.getX() + dx, location.getY() + dy, location.getZ() + dz, location.getYaw(), location.getPitch())
+            : null;
+    }
+
+    private static Location shift(Location location, double dx, double dy, double dz) {
+        return location != null ? location.clone().add(dx, dy, dz) : null;
+    }
+
     @Override
     public Map<String, Object> serialize() {
         Map<String, Object> map = new HashMap<>();
@@ -117,6 +271,12 @@ public class DogfightMap implements ConfigurationSerializable {
         map.put("corner2", corner2);
         map.put("teamConfig", teamConfig.name());
         map.put("spawnPoints", spawnPoints);
+        map.put("loadout", loadout);
+        map.put("maxInstances", maxInstances);
+        map.put("rules", rules);
+        if (instanceOffset != null) {
+            map.put("instanceOffset", instanceOffset);
+        }
         return map;
     }
 
@@ -126,6 +286,10 @@ public class DogfightMap implements ConfigurationSerializable {
         Location corner2 = (Location) map.get("corner2");
         TeamConfiguration teamConfig = TeamConfiguration.valueOf((String) map.get("teamConfig"));
         List<Location> spawnPoints = (List<Location>) map.get("spawnPoints");
-        return new DogfightMap(name, corner1, corner2, teamConfig, spawnPoints);
+        Loadout loadout = map.get("loadout") instanceof Loadout ? (Loadout) map.get("loadout") : Loadout.DEFAULT;
+        int maxInstances = map.get("maxInstances") instanceof Number ? ((Number) map.get("maxInstances")).intValue() : 1;
+        Vector instanceOffset = map.get("instanceOffset") instanceof Vector ? (Vector) map.get("instanceOffset") : null;
+        MatchRules rules = map.get("rules") instanceof MatchRules ? (MatchRules) map.get("rules") : MatchRules.DEFAULT;
+        return new DogfightMap(name, corner1, corner2, teamConfig, spawnPoints, loadout, maxInstances, instanceOffset, rules);
     }
 }
\ No newline at end of file
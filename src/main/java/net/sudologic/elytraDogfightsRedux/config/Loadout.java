@@ -0,0 +1,108 @@
+package net.sudologic.elytraDogfightsRedux.config;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.SerializableAs;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@SerializableAs("Loadout")
+public class Loadout implements ConfigurationSerializable {
+    // Matches the equipment every map used before loadouts were configurable
+    public static final Loadout DEFAULT = new Loadout(true, 0, 1, Material.WOODEN_SWORD, 1, true);
+
+    private final boolean bow;
+    private final int bowPower;
+    private final int arrows;
+    private final Material sword; // null for no sword
+    private final int swordKnockback;
+    private final boolean armor;
+
+    public Loadout(boolean bow, int bowPower, int arrows, Material sword, int swordKnockback, boolean armor) {
+        this.bow = bow;
+        this.bowPower = Math.max(0, bowPower);
+        this.arrows = Math.max(0, Math.min(64, arrows));
+        this.sword = sword;
+        this.swordKnockback = Math.max(0, swordKnockback);
+        this.armor = armor;
+    }
+
+    public boolean hasBow() {
+        return bow;
+    }
+
+    public int getBowPower() {
+        return bowPower;
+    }
+
+    public int getArrows() {
+        return arrows;
+    }
+
+    public Material getSword() {
+        return sword;
+    }
+
+    public int getSwordKnockback() {
+        return swordKnockback;
+    }
+
+    public boolean hasArmor() {
+        return armor;
+    }
+
+    // Returns a copy with one property changed, or null if the property or value is invalid
+    public Loadout with(String property, String value) {
+        try {
+            switch (property.toLowerCase()) {
+                case "bow":
+                    return new Loadout(Boolean.parseBoolean(value), bowPower, arrows, sword, swordKnockback, armor);
+                case "bowpower":
+                    return new Loadout(bow, Integer.parseInt(value), arrows, sword, swordKnockback, armor);
+                case "arrows":
+                    return new Loadout(bow, bowPower, Integer.parseInt(value), sword, swordKnockback, armor);
+                case "sword":
+                    if (value.equalsIgnoreCase("none")) {
+                        return new Loadout(bow, bowPower, arrows, null, swordKnockback, armor);
+                    }
+                    Material material = Material.matchMaterial(value);
+                    if (material == null || !material.isItem()) {
+                        return null;
+                    }
+                    return new Loadout(bow, bowPower, arrows, material, swordKnockback, armor);
+                case "knockback":
+                    return new Loadout(bow, bowPower, arrows, sword, Integer.parseInt(value), armor);
+                case "armor":
+                    return new Loadout(bow, bowPower, arrows, sword, swordKnockback, Boolean.parseBoolean(value));
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, Object> serialize() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("bow", bow);
+        map.put("bowPower", bowPower);
+        map.put("arrows", arrows);
+        map.put("sword", sword != null ? sword.name() : "none");
+        map.put("swordKnockback", swordKnockback);
+        map.put("armor", armor);
+        return map;
+    }
+
+    public static Loadout deserialize(Map<String, Object> map) {
+        boolean bow = (Boolean) map.getOrDefault("bow", DEFAULT.bow);
+        int bowPower = ((Number) map.getOrDefault("bowPower", DEFAULT.bowPower)).intValue();
+        int arrows = ((Number) map.getOrDefault("arrows", DEFAULT.arrows)).intValue();
+        String swordName = (String) map.getOrDefault("sword", DEFAULT.sword.name());
+        Material sword = swordName.equalsIgnoreCase("none") ? null : Material.matchMaterial(swordName);
+        int swordKnockback = ((Number) map.getOrDefault("swordKnockback", DEFAULT.swordKnockback)).intValue();
+        boolean armor = (Boolean) map.getOrDefault("armor", DEFAULT.armor);
+        return new Loadout(bow, bowPower, arrows, sword, swordKnockback, armor);
+    }
+}
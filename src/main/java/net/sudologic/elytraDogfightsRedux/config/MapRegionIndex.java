@@ -0,0 +1,96 @@
+package net.sudologic.elytraDogfightsRedux.config;
+
+import org.bukkit.Location;
+
+import java.util.*;
+
+// Answers "which arena contains this block" per world. Arena boxes are bucketed into fixed-size
+// horizontal cells, so a lookup is one hash probe plus a bounds check against the few arenas
+// overlapping that cell. Rebuilt from scratch whenever the map set changes.
+public class MapRegionIndex {
+    private static final int CELL_SHIFT = 6; // 64x64 block cells
+    private static final int MAX_CELLS_PER_MAP = 16_384; // Larger arenas are checked linearly instead
+
+    private static final DogfightMap[] NONE = new DogfightMap[0];
+
+    private volatile Map<String, WorldCells> worlds = Map.of();
+
+    private static final class WorldCells {
+        final Map<Long, DogfightMap[]> cells;
+        final DogfightMap[] oversized; // Arenas too large to bucket
+
+        WorldCells(Map<Long, DogfightMap[]> cells, DogfightMap[] oversized) {
+            this.cells = cells;
+            this.oversized = oversized;
+        }
+    }
+
+    public void rebuild(Collection<DogfightMap> maps) {
+        Map<String, Map<Long, List<DogfightMap>>> cellLists = new HashMap<>();
+        Map<String, List<DogfightMap>> oversizedLists = new HashMap<>();
+
+        for (DogfightMap map : maps) {
+            ArenaBounds bounds = map.getBounds();
+            if (bounds == null) continue;
+
+            int minCellX = bounds.getMinX() >> CELL_SHIFT;
+            int maxCellX = bounds.getMaxX() >> CELL_SHIFT;
+            int minCellZ = bounds.getMinZ() >> CELL_SHIFT;
+            int maxCellZ = bounds.getMaxZ() >> CELL_SHIFT;
+            long cellCount = (long) (maxCellX - minCellX + 1) * (maxCellZ - minCellZ + 1);
+
+            if (cellCount > MAX_CELLS_PER_MAP) {
+                oversizedLists.computeIfAbsent(bounds.getWorldName(), k -> new ArrayList<>()).add(map);
+                continue;
+            }
+
+            Map<Long, List<DogfightMap>> worldCells = cellLists.computeIfAbsent(bounds.getWorldName(), k -> new HashMap<>());
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                    worldCells.computeIfAbsent(cellKey(cellX, cellZ), k -> new ArrayList<>(1)).add(map);
+                }
+            }
+        }
+
+        Set<String> worldNames = new HashSet<>(cellLists.keySet());
+        worldNames.addAll(oversizedLists.keySet());
+
+        Map<String, WorldCells> newWorlds = new HashMap<>();
+        for (String worldName : worldNames) {
+            Map<Long, DogfightMap[]> cells = new HashMap<>();
+            cellLists.getOrDefault(worldName, Map.of()).forEach((key, list) -> cells.put(key, list.toArray(NONE)));
+            DogfightMap[] oversized = oversizedLists.getOrDefault(worldName, List.of()).toArray(NONE);
+            newWorlds.put(worldName, new WorldCells(cells, oversized));
+        }
+        worlds = newWorlds;
+    }
+
+    public DogfightMap find(Location location) {
+        if (location == null || !location.isWorldLoaded()) return null;
+        return find(location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public DogfightMap find(String worldName, int x, int y, int z) {
+        WorldCells world = worlds.get(worldName);
+        if (world == null) return null;
+
+        DogfightMap[] candidates = world.cells.get(cellKey(x >> CELL_SHIFT, z >> CELL_SHIFT));
+        if (candidates != null) {
+            for (DogfightMap map : candidates) {
+                if (map.getBounds().contains(x, y, z)) {
+                    return map;
+                }
+            }
+        }
+        for (DogfightMap map : world.oversized) {
+            if (map.getBounds().contains(x, y, z)) {
+                return map;
+            }
+        }
+        return null;
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+}
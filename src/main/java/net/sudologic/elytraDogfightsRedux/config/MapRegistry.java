@@ -0,0 +1,119 @@
+package net.sudologic.elytraDogfightsRedux.config;
+
+import org.bukkit.Location;
+
+import java.util.*;
+
+// All configured maps, indexed for constant-time case-insensitive lookup. Mutations are rare admin
+// edits, so every read-side view is rebuilt on write and handed out as an immutable list.
+public class MapRegistry {
+    private final Map<String, DogfightMap> byName; // Lower-case name -> map, in insertion order
+    private volatile List<DogfightMap> maps;
+    private volatile List<String> names;
+    private volatile Map<TeamConfiguration, List<DogfightMap>> byTeamConfig;
+    private volatile Map<String, List<DogfightMap>> byWorld;
+    private final MapRegionIndex regions;
+
+    public MapRegistry() {
+        this.byName = new LinkedHashMap<>();
+        this.regions = new MapRegionIndex();
+        rebuildViews();
+    }
+
+    public DogfightMap get(String name) {
+        return name != null ? byName.get(key(name)) : null;
+    }
+
+    public boolean contains(String name) {
+        return get(name) != null;
+    }
+
+    // Adds the map, replacing any map with the same name
+    public void put(DogfightMap map) {
+        byName.put(key(map.getName()), map);
+        rebuildViews();
+    }
+
+    public void putAll(Collection<DogfightMap> maps) {
+        for (DogfightMap map : maps) {
+            byName.put(key(map.getName()), map);
+        }
+        rebuildViews();
+    }
+
+    public DogfightMap remove(String name) {
+        DogfightMap removed = byName.remove(key(name));
+        if (removed != null) {
+            rebuildViews();
+        }
+        return removed;
+    }
+
+    // Returns the renamed map, or null if the old name is unknown or the new name is taken by another map
+    public DogfightMap rename(String oldName, String newName) {
+        DogfightMap map = byName.get(key(oldName));
+        if (map == null) return null;
+
+        DogfightMap existing = byName.get(key(newName));
+        if (existing != null && existing != map) return null;
+
+        DogfightMap renamed = map.withName(newName);
+        byName.remove(key(oldName));
+        byName.put(key(newName), renamed);
+        rebuildViews();
+        return renamed;
+    }
+
+    public List<DogfightMap> getMaps() {
+        return maps;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    public List<DogfightMap> getByTeamConfig(TeamConfiguration teamConfig) {
+        return byTeamConfig.getOrDefault(teamConfig, List.of());
+    }
+
+    public List<DogfightMap> getByWorld(String worldName) {
+        return byWorld.getOrDefault(worldName, List.of());
+    }
+
+    // The map whose arena box contains the location, if any
+    public DogfightMap findAt(Location location) {
+        return regions.find(location);
+    }
+
+    public int size() {
+        return byName.size();
+    }
+
+    private void rebuildViews() {
+        List<String> newNames = new ArrayList<>(byName.size());
+        Map<TeamConfiguration, List<DogfightMap>> newByTeamConfig = new EnumMap<>(TeamConfiguration.class);
+        Map<String, List<DogfightMap>> newByWorld = new HashMap<>();
+
+        for (DogfightMap map : byName.values()) {
+            newNames.add(map.getName());
+            newByTeamConfig.computeIfAbsent(map.getTeamConfig(), k -> new ArrayList<>()).add(map);
+            String worldName = map.getWorldName();
+            if (worldName != null) {
+                newByWorld.computeIfAbsent(worldName, k -> new ArrayList<>()).add(map);
+            }
+        }
+
+        newByTeamConfig.replaceAll((k, v) -> List.copyOf(v));
+        newByWorld.replaceAll((k, v) -> List.copyOf(v));
+
+        maps = List.copyOf(byName.values());
+        names = List.copyOf(newNames);
+        byTeamConfig = Collections.unmodifiableMap(newByTeamConfig);
+        byWorld = Map.copyOf(newByWorld);
+        regions.rebuild(maps);
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
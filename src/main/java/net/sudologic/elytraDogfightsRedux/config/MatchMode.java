@@ -0,0 +1,7 @@
+package net.sudologic.elytraDogfightsRedux.config;
+
+public enum MatchMode {
+    ELIMINATION, // One life, last player or team standing wins
+    LIVES,       // A fixed number of lives per player, then elimination
+    DEATHMATCH   // Unlimited respawns, decided by the score or time limit
+}
@@ -0,0 +1,123 @@
+package net.sudologic.elytraDogfightsRedux.config;
+
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.SerializableAs;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// How a match on a map is won. The score is kills, per team in team modes. The score and time limits
+// apply in every mode, 0 disables them; a deathmatch without either gets DEFAULT_DEATHMATCH_SECONDS.
+// That default is never stored, so switching the mode away from deathmatch drops it again.
+@SerializableAs("MatchRules")
+public class MatchRules implements ConfigurationSerializable {
+    // Matches every map before modes were configurable
+    public static final MatchRules DEFAULT = new MatchRules(MatchMode.ELIMINATION, 1, 0, 0);
+    private static final int DEFAULT_DEATHMATCH_SECONDS = 300;
+
+    private final MatchMode mode;
+    private final int lives;
+    private final int timeLimitSeconds; // As configured, without the deathmatch default
+    private final int scoreLimit;
+
+    public MatchRules(MatchMode mode, int lives, int timeLimitSeconds, int scoreLimit) {
+        this.mode = mode;
+        this.lives = Math.max(1, lives);
+        this.scoreLimit = Math.max(0, scoreLimit);
+        this.timeLimitSeconds = Math.max(0, timeLimitSeconds);
+    }
+
+    public MatchMode getMode() {
+        return mode;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public int getTimeLimitSeconds() {
+        // A deathmatch needs something to end it
+        if (mode == MatchMode.DEATHMATCH && timeLimitSeconds == 0 && scoreLimit == 0) {
+            return DEFAULT_DEATHMATCH_SECONDS;
+        }
+        return timeLimitSeconds;
+    }
+
+    public int getScoreLimit() {
+        return scoreLimit;
+    }
+
+    // Whether a player who died with the given lives left (before this death) comes back
+    public boolean allowsRespawn(int livesLeft) {
+        switch (mode) {
+            case DEATHMATCH:
+                return true;
+            case LIVES:
+                return livesLeft > 1;
+            default:
+                return false;
+        }
+    }
+
+    public String describe() {
+        StringBuilder description = new StringBuilder();
+        switch (mode) {
+            case LIVES:
+                description.append(lives).append(lives == 1 ? " Life" : " Lives");
+                break;
+            case DEATHMATCH:
+                description.append("Deathmatch");
+                break;
+            default:
+                description.append("Elimination");
+                break;
+        }
+        if (scoreLimit > 0) description.append(", first to ").append(scoreLimit);
+        int timeLimit = getTimeLimitSeconds();
+        if (timeLimit > 0) description.append(", ").append(timeLimit / 60).append("m").append(timeLimit % 60 > 0 ? timeLimit % 60 + "s" : "");
+        return description.toString();
+    }
+
+    // Returns a copy with one property changed, or null if the property or value is invalid
+    public MatchRules with(String property, String value) {
+        try {
+            switch (property.toLowerCase()) {
+                case "mode":
+                    return new MatchRules(MatchMode.valueOf(value.toUpperCase()), lives, timeLimitSeconds, scoreLimit);
+                case "lives":
+                    return new MatchRules(mode, Integer.parseInt(value), timeLimitSeconds, scoreLimit);
+                case "timelimit":
+                    return new MatchRules(mode, lives, Integer.parseInt(value), scoreLimit);
+                case "scorelimit":
+                    return new MatchRules(mode, lives, timeLimitSeconds, Integer.parseInt(value));
+                default:
+                    return null;
+            }
+        } catch (IllegalArgumentException e) {
+            return null; // Also covers NumberFormatException and unknown modes
+        }
+    }
+
+    @Override
+    public Map<String, Object> serialize() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("mode", mode.name());
+        map.put("lives", lives);
+        map.put("timeLimitSeconds", timeLimitSeconds);
+        map.put("scoreLimit", scoreLimit);
+        return map;
+    }
+
+    public static MatchRules deserialize(Map<String, Object> map) {
+        MatchMode mode;
+        try {
+            mode = MatchMode.valueOf(String.valueOf(map.getOrDefault("mode", DEFAULT.mode.name())).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            mode = DEFAULT.mode;
+        }
+        int lives = ((Number) map.getOrDefault("lives", DEFAULT.lives)).intValue();
+        int timeLimitSeconds = ((Number) map.getOrDefault("timeLimitSeconds", DEFAULT.timeLimitSeconds)).intValue();
+        int scoreLimit = ((Number) map.getOrDefault("scoreLimit", DEFAULT.scoreLimit)).intValue();
+        return new MatchRules(mode, lives, timeLimitSeconds, scoreLimit);
+    }
+}
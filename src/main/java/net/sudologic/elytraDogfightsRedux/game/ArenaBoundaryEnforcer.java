@@ -0,0 +1,97 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+import net.kyori.adventure.text.Component;
+import net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux;
+import net.sudologic.elytraDogfightsRedux.config.ArenaBounds;
+import net.sudologic.elytraDogfightsRedux.metrics.Histogram;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+// Warns players in an ACTIVE match who leave their arena box, and eliminates them if they stay out
+// past the grace period. Only called for block-changing moves of players already known to be in a game.
+public class ArenaBoundaryEnforcer {
+    private static final String ELIMINATION_MESSAGE = "§cYou were eliminated for leaving the arena.";
+
+    private final ElytraDogfightsRedux plugin;
+    private final Map<UUID, Integer> outOfBoundsSince; // Player UUID -> tick they left the arena
+    private BukkitTask sweepTask;
+
+    private final Histogram checkTime; // Cost of check(), reported by the status and metrics commands
+
+    public ArenaBoundaryEnforcer(ElytraDogfightsRedux plugin) {
+        this.plugin = plugin;
+        this.outOfBoundsSince = new HashMap<>();
+        this.checkTime = plugin.getMetrics().histogram("edf_boundary_check_seconds", "Time spent checking a move against the arena bounds", Histogram.NANOS);
+    }
+
+    public void start() {
+        // Players hovering or standing still outside the arena send no move events
+        sweepTask = Bukkit.getScheduler().runTaskTimer(plugin, this::sweep, 20L, 20L);
+    }
+
+    public void stop() {
+        if (sweepTask != null) {
+            sweepTask.cancel();
+            sweepTask = null;
+        }
+    }
+
+    public void check(Player player, Location to) {
+        long start = System.nanoTime();
+
+        UUID playerId = player.getUniqueId();
+        Session session = plugin.getSessionManager().getPlayerSession(playerId);
+        ArenaBounds bounds = session != null ? session.getMap().getBounds() : null;
+
+        if (bounds != null) {
+            if (bounds.contains(to.getBlockX(), to.getBlockY(), to.getBlockZ())) {
+                if (outOfBoundsSince.remove(playerId) != null) {
+                    player.sendMessage(Component.text("§aYou are back inside the arena."));
+                }
+            } else if (!outOfBoundsSince.containsKey(playerId)) {
+                outOfBoundsSince.put(playerId, Bukkit.getCurrentTick());
+                player.sendMessage(Component.text("§cYou left the arena! Return within "
+                    + plugin.getConfigManager().getBoundaryGraceSeconds() + " seconds or you will be eliminated."));
+            } else if (isGraceExpired(outOfBoundsSince.get(playerId))) {
+                outOfBoundsSince.remove(playerId);
+                session.eliminatePlayer(player, ELIMINATION_MESSAGE);
+            }
+        }
+
+        checkTime.record(System.nanoTime() - start);
+    }
+
+    public Histogram getCheckTime() {
+        return checkTime;
+    }
+
+    private void sweep() {
+        var sessionManager = plugin.getSessionManager();
+        Iterator<Map.Entry<UUID, Integer>> iterator = outOfBoundsSince.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, Integer> entry = iterator.next();
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if (player == null || !sessionManager.isPlayerInActiveGame(entry.getKey())) {
+                // Left, died or the match ended
+                iterator.remove();
+                continue;
+            }
+            if (isGraceExpired(entry.getValue())) {
+                iterator.remove();
+                sessionManager.getPlayerSession(entry.getKey()).eliminatePlayer(player, ELIMINATION_MESSAGE);
+            }
+        }
+    }
+
+    private boolean isGraceExpired(int leftAtTick) {
+        int graceTicks = plugin.getConfigManager().getBoundaryGraceSeconds() * 20;
+        return Bukkit.getCurrentTick() - leftAtTick >= graceTicks;
+    }
+}
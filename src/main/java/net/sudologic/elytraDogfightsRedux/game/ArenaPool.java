@@ -0,0 +1,132 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+import net.sudologic.elytraDogfightsRedux.config.DogfightMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The running session instances of one map. Instance N plays in the arena copy shifted by N times the
+// map's instance offset, or without an offset in a copy pasted from the map's template into the arena
+// world. As soon as an instance starts its match a fresh instance is opened, up to the map's instance
+// limit, so the next copy is ready before anyone needs it. Surplus idle instances are released when
+// their match ends. A map without an offset only gets more than one instance if copies can be pasted
+// when its pool is created.
+public class ArenaPool {
+    private final DogfightMap map;
+    private final SessionManager sessionManager;
+    private final Session[] instances; // Instance index -> session, null when that arena copy is free
+    private boolean closed;
+
+    ArenaPool(DogfightMap map, SessionManager sessionManager) {
+        this.map = map;
+        this.sessionManager = sessionManager;
+        this.instances = new Session[sessionManager.instanceCapacity(map)];
+        openInstance(0);
+    }
+
+    public DogfightMap getMap() {
+        return map;
+    }
+
+    // The instance new players should join, or null if every instance is busy
+    public Session getJoinable() {
+        // Fill the fullest waiting instance first so its match starts sooner
+        Session best = null;
+        for (Session session : instances) {
+            if (session != null && !session.isInUse()
+                && (best == null || session.getQueuedPlayerCount() > best.getQueuedPlayerCount())) {
+                best = session;
+            }
+        }
+        return best;
+    }
+
+    public List<Session> getInstances() {
+        List<Session> sessions = new ArrayList<>(instances.length);
+        for (Session session : instances) {
+            if (session != null) {
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+
+    public int getBusyCount() {
+        int busy = 0;
+        for (Session session : instances) {
+            if (session != null && session.isInUse()) {
+                busy++;
+            }
+        }
+        return busy;
+    }
+
+    public int getMaxInstances() {
+        return instances.length;
+    }
+
+    // True if no instance has a player in it or a match or reset running
+    boolean isIdle() {
+        for (Session session : instances) {
+            if (session != null && (session.isInUse() || session.getQueuedPlayerCount() > 0
+                    || session.getActivePlayerCount() > 0 || session.getSpectatorCount() > 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void onSessionStateChanged(Session session, SessionState oldState, SessionState newState) {
+        if (closed) return;
+
+        if (newState == SessionState.STARTING) {
+            // The instance just stopped accepting players, open another one for the queue
+            ensureJoinable();
+        } else if (newState == SessionState.WAITING && (oldState == SessionState.STARTING || oldState == SessionState.ACTIVE
+                || oldState == SessionState.RESETTING)) {
+            // Match over, keep this instance only if nothing else is waiting for players
+            releaseIfSurplus(session);
+        }
+    }
+
+    void close() {
+        closed = true;
+        for (int i = 0; i < instances.length; i++) {
+            if (instances[i] != null) {
+                instances[i].close();
+                instances[i] = null;
+            }
+        }
+    }
+
+    private void ensureJoinable() {
+        if (getJoinable() != null) return;
+        for (int i = 0; i < instances.length; i++) {
+            if (instances[i] == null) {
+                openInstance(i);
+                return;
+            }
+        }
+    }
+
+    private void releaseIfSurplus(Session ended) {
+        for (Session session : instances) {
+            if (session != null && session != ended && !session.isInUse()) {
+                instances[ended.getInstanceIndex()] = null;
+                return;
+            }
+        }
+    }
+
+    private void openInstance(int index) {
+        if (index > 0 && map.getInstanceOffset() == null) {
+            // No hand-built copies, paste one from the map's template into a slot of the arena world
+            DogfightMap provisioned = sessionManager.provisionInstance(map, index);
+            if (provisioned == null) return;
+            instances[index] = sessionManager.newSession(provisioned, index, this);
+            instances[index].provisionArena();
+            return;
+        }
+        instances[index] = sessionManager.newSession(map.forInstance(index), index, this);
+    }
+}
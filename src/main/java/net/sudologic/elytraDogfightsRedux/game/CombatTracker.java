@@ -0,0 +1,85 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+import org.bukkit.Bukkit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Who hit whom in one match. Every player gets a slot when the match starts and hits go into a
+// fixed slot-by-slot table of server ticks, so recording a hit allocates nothing. On a death the
+// most recent attacker within the tag window gets the kill and every other attacker in it an assist.
+class CombatTracker {
+    private static final int NO_HIT = Integer.MIN_VALUE;
+
+    private final Map<UUID, Integer> slots;
+    private final UUID[] players;
+    private final String[] names; // Kept for the kill feed, players may be offline by then
+    private final int[] hitTicks; // [victim * size + attacker] -> tick of the last hit
+    private final int[] lastAttacker; // Victim slot -> slot of the last attacker, -1 if none
+    private final int expiryTicks;
+
+    record Attribution(UUID killer, String killerName, List<UUID> assists, List<String> assistNames) {
+    }
+
+    CombatTracker(List<UUID> participants, Map<UUID, String> participantNames, int expiryTicks) {
+        int size = participants.size();
+        this.slots = new HashMap<>(size * 2);
+        this.players = new UUID[size];
+        this.names = new String[size];
+        for (int i = 0; i < size; i++) {
+            UUID playerId = participants.get(i);
+            slots.put(playerId, i);
+            players[i] = playerId;
+            names[i] = participantNames.get(playerId);
+        }
+        this.hitTicks = new int[size * size];
+        Arrays.fill(hitTicks, NO_HIT);
+        this.lastAttacker = new int[size];
+        Arrays.fill(lastAttacker, -1);
+        this.expiryTicks = expiryTicks;
+    }
+
+    void recordHit(UUID victim, UUID attacker) {
+        Integer victimSlot = slots.get(victim);
+        Integer attackerSlot = slots.get(attacker);
+        if (victimSlot == null || attackerSlot == null || victimSlot.equals(attackerSlot)) return;
+
+        hitTicks[victimSlot * players.length + attackerSlot] = Bukkit.getCurrentTick();
+        lastAttacker[victimSlot] = attackerSlot;
+    }
+
+    // Credits the victim's death and clears their tags, null if nobody hit them recently enough
+    Attribution resolveDeath(UUID victim) {
+        Integer victimSlot = slots.get(victim);
+        if (victimSlot == null) return null;
+
+        int now = Bukkit.getCurrentTick();
+        int row = victimSlot * players.length;
+        int killerSlot = lastAttacker[victimSlot];
+        if (killerSlot >= 0 && now - hitTicks[row + killerSlot] > expiryTicks) {
+            killerSlot = -1; // Tag expired
+        }
+
+        List<UUID> assists = new ArrayList<>();
+        List<String> assistNames = new ArrayList<>();
+        for (int attacker = 0; attacker < players.length; attacker++) {
+            int hitTick = hitTicks[row + attacker];
+            if (attacker != killerSlot && hitTick != NO_HIT && now - hitTick <= expiryTicks) {
+                assists.add(players[attacker]);
+                assistNames.add(names[attacker]);
+            }
+            hitTicks[row + attacker] = NO_HIT;
+        }
+        lastAttacker[victimSlot] = -1;
+
+        if (killerSlot < 0) {
+            // Without a killer an assist is not meaningful
+            return null;
+        }
+        return new Attribution(players[killerSlot], names[killerSlot], assists, assistNames);
+    }
+}
@@ -2,23 +2,81 @@ package net.sudologic.elytraDogfightsRedux.game;
 
 import net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux;
 import net.sudologic.elytraDogfightsRedux.config.ConfigManager;
+import net.sudologic.elytraDogfightsRedux.config.MatchMode;
+import net.sudologic.elytraDogfightsRedux.config.MatchRules;
 import net.sudologic.elytraDogfightsRedux.config.TeamConfiguration;
+import net.sudologic.elytraDogfightsRedux.metrics.Counter;
+import net.sudologic.elytraDogfightsRedux.metrics.Histogram;
+import net.sudologic.elytraDogfightsRedux.metrics.MetricsRegistry;
+import net.sudologic.elytraDogfightsRedux.stats.LeaderboardEntry;
+import net.sudologic.elytraDogfightsRedux.stats.StatType;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.scoreboard.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public class CustomScoreboard {
+    private static final int LOBBY_LEADERBOARD_LINES = 3;
+
     private final ElytraDogfightsRedux plugin;
     private final ConfigManager configManager;
     private final SessionManager sessionManager;
+    private final Map<UUID, SidebarBoard> boards; // One persistent sidebar per online player
+    private final List<String> lines; // Reused line buffer, scoreboards are only rendered on the main thread
+    private final Set<UUID> dirtyPlayers; // Players waiting for a render on the next flush
+    private boolean allDirty; // Every online player needs a render on the next flush
+    private final Set<Session> dirtySpectatorSessions; // Sessions whose spectators need a render on the next flush
+    private BukkitTask flushTask;
+    private LobbyStats lobbyStats; // Shared by every lobby sidebar rendered in the current flush
+    private final Counter requestedUpdates;
+    private final Counter renderedUpdates;
+    private final Histogram renderTime; // One sidebar
+    private final Histogram flushTime; // Everything rendered in one flush
 
     public CustomScoreboard(ElytraDogfightsRedux plugin) {
         this.plugin = plugin;
         this.configManager = plugin.getConfigManager();
         this.sessionManager = plugin.getSessionManager();
+        this.boards = new HashMap<>();
+        this.lines = new ArrayList<>(SidebarBoard.MAX_LINES);
+        this.dirtyPlayers = new HashSet<>();
+        this.dirtySpectatorSessions = new HashSet<>();
+        MetricsRegistry metrics = plugin.getMetrics();
+        this.requestedUpdates = metrics.counter("edf_scoreboard_updates_requested_total", "Scoreboard updates asked for, before coalescing");
+        this.renderedUpdates = metrics.counter("edf_scoreboard_renders_total", "Scoreboards rendered");
+        this.renderTime = metrics.histogram("edf_scoreboard_render_seconds", "Time spent building and showing one player's sidebar", Histogram.NANOS);
+        this.flushTime = metrics.histogram("edf_scoreboard_flush_seconds", "Time spent rendering every dirty scoreboard in one flush", Histogram.NANOS);
+    }
+
+    public void start() {
+        stop();
+        long interval = Math.max(1, configManager.getScoreboardUpdateInterval());
+        flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::flush, interval, interval);
+    }
+
+    public void stop() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+    }
+
+    public void setUpdateInterval(int ticks) {
+        configManager.setScoreboardUpdateInterval(ticks);
+        start();
+    }
+
+    public int getUpdateInterval() {
+        return configManager.getScoreboardUpdateInterval();
     }
 
     public void setServerName(String serverName) {
@@ -30,161 +88,323 @@ public class CustomScoreboard {
     }
 
     public void updatePlayerScoreboard(Player player) {
-        UUID playerId = player.getUniqueId();
-        Session session = sessionManager.getPlayerSession(playerId);
+        markDirty(player.getUniqueId());
+    }
 
-        Scoreboard scoreboard = createScoreboard(player, session);
-        player.setScoreboard(scoreboard);
+    public void markDirty(UUID playerId) {
+        requestedUpdates.increment();
+        dirtyPlayers.add(playerId);
     }
 
-    private Scoreboard createScoreboard(Player player, Session session) {
-        ScoreboardManager scoreboardManager = Bukkit.getScoreboardManager();
-        Scoreboard scoreboard = scoreboardManager.getNewScoreboard();
+    public void markSpectatorsDirty(Session session) {
+        requestedUpdates.add(session.getSpectatorCount());
+        dirtySpectatorSessions.add(session);
+    }
+
+    public void updateAllScoreboards() {
+        requestedUpdates.add(Bukkit.getOnlinePlayers().size());
+        allDirty = true;
+    }
+
+    public void flush() {
+        if (!allDirty && dirtyPlayers.isEmpty() && dirtySpectatorSessions.isEmpty()) return;
+        long start = System.nanoTime();
+        // Lobby stats are recomputed at most once per flush, on the first lobby render
+        lobbyStats = null;
+        if (allDirty) {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                renderPlayerScoreboard(player);
+            }
+        } else {
+            for (UUID playerId : dirtyPlayers) {
+                // Spectators of a session flushed below get their sidebar there, only once
+                Session spectated = sessionManager.getSpectatedSession(playerId);
+                if (spectated != null && dirtySpectatorSessions.contains(spectated)) continue;
+                Player player = Bukkit.getPlayer(playerId);
+                if (player != null) {
+                    renderPlayerScoreboard(player);
+                }
+            }
+            for (Session session : dirtySpectatorSessions) {
+                renderSpectatorScoreboards(session);
+            }
+        }
+        allDirty = false;
+        dirtyPlayers.clear();
+        dirtySpectatorSessions.clear();
+        flushTime.record(System.nanoTime() - start);
+    }
+
+    // Builds the spectator sidebar once and shows it to every spectator of the session
+    private void renderSpectatorScoreboards(Session session) {
+        if (session.getSpectatorCount() == 0) return;
+        String title = getTitle();
+        lines.clear();
+        setupSpectatorScoreboard(session);
+        for (UUID playerId : session.getSpectators()) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player != null) {
+                long start = System.nanoTime();
+                getBoard(player, title).render(title, lines);
+                renderedUpdates.increment();
+                renderTime.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private String getTitle() {
+        return ChatColor.GOLD + "" + ChatColor.BOLD + configManager.getServerName();
+    }
+
+    private SidebarBoard getBoard(Player player, String title) {
+        SidebarBoard board = boards.get(player.getUniqueId());
+        if (board == null) {
+            board = new SidebarBoard(title);
+            boards.put(player.getUniqueId(), board);
+        }
+        if (player.getScoreboard() != board.getScoreboard()) {
+            player.setScoreboard(board.getScoreboard());
+        }
+        return board;
+    }
 
-        Objective objective = scoreboard.registerNewObjective("dogfights", "dummy",
-            ChatColor.GOLD + "" + ChatColor.BOLD + configManager.getServerName());
-        objective.setDisplaySlot(DisplaySlot.SIDEBAR);
+    public long getRequestedUpdates() {
+        return requestedUpdates.get();
+    }
+
+    public long getRenderedUpdates() {
+        return renderedUpdates.get();
+    }
+
+    private void renderPlayerScoreboard(Player player) {
+        long start = System.nanoTime();
+        buildPlayerScoreboard(player);
+        renderedUpdates.increment();
+        renderTime.record(System.nanoTime() - start);
+    }
 
+    private void buildPlayerScoreboard(Player player) {
+        UUID playerId = player.getUniqueId();
+        Session session = sessionManager.getPlayerSession(playerId);
+        String title = getTitle();
+        SidebarBoard board = getBoard(player, title);
+
+        lines.clear();
+        Session spectated = session == null ? sessionManager.getSpectatedSession(playerId) : null;
+        if (spectated != null) {
+            setupSpectatorScoreboard(spectated);
+        } else {
+            buildLines(player, session);
+        }
+        board.render(title, lines);
+    }
+
+    private void buildLines(Player player, Session session) {
         if (session == null) {
             // Player is not in any session - show lobby scoreboard
-            setupLobbyScoreboard(objective, player);
+            setupLobbyScoreboard(player);
         } else {
             SessionState state = session.getState();
             switch (state) {
                 case WAITING:
                 case COUNTDOWN:
+                case STARTING:
                     // Player is queued for a match
-                    setupQueueScoreboard(objective, player, session);
+                    setupQueueScoreboard(player, session);
                     break;
                 case ACTIVE:
                     // Player is in an active match
-                    setupActiveScoreboard(objective, player, session);
+                    setupActiveScoreboard(player, session);
                     break;
             }
         }
-
-        return scoreboard;
     }
 
-    private void setupLobbyScoreboard(Objective objective, Player player) {
-        int line = 15;
-
+    private void setupLobbyScoreboard(Player player) {
         // Empty line
-        objective.getScore(ChatColor.RESET + "").setScore(line--);
+        lines.add("");
 
         // Player name
-        objective.getScore(ChatColor.YELLOW + "Player: " + ChatColor.WHITE + player.getName()).setScore(line--);
+        lines.add(ChatColor.YELLOW + "Player: " + ChatColor.WHITE + player.getName());
 
         // Empty line
-        objective.getScore(ChatColor.RESET + " ").setScore(line--);
+        lines.add("");
+
+        LobbyStats stats = getLobbyStats();
 
         // Map count
-        int mapCount = configManager.getMaps().size();
-        objective.getScore(ChatColor.GREEN + "Maps: " + ChatColor.WHITE + mapCount).setScore(line--);
+        lines.add(ChatColor.GREEN + "Maps: " + ChatColor.WHITE + stats.mapCount());
 
         // Online players
-        int onlineCount = Bukkit.getOnlinePlayers().size();
-        objective.getScore(ChatColor.BLUE + "Online: " + ChatColor.WHITE + onlineCount).setScore(line--);
+        lines.add(ChatColor.BLUE + "Online: " + ChatColor.WHITE + stats.onlineCount());
 
         // Empty line
-        objective.getScore(ChatColor.RESET + "  ").setScore(line--);
+        lines.add("");
 
         // Active sessions count
-        int activeSessions = (int) sessionManager.getAllSessions().stream()
-            .filter(session -> session.getState() == SessionState.ACTIVE)
-            .count();
-        objective.getScore(ChatColor.AQUA + "Active Games: " + ChatColor.WHITE + activeSessions).setScore(line--);
+        lines.add(ChatColor.AQUA + "Active Games: " + ChatColor.WHITE + stats.activeGames());
 
         // Empty line
-        objective.getScore(ChatColor.RESET + "   ").setScore(line--);
+        lines.add("");
+
+        // Leaderboard head, kept up to date by the stats store so this never sorts anything
+        List<LeaderboardEntry> topKills = plugin.getStatsStore().getTop(StatType.KILLS);
+        if (!topKills.isEmpty()) {
+            lines.add(ChatColor.GOLD + "Top Kills");
+            for (int i = 0; i < Math.min(LOBBY_LEADERBOARD_LINES, topKills.size()); i++) {
+                LeaderboardEntry entry = topKills.get(i);
+                lines.add(ChatColor.WHITE + "" + (i + 1) + ". " + entry.name() + ChatColor.GRAY + " " + entry.value());
+            }
+            lines.add("");
+        }
 
         // Instructions
-        objective.getScore(ChatColor.GRAY + "Use /elytradogfights").setScore(line--);
-        objective.getScore(ChatColor.GRAY + "play <map> to join").setScore(line--);
+        lines.add(ChatColor.GRAY + "Use /elytradogfights");
+        lines.add(ChatColor.GRAY + "play <map> to join");
     }
 
-    private void setupQueueScoreboard(Objective objective, Player player, Session session) {
-        int line = 15;
+    private LobbyStats getLobbyStats() {
+        if (lobbyStats == null) {
+            lobbyStats = new LobbyStats(
+                configManager.getMapCount(),
+                Bukkit.getOnlinePlayers().size(),
+                sessionManager.getActiveSessionCount());
+        }
+        return lobbyStats;
+    }
 
+    private void setupQueueScoreboard(Player player, Session session) {
         // Empty line
-        objective.getScore(ChatColor.RESET + "").setScore(line--);
+        lines.add("");
 
         // Player name
-        objective.getScore(ChatColor.YELLOW + "Player: " + ChatColor.WHITE + player.getName()).setScore(line--);
+        lines.add(ChatColor.YELLOW + "Player: " + ChatColor.WHITE + player.getName());
 
         // Empty line
-        objective.getScore(ChatColor.RESET + " ").setScore(line--);
+        lines.add("");
 
         // Map name
-        objective.getScore(ChatColor.GREEN + "Map: " + ChatColor.WHITE + session.getMap().getName()).setScore(line--);
+        lines.add(ChatColor.GREEN + "Map: " + ChatColor.WHITE + session.getDisplayName());
 
         // Team configuration
         String teamConfig = getTeamConfigDisplay(session.getMap().getTeamConfig());
-        objective.getScore(ChatColor.BLUE + "Mode: " + ChatColor.WHITE + teamConfig).setScore(line--);
+        lines.add(ChatColor.BLUE + "Mode: " + ChatColor.WHITE + teamConfig);
+        lines.add(ChatColor.BLUE + "Rules: " + ChatColor.WHITE + session.getMap().getRules().describe());
 
         // Empty line
-        objective.getScore(ChatColor.RESET + "  ").setScore(line--);
+        lines.add("");
 
         // Queue status
         int queuedCount = session.getQueuedPlayerCount();
         int requiredCount = session.getRequiredPlayers();
 
         if (session.getState() == SessionState.WAITING) {
-            objective.getScore(ChatColor.YELLOW + "Waiting...").setScore(line--);
-            objective.getScore(ChatColor.WHITE + "Players: " + queuedCount + "/" + requiredCount).setScore(line--);
+            lines.add(ChatColor.YELLOW + "Waiting...");
+            lines.add(ChatColor.WHITE + "Players: " + queuedCount + "/" + requiredCount);
         } else if (session.getState() == SessionState.COUNTDOWN) {
-            objective.getScore(ChatColor.GOLD + "Starting Soon!").setScore(line--);
-            objective.getScore(ChatColor.WHITE + "Players: " + queuedCount).setScore(line--);
+            lines.add(ChatColor.GOLD + "Starting Soon!");
+            lines.add(ChatColor.WHITE + "Players: " + queuedCount);
+        } else if (session.getState() == SessionState.STARTING) {
+            lines.add(ChatColor.GOLD + "Teleporting...");
+            lines.add(ChatColor.WHITE + "Players: " + queuedCount);
         }
 
         // Empty line
-        objective.getScore(ChatColor.RESET + "   ").setScore(line--);
+        lines.add("");
 
         // Instructions
-        objective.getScore(ChatColor.GRAY + "Get ready to fight!").setScore(line--);
+        lines.add(ChatColor.GRAY + "Get ready to fight!");
     }
 
-    private void setupActiveScoreboard(Objective objective, Player player, Session session) {
-        int line = 15;
-
+    private void setupActiveScoreboard(Player player, Session session) {
         // Empty line
-        objective.getScore(ChatColor.RESET + "").setScore(line--);
+        lines.add("");
 
         // Player name
-        objective.getScore(ChatColor.YELLOW + "Player: " + ChatColor.WHITE + player.getName()).setScore(line--);
+        lines.add(ChatColor.YELLOW + "Player: " + ChatColor.WHITE + player.getName());
 
         // Empty line
-        objective.getScore(ChatColor.RESET + " ").setScore(line--);
+        lines.add("");
 
         // Map name
-        objective.getScore(ChatColor.GREEN + "Map: " + ChatColor.WHITE + session.getMap().getName()).setScore(line--);
+        lines.add(ChatColor.GREEN + "Map: " + ChatColor.WHITE + session.getDisplayName());
 
         // Team configuration
         String teamConfig = getTeamConfigDisplay(session.getMap().getTeamConfig());
-        objective.getScore(ChatColor.BLUE + "Mode: " + ChatColor.WHITE + teamConfig).setScore(line--);
+        lines.add(ChatColor.BLUE + "Mode: " + ChatColor.WHITE + teamConfig);
 
         // Empty line
-        objective.getScore(ChatColor.RESET + "  ").setScore(line--);
+        lines.add("");
 
         // Team assignment
         Integer playerTeam = session.getPlayerTeam(player.getUniqueId());
         if (playerTeam != null) {
             if (session.getMap().getTeamConfig() == TeamConfiguration.FREE_FOR_ALL) {
-                objective.getScore(ChatColor.WHITE + "Free For All").setScore(line--);
+                lines.add(ChatColor.WHITE + "Free For All");
             } else {
-                objective.getScore(ChatColor.AQUA + "Team: " + ChatColor.WHITE + (playerTeam + 1)).setScore(line--);
+                lines.add(ChatColor.AQUA + "Team: " + ChatColor.WHITE + (playerTeam + 1));
             }
         }
 
         // Active players count
         int activePlayers = session.getActivePlayerCount();
-        objective.getScore(ChatColor.RED + "Alive: " + ChatColor.WHITE + activePlayers).setScore(line--);
+        lines.add(ChatColor.RED + "Alive: " + ChatColor.WHITE + activePlayers);
+
+        // Rule-specific progress
+        MatchRules rules = session.getMap().getRules();
+        if (rules.getMode() == MatchMode.LIVES) {
+            lines.add(ChatColor.RED + "Lives: " + ChatColor.WHITE + session.getLivesLeft(player.getUniqueId()));
+        }
+        if (rules.getMode() == MatchMode.DEATHMATCH || rules.getScoreLimit() > 0) {
+            int score = session.getSideScore(player.getUniqueId());
+            lines.add(ChatColor.GOLD + "Score: " + ChatColor.WHITE + score + (rules.getScoreLimit() > 0 ? "/" + rules.getScoreLimit() : ""));
+        }
+        int remaining = session.getRemainingSeconds();
+        if (remaining >= 0) {
+            lines.add(ChatColor.YELLOW + "Time: " + ChatColor.WHITE + String.format("%d:%02d", remaining / 60, remaining % 60));
+        }
 
         // Empty line
-        objective.getScore(ChatColor.RESET + "   ").setScore(line--);
+        lines.add("");
 
         // Game status
-        objective.getScore(ChatColor.GOLD + "" + ChatColor.BOLD + "FIGHT!").setScore(line--);
+        lines.add(ChatColor.GOLD + "" + ChatColor.BOLD + "FIGHT!");
+    }
+
+    // Identical for every spectator of the session, so it may not depend on the viewing player
+    private void setupSpectatorScoreboard(Session session) {
+        // Empty line
+        lines.add("");
+
+        lines.add(ChatColor.GRAY + "" + ChatColor.BOLD + "SPECTATING");
+
+        // Empty line
+        lines.add("");
+
+        // Map name
+        lines.add(ChatColor.GREEN + "Map: " + ChatColor.WHITE + session.getDisplayName());
+
+        // Team configuration and rules
+        lines.add(ChatColor.BLUE + "Mode: " + ChatColor.WHITE + getTeamConfigDisplay(session.getMap().getTeamConfig()));
+        lines.add(ChatColor.BLUE + "Rules: " + ChatColor.WHITE + session.getMap().getRules().describe());
+
+        // Empty line
+        lines.add("");
+
+        // Match progress
+        lines.add(ChatColor.RED + "Alive: " + ChatColor.WHITE + session.getActivePlayerCount());
+        lines.add(ChatColor.GRAY + "Watching: " + ChatColor.WHITE + session.getSpectatorCount());
+        int remaining = session.getRemainingSeconds();
+        if (remaining >= 0) {
+            lines.add(ChatColor.YELLOW + "Time: " + ChatColor.WHITE + String.format("%d:%02d", remaining / 60, remaining % 60));
+        }
+
+        // Empty line
+        lines.add("");
+
+        // Instructions
+        lines.add(ChatColor.GRAY + "/elytradogfights leave");
+        lines.add(ChatColor.GRAY + "to stop watching");
     }
 
     private String getTeamConfigDisplay(TeamConfiguration config) {
@@ -200,13 +420,9 @@ public class CustomScoreboard {
         }
     }
 
-    public void updateAllScoreboards() {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            updatePlayerScoreboard(player);
-        }
-    }
-
     public void removePlayerScoreboard(Player player) {
+        boards.remove(player.getUniqueId());
+        dirtyPlayers.remove(player.getUniqueId());
         ScoreboardManager scoreboardManager = Bukkit.getScoreboardManager();
         player.setScoreboard(scoreboardManager.getMainScoreboard());
     }
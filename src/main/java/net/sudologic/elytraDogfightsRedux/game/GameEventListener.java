@@ -1,43 +1,85 @@
 package net.sudologic.elytraDogfightsRedux.game;
 
 import net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux;
+import net.sudologic.elytraDogfightsRedux.config.ArenaBounds;
+import net.sudologic.elytraDogfightsRedux.metrics.Histogram;
+import net.sudologic.elytraDogfightsRedux.metrics.MetricsRegistry;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Projectile;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import net.kyori.adventure.text.Component;
 
-import java.util.UUID;
-
 public class GameEventListener implements Listener {
     private final ElytraDogfightsRedux plugin;
+    // Time spent in each handler, kept for the metrics command and export
+    private final Histogram joinTimer;
+    private final Histogram quitTimer;
+    private final Histogram deathTimer;
+    private final Histogram damageTimer;
+    private final Histogram moveTimer;
+    private final Histogram teleportTimer;
 
     public GameEventListener(ElytraDogfightsRedux plugin) {
         this.plugin = plugin;
+        MetricsRegistry metrics = plugin.getMetrics();
+        this.joinTimer = eventTimer(metrics, "join");
+        this.quitTimer = eventTimer(metrics, "quit");
+        this.deathTimer = eventTimer(metrics, "death");
+        this.damageTimer = eventTimer(metrics, "damage");
+        this.moveTimer = eventTimer(metrics, "move");
+        this.teleportTimer = eventTimer(metrics, "teleport");
+    }
+
+    private static Histogram eventTimer(MetricsRegistry metrics, String event) {
+        return metrics.histogram("edf_event_handler_seconds", "Time spent in the plugin's event handlers", Histogram.NANOS, "event", event);
     }
 
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
-        Player player = event.getPlayer();
+        long start = System.nanoTime();
+        handlePlayerJoin(event);
+        joinTimer.record(System.nanoTime() - start);
+    }
 
-        // Update scoreboard for the joining player
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            plugin.getScoreboardManager().updatePlayerScoreboard(player);
-            // Update all other players' scoreboards to reflect new online count
-            plugin.getScoreboardManager().updateAllScoreboards();
-        }, 1L); // Small delay to ensure player is fully loaded
+    private void handlePlayerJoin(PlayerJoinEvent event) {
+        // Update every scoreboard, including the joining player's, to reflect the new online count.
+        // Renders are coalesced and happen on the scoreboard manager's next flush, after the player is fully loaded.
+        plugin.getScoreboardManager().updateAllScoreboards();
+
+        // Load the player's statistics into the cache
+        plugin.getStatsStore().loadPlayer(event.getPlayer());
     }
 
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
+        long start = System.nanoTime();
+        handlePlayerQuit(event);
+        quitTimer.record(System.nanoTime() - start);
+    }
+
+    private void handlePlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
 
+        // Stop spectating first so the player does not rejoin in spectator mode inside an arena
+        var spectated = plugin.getSessionManager().getSpectatedSession(player.getUniqueId());
+        if (spectated != null) {
+            spectated.removeSpectator(player);
+        }
+
+        // Drop the player's persistent sidebar
+        plugin.getScoreboardManager().removePlayerScoreboard(player);
+
+        // Drop the player from the matchmaking queue
+        plugin.getMatchmaker().dequeue(player.getUniqueId());
+
         // Remove player from any sessions they might be in
         var sessionManager = plugin.getSessionManager();
         var session = sessionManager.getPlayerSession(player.getUniqueId());
@@ -51,19 +93,32 @@ public class GameEventListener implements Listener {
         }
 
         // Update all remaining players' scoreboards to reflect new online count
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            plugin.getScoreboardManager().updateAllScoreboards();
-        }, 1L);
+        plugin.getScoreboardManager().updateAllScoreboards();
+
+        // Changes are already queued for writing, the cached row is no longer needed
+        plugin.getStatsStore().unloadPlayer(player.getUniqueId());
     }
 
     @EventHandler
     public void onPlayerDeath(PlayerDeathEvent event) {
+        long start = System.nanoTime();
+        handlePlayerDeath(event);
+        deathTimer.record(System.nanoTime() - start);
+    }
+
+    private void handlePlayerDeath(PlayerDeathEvent event) {
         Player player = event.getEntity();
         handlePlayerDeath(player, event);
     }
 
     @EventHandler
     public void onEntityDamage(EntityDamageByEntityEvent event) {
+        long start = System.nanoTime();
+        handleEntityDamage(event);
+        damageTimer.record(System.nanoTime() - start);
+    }
+
+    private void handleEntityDamage(EntityDamageByEntityEvent event) {
         // Check if both entities are players
         if (!(event.getEntity() instanceof Player)) return;
 
@@ -86,7 +141,15 @@ public class GameEventListener implements Listener {
         var sessionManager = plugin.getSessionManager();
         var session = sessionManager.getPlayerSession(victim.getUniqueId());
 
-        if (session == null || session.getState() != SessionState.ACTIVE) return;
+        if (session == null) return;
+        if (session.getState() == SessionState.STARTING) {
+            // Nobody fights until every player has landed
+            if (session.getPlayerTeam(attacker.getUniqueId()) != null) {
+                event.setCancelled(true);
+            }
+            return;
+        }
+        if (session.getState() != SessionState.ACTIVE) return;
         if (!session.isPlayerActive(attacker.getUniqueId())) return;
 
         // Check if they're on the same team (friendly fire prevention)
@@ -97,6 +160,12 @@ public class GameEventListener implements Listener {
             // Cancel friendly fire
             event.setCancelled(true);
             attacker.sendMessage(Component.text("§cYou cannot damage teammates!"));
+            return;
+        }
+
+        // Tag the victim so a later death, even from a fall or the boundary, credits the attacker
+        if (attacker != victim && !event.isCancelled()) {
+            session.recordHit(victim.getUniqueId(), attacker.getUniqueId(), event.getFinalDamage());
         }
     }
 
@@ -104,45 +173,67 @@ public class GameEventListener implements Listener {
         var sessionManager = plugin.getSessionManager();
         var session = sessionManager.getPlayerSession(player.getUniqueId());
 
-        if (session == null || session.getState() != SessionState.ACTIVE) {
-            return; // Player not in active session
+        if (session == null || !session.isPlayerActive(player.getUniqueId())
+                || (session.getState() != SessionState.ACTIVE && session.getState() != SessionState.STARTING)) {
+            return; // Player not in the arena of a starting or active session
         }
 
         // Cancel the death event to prevent respawn screen
         event.setCancelled(true);
 
-        // Remove player from session
-        session.removePlayer(player.getUniqueId());
+        session.eliminatePlayer(player, "§cYou have been eliminated and teleported to spawn.");
+    }
 
-        // Teleport player to global spawn and reset them
-        Location globalSpawn = plugin.getConfigManager().getGlobalSpawn();
-        if (globalSpawn != null) {
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                player.teleport(globalSpawn);
-                session.clearPlayerInventoryAndReset(player);
-                player.sendMessage(Component.text("§cYou have been eliminated and teleported to spawn."));
+    @EventHandler(ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        long start = System.nanoTime();
+        handlePlayerMove(event);
+        moveTimer.record(System.nanoTime() - start);
+    }
 
-                // Update scoreboards for all players in the session
-                updateSessionScoreboards(session);
+    private void handlePlayerMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
 
-                // Update the eliminated player's scoreboard
-                plugin.getScoreboardManager().updatePlayerScoreboard(player);
-            });
+        // Most move events only change rotation or sub-block position
+        if (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY() && from.getBlockZ() == to.getBlockZ()) {
+            return;
         }
 
-        // Check if session should end
-        if (session.shouldEnd()) {
-            session.endGameWithWinner();
+        Player player = event.getPlayer();
+        var sessionManager = plugin.getSessionManager();
+        if (sessionManager.isPlayerInActiveGame(player.getUniqueId())) {
+            plugin.getBoundaryEnforcer().check(player, to);
+            return;
+        }
+
+        // Spectators fly freely, but only inside the arena they are watching
+        Session spectated = sessionManager.getSpectatedSession(player.getUniqueId());
+        if (spectated != null && !isInsideArena(spectated, to)) {
+            event.setTo(from);
         }
     }
 
-    private void updateSessionScoreboards(Session session) {
-        // Update scoreboards for all players in the session
-        for (UUID playerId : session.getActivePlayers()) {
-            Player player = Bukkit.getPlayer(playerId);
-            if (player != null) {
-                plugin.getScoreboardManager().updatePlayerScoreboard(player);
-            }
+    @EventHandler(ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        long start = System.nanoTime();
+        handlePlayerTeleport(event);
+        teleportTimer.record(System.nanoTime() - start);
+    }
+
+    private void handlePlayerTeleport(PlayerTeleportEvent event) {
+        // Spectator mode lets players teleport to any player, keep them in their arena
+        if (event.getCause() != PlayerTeleportEvent.TeleportCause.SPECTATE) return;
+
+        Session spectated = plugin.getSessionManager().getSpectatedSession(event.getPlayer().getUniqueId());
+        if (spectated != null && !isInsideArena(spectated, event.getTo())) {
+            event.setCancelled(true);
+            event.getPlayer().sendMessage(Component.text("§cYou can only spectate inside the arena."));
         }
     }
+
+    private boolean isInsideArena(Session session, Location location) {
+        ArenaBounds bounds = session.getMap().getBounds();
+        return bounds == null || bounds.contains(location);
+    }
 }
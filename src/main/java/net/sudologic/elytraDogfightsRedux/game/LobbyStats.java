@@ -0,0 +1,5 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+// Lobby-wide numbers shown on every lobby sidebar, computed once per scoreboard flush
+public record LobbyStats(int mapCount, int onlineCount, int activeGames) {
+}
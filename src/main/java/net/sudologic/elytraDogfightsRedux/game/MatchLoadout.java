@@ -0,0 +1,144 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+import net.sudologic.elytraDogfightsRedux.config.Loadout;
+import net.sudologic.elytraDogfightsRedux.config.TeamConfiguration;
+import org.bukkit.Color;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.meta.LeatherArmorMeta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Equipment for one match. Team colours are picked once and every item is built once per match
+// (armor once per team), then handed out to each player.
+public class MatchLoadout {
+    private static final List<Color> TEAM_COLORS = Arrays.asList(
+        Color.RED, Color.BLUE, Color.GREEN, Color.YELLOW,
+        Color.PURPLE, Color.ORANGE, Color.LIME, Color.AQUA,
+        Color.FUCHSIA, Color.NAVY, Color.MAROON, Color.TEAL
+    );
+
+    private final Color[] teamColors;
+    private final ItemStack elytra;
+    private final ItemStack bow;
+    private final ItemStack sword;
+    private final ItemStack arrows;
+    private final ItemStack[][] teamArmor; // Team index -> helmet, leggings, boots
+
+    public MatchLoadout(Loadout loadout, TeamConfiguration teamConfig) {
+        this.teamColors = pickTeamColors(teamConfig);
+
+        this.elytra = createUnbreakable(Material.ELYTRA);
+
+        if (loadout.hasBow()) {
+            this.bow = new ItemStack(Material.BOW);
+            ItemMeta bowMeta = bow.getItemMeta();
+            bowMeta.addEnchant(Enchantment.INFINITY, 1, true);
+            if (loadout.getBowPower() > 0) {
+                bowMeta.addEnchant(Enchantment.POWER, loadout.getBowPower(), true);
+            }
+            bowMeta.setUnbreakable(true);
+            bow.setItemMeta(bowMeta);
+        } else {
+            this.bow = null;
+        }
+
+        if (loadout.getSword() != null) {
+            this.sword = new ItemStack(loadout.getSword());
+            ItemMeta swordMeta = sword.getItemMeta();
+            if (loadout.getSwordKnockback() > 0) {
+                swordMeta.addEnchant(Enchantment.KNOCKBACK, loadout.getSwordKnockback(), true);
+            }
+            swordMeta.setUnbreakable(true);
+            sword.setItemMeta(swordMeta);
+        } else {
+            this.sword = null;
+        }
+
+        this.arrows = loadout.getArrows() > 0 ? new ItemStack(Material.ARROW, loadout.getArrows()) : null;
+
+        this.teamArmor = new ItemStack[teamColors.length][];
+        if (loadout.hasArmor()) {
+            for (int team = 0; team < teamColors.length; team++) {
+                teamArmor[team] = new ItemStack[] {
+                    createLeatherArmor(Material.LEATHER_HELMET, teamColors[team]),
+                    createLeatherArmor(Material.LEATHER_LEGGINGS, teamColors[team]),
+                    createLeatherArmor(Material.LEATHER_BOOTS, teamColors[team])
+                };
+            }
+        }
+    }
+
+    public Color getTeamColor(int teamIndex) {
+        return teamColors[teamIndex % teamColors.length];
+    }
+
+    // The inventory stores its own copy of each stack, so the templates can be passed in directly
+    public void apply(Player player, int teamIndex) {
+        PlayerInventory inventory = player.getInventory();
+        inventory.clear();
+
+        // Equip armor
+        ItemStack[] armor = teamArmor[teamIndex % teamArmor.length];
+        if (armor != null) {
+            inventory.setHelmet(armor[0]);
+            inventory.setLeggings(armor[1]);
+            inventory.setBoots(armor[2]);
+        }
+        inventory.setChestplate(elytra);
+
+        // Fill the hotbar in the same order items used to be added
+        int slot = 0;
+        if (bow != null) {
+            inventory.setItem(slot++, bow);
+        }
+        if (sword != null) {
+            inventory.setItem(slot++, sword);
+        }
+        if (arrows != null) {
+            inventory.setItem(slot, arrows);
+        }
+    }
+
+    private Color[] pickTeamColors(TeamConfiguration teamConfig) {
+        // White for free-for-all
+        if (teamConfig == TeamConfiguration.FREE_FOR_ALL) {
+            return new Color[] { Color.WHITE };
+        }
+
+        // Random, distinct colours for teams
+        List<Color> availableColors = new ArrayList<>(TEAM_COLORS);
+        Collections.shuffle(availableColors);
+
+        int teamsNeeded = teamConfig == TeamConfiguration.THREE_TEAMS ? 3 : 2;
+        Color[] colors = new Color[teamsNeeded];
+        for (int i = 0; i < teamsNeeded; i++) {
+            colors[i] = availableColors.get(i);
+        }
+        return colors;
+    }
+
+    private ItemStack createUnbreakable(Material material) {
+        ItemStack item = new ItemStack(material);
+        ItemMeta meta = item.getItemMeta();
+        meta.setUnbreakable(true);
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    private ItemStack createLeatherArmor(Material material, Color color) {
+        ItemStack armor = new ItemStack(material);
+        LeatherArmorMeta meta = (LeatherArmorMeta) armor.getItemMeta();
+        meta.setColor(color);
+        meta.setUnbreakable(true);
+        armor.setItemMeta(meta);
+        return armor;
+    }
+}
@@ -0,0 +1,176 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import net.kyori.adventure.text.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+// Gets a match's players into the arena without a single-tick spike:
+// 1. load the chunks around every spawn point asynchronously,
+// 2. dispatch async teleports in batches, spending at most a fixed budget of main thread time per tick,
+// 3. activate the session once every teleport has completed.
+public class MatchStartPipeline {
+    private static final long TICK_BUDGET_NANOS = 2_000_000L; // 2ms of main thread time per tick
+    private static final int PRELOAD_RADIUS = 1; // Chunks around each spawn to load before teleporting
+
+    private final Session session;
+    private final Plugin plugin;
+    private final Deque<UUID> pending;
+    private final int playerCount;
+    private final List<Chunk> ticketedChunks;
+    private BukkitTask teleportTask;
+    private int inFlight;
+    private boolean cancelled;
+
+    // Phase timings
+    private long startNanos;
+    private long preloadNanos;
+    private long dispatchNanos;
+    private int dispatchTicks;
+    private long landingStartNanos;
+
+    public MatchStartPipeline(Session session, Plugin plugin, List<UUID> players) {
+        this.session = session;
+        this.plugin = plugin;
+        this.pending = new ArrayDeque<>(players);
+        this.playerCount = players.size();
+        this.ticketedChunks = new ArrayList<>();
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+
+        // Collect each distinct spawn point once, not once per player
+        Map<Integer, Location> spawns = new HashMap<>();
+        for (UUID playerId : pending) {
+            int spawnIndex = session.getSpawnIndex(playerId);
+            if (!spawns.containsKey(spawnIndex)) {
+                spawns.put(spawnIndex, session.getMap().getSpawnPoint(spawnIndex));
+            }
+        }
+
+        List<CompletableFuture<Chunk>> loads = new ArrayList<>();
+        Set<String> requested = new HashSet<>();
+        for (Location spawn : spawns.values()) {
+            if (spawn == null || !spawn.isWorldLoaded()) continue;
+            World world = spawn.getWorld();
+            int centerX = spawn.getBlockX() >> 4;
+            int centerZ = spawn.getBlockZ() >> 4;
+            for (int x = centerX - PRELOAD_RADIUS; x <= centerX + PRELOAD_RADIUS; x++) {
+                for (int z = centerZ - PRELOAD_RADIUS; z <= centerZ + PRELOAD_RADIUS; z++) {
+                    if (requested.add(world.getName() + ":" + x + ":" + z)) {
+                        loads.add(world.getChunkAtAsync(x, z));
+                    }
+                }
+            }
+        }
+
+        CompletableFuture.allOf(loads.toArray(new CompletableFuture[0]))
+            .whenComplete((ignored, error) -> runOnMainThread(() -> onChunksLoaded(loads)));
+    }
+
+    public void cancel() {
+        cancelled = true;
+        if (teleportTask != null) {
+            teleportTask.cancel();
+            teleportTask = null;
+        }
+        releaseChunks();
+    }
+
+    private void onChunksLoaded(List<CompletableFuture<Chunk>> loads) {
+        if (cancelled) return;
+        preloadNanos = System.nanoTime() - startNanos;
+
+        // Keep the spawn chunks loaded until everyone has landed
+        for (CompletableFuture<Chunk> load : loads) {
+            Chunk chunk = load.isCompletedExceptionally() ? null : load.getNow(null);
+            if (chunk != null && chunk.addPluginChunkTicket(plugin)) {
+                ticketedChunks.add(chunk);
+            }
+        }
+
+        landingStartNanos = System.nanoTime();
+        teleportTask = Bukkit.getScheduler().runTaskTimer(plugin, this::dispatchBatch, 0L, 1L);
+    }
+
+    private void dispatchBatch() {
+        long tickStart = System.nanoTime();
+        dispatchTicks++;
+
+        while (!pending.isEmpty() && System.nanoTime() - tickStart < TICK_BUDGET_NANOS) {
+            UUID playerId = pending.poll();
+            Player player = Bukkit.getPlayer(playerId);
+            if (player == null || !session.isPlayerQueued(playerId)) continue; // Left while the match was starting
+
+            Location spawnLocation = session.getSpawnLocation(playerId);
+            if (spawnLocation == null) {
+                player.sendMessage(Component.text("§cError: Spawn point not configured for this map."));
+                continue;
+            }
+
+            inFlight++;
+            player.teleportAsync(spawnLocation).whenComplete((success, error) ->
+                runOnMainThread(() -> onTeleportComplete(player, error == null && Boolean.TRUE.equals(success))));
+        }
+
+        dispatchNanos += System.nanoTime() - tickStart;
+
+        if (pending.isEmpty()) {
+            teleportTask.cancel();
+            teleportTask = null;
+            finishIfDone();
+        }
+    }
+
+    private void onTeleportComplete(Player player, boolean success) {
+        inFlight--;
+        if (cancelled) return;
+
+        if (success) {
+            session.onPlayerLanded(player);
+        } else {
+            player.sendMessage(Component.text("§cCould not teleport you into the arena."));
+            session.removePlayer(player.getUniqueId());
+        }
+        finishIfDone();
+    }
+
+    private void finishIfDone() {
+        if (cancelled || teleportTask != null || !pending.isEmpty() || inFlight > 0) return;
+
+        long now = System.nanoTime();
+        releaseChunks();
+
+        MatchStartTimings timings = new MatchStartTimings(session.getDisplayName(), playerCount, ticketedChunks.size(),
+            preloadNanos, dispatchNanos, dispatchTicks, now - landingStartNanos, now - startNanos);
+        ticketedChunks.clear();
+        if (session.getSessionManager() != null) {
+            session.getSessionManager().setLastMatchStartTimings(timings);
+        }
+        plugin.getLogger().info("Match start on " + timings.describe());
+
+        session.activate();
+    }
+
+    private void releaseChunks() {
+        for (Chunk chunk : ticketedChunks) {
+            chunk.removePluginChunkTicket(plugin);
+        }
+    }
+
+    private void runOnMainThread(Runnable runnable) {
+        if (Bukkit.isPrimaryThread()) {
+            runnable.run();
+        } else if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, runnable);
+        }
+    }
+}
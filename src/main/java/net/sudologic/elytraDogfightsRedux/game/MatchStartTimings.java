@@ -0,0 +1,11 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+// Per-phase timings of one match start, in nanoseconds
+public record MatchStartTimings(String mapName, int players, int chunks, long preloadNanos,
+                                long dispatchNanos, int dispatchTicks, long landingNanos, long totalNanos) {
+
+    public String describe() {
+        return String.format("%s (%d players, %d chunks): preload %.1fms, teleport dispatch %.2fms over %d ticks, landing %.1fms, total %.1fms",
+            mapName, players, chunks, preloadNanos / 1e6, dispatchNanos / 1e6, dispatchTicks, landingNanos / 1e6, totalNanos / 1e6);
+    }
+}
@@ -0,0 +1,194 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+import net.kyori.adventure.text.Component;
+import net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux;
+import net.sudologic.elytraDogfightsRedux.config.DogfightMap;
+import net.sudologic.elytraDogfightsRedux.config.TeamConfiguration;
+import net.sudologic.elytraDogfightsRedux.metrics.Histogram;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+
+// Global FIFO queue that forms matches on whatever map is free instead of making players pick one.
+// A periodic task only does work while at least two players are waiting, and forms as many matches
+// per run as the queue and the free maps allow.
+public class Matchmaker {
+    private static final long RUN_INTERVAL_TICKS = 10L;
+
+    private final ElytraDogfightsRedux plugin;
+    private final LinkedHashMap<UUID, Long> queue; // Player UUID -> time they joined, in arrival order
+    private final Histogram waitTimes; // How long matched players waited in the queue
+    private BukkitTask task;
+    private int mapCursor; // Round-robin start so ties do not always go to the first map
+
+    public Matchmaker(ElytraDogfightsRedux plugin) {
+        this.plugin = plugin;
+        this.queue = new LinkedHashMap<>();
+        this.waitTimes = plugin.getMetrics().histogram("edf_matchmaking_wait_seconds", "Time players spent in the matchmaking queue before a match was found", Histogram.MILLIS);
+    }
+
+    public void start() {
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::formMatches, RUN_INTERVAL_TICKS, RUN_INTERVAL_TICKS);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    public boolean enqueue(UUID playerId) {
+        if (queue.containsKey(playerId)) return false;
+        queue.put(playerId, System.currentTimeMillis());
+        return true;
+    }
+
+    public boolean dequeue(UUID playerId) {
+        return queue.remove(playerId) != null;
+    }
+
+    public boolean isQueued(UUID playerId) {
+        return queue.containsKey(playerId);
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public Histogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    private void formMatches() {
+        dropUnmatchable();
+        while (queue.size() >= 2) {
+            DogfightMap map = pickMap(Math.min(queue.size(), plugin.getConfigManager().getMatchmakingMaxPlayers()));
+            if (map == null) return; // No free map fits, try again next run
+
+            int matchSize = usablePlayers(map.getTeamConfig(), Math.min(queue.size(), plugin.getConfigManager().getMatchmakingMaxPlayers()));
+            if (pullIntoMatch(map, matchSize) == 0) return; // The map turned the players away, try again next run
+        }
+    }
+
+    // Drops players that went offline or joined a match by other means, so only players that can
+    // actually be pulled count towards a match's size
+    private void dropUnmatchable() {
+        var sessionManager = plugin.getSessionManager();
+        Iterator<UUID> iterator = queue.keySet().iterator();
+        while (iterator.hasNext()) {
+            UUID playerId = iterator.next();
+            Player player = Bukkit.getPlayer(playerId);
+            if (player == null) {
+                iterator.remove(); // Went offline
+            } else if (sessionManager.isPlayerInMatch(playerId)) {
+                iterator.remove();
+                player.sendMessage(Component.text("§eYou were removed from the matchmaking queue because you are already in a match."));
+            }
+        }
+    }
+
+    // The free map that can use the most of the waiting players
+    private DogfightMap pickMap(int available) {
+        List<DogfightMap> maps = plugin.getConfigManager().getMaps();
+        if (maps.isEmpty()) return null;
+
+        DogfightMap best = null;
+        int bestUsable = 0;
+        for (int i = 0; i < maps.size(); i++) {
+            DogfightMap map = maps.get((mapCursor + i) % maps.size());
+            Session session = plugin.getSessionManager().getSession(map.getName());
+            if (session == null || session.getState() != SessionState.WAITING || session.getQueuedPlayerCount() > 0) {
+                continue; // Busy, or players picked this map by hand
+            }
+            int usable = usablePlayers(map.getTeamConfig(), available);
+            if (usable >= session.getRequiredPlayers() && usable > bestUsable) {
+                best = map;
+                bestUsable = usable;
+            }
+        }
+        mapCursor = (mapCursor + 1) % maps.size();
+        return best;
+    }
+
+    // Players a team configuration can take from the available count, keeping teams even
+    private int usablePlayers(TeamConfiguration teamConfig, int available) {
+        switch (teamConfig) {
+            case TWO_TEAMS:
+                return available - available % 2;
+            case THREE_TEAMS:
+                return available - available % 3;
+            default:
+                return available;
+        }
+    }
+
+    // Returns how many players joined the map's session. Players the session turned away keep their
+    // place at the head of the queue, unless they can no longer be matched at all. If too few players,
+    // or an uneven count for the map's teams, could be pulled, nobody joins and everyone keeps their place.
+    private int pullIntoMatch(DogfightMap map, int matchSize) {
+        long now = System.currentTimeMillis();
+        var sessionManager = plugin.getSessionManager();
+        Session session = sessionManager.getSession(map.getName());
+        if (session == null) return 0;
+        int requiredPlayers = session.getRequiredPlayers();
+
+        Iterator<Map.Entry<UUID, Long>> iterator = queue.entrySet().iterator();
+        List<Map.Entry<UUID, Long>> taken = new ArrayList<>(); // Everyone leaving the queue, in queue order
+        List<Map.Entry<UUID, Long>> pulled = new ArrayList<>();
+
+        while (pulled.size() < matchSize && iterator.hasNext()) {
+            Map.Entry<UUID, Long> entry = iterator.next();
+            iterator.remove();
+
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if (player == null) {
+                continue; // Went offline
+            }
+            if (sessionManager.isPlayerInMatch(entry.getKey())) {
+                player.sendMessage(Component.text("§eYou were removed from the matchmaking queue because you are already in a match."));
+                continue;
+            }
+            taken.add(entry);
+            if (sessionManager.queuePlayer(entry.getKey(), map.getName())) {
+                pulled.add(entry);
+            }
+        }
+
+        int count = pulled.size();
+        if (count < requiredPlayers || usablePlayers(map.getTeamConfig(), count) != count) {
+            // A match this size would never start, take the players back out of the session
+            for (Map.Entry<UUID, Long> entry : pulled) {
+                sessionManager.removePlayerFromAllSessions(entry.getKey());
+            }
+            pulled.clear();
+        }
+
+        List<Map.Entry<UUID, Long>> turnedAway = new ArrayList<>();
+        for (Map.Entry<UUID, Long> entry : taken) {
+            if (!pulled.contains(entry)) {
+                turnedAway.add(entry);
+            }
+        }
+        if (!turnedAway.isEmpty()) {
+            // Back in front of everyone who joined after them, with their original join times
+            LinkedHashMap<UUID, Long> rest = new LinkedHashMap<>(queue);
+            queue.clear();
+            for (Map.Entry<UUID, Long> entry : turnedAway) {
+                queue.put(entry.getKey(), entry.getValue());
+            }
+            queue.putAll(rest);
+        }
+
+        for (Map.Entry<UUID, Long> entry : pulled) {
+            waitTimes.record(now - entry.getValue());
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if (player != null) {
+                player.sendMessage(Component.text("§aMatch found on map '" + map.getName() + "'!"));
+            }
+        }
+        return pulled.size();
+    }
+}
@@ -0,0 +1,97 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+import net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux;
+import net.sudologic.elytraDogfightsRedux.config.DebouncedYamlWriter;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.util.*;
+
+// Elo rating per player, kept in ratings.yml. Every pair of players on different sides of a match
+// counts as one game: a winner beats a loser, two winners or two losers draw.
+public class PlayerRatings {
+    public static final double DEFAULT_RATING = 1000.0;
+    private static final double K_FACTOR = 32.0;
+    private static final long SAVE_DEBOUNCE_TICKS = 100L;
+
+    private final Map<UUID, Double> ratings;
+    private final DebouncedYamlWriter writer;
+
+    public PlayerRatings(ElytraDogfightsRedux plugin) {
+        this.ratings = new HashMap<>();
+        File file = new File(plugin.getDataFolder(), "ratings.yml");
+        if (file.exists()) {
+            ConfigurationSection section = YamlConfiguration.loadConfiguration(file).getConfigurationSection("ratings");
+            if (section != null) {
+                for (String key : section.getKeys(false)) {
+                    try {
+                        ratings.put(UUID.fromString(key), section.getDouble(key, DEFAULT_RATING));
+                    } catch (IllegalArgumentException e) {
+                        plugin.getLogger().warning("Skipping invalid player id in ratings.yml: " + key);
+                    }
+                }
+            }
+        }
+        this.writer = new DebouncedYamlWriter(plugin, plugin.getMetrics(), file, this::render, SAVE_DEBOUNCE_TICKS);
+    }
+
+    public double getRating(UUID playerId) {
+        return ratings.getOrDefault(playerId, DEFAULT_RATING);
+    }
+
+    public int getRatedPlayerCount() {
+        return ratings.size();
+    }
+
+    // Updates every participant of a finished match. Sides map each player to their team, or to a
+    // side of their own in free-for-all; players on the winning side beat everyone else.
+    public void recordMatch(Map<UUID, Integer> sides, Set<UUID> winners) {
+        if (sides.size() < 2) return;
+
+        int count = sides.size();
+        UUID[] players = new UUID[count];
+        int[] side = new int[count];
+        boolean[] won = new boolean[count];
+        double[] before = new double[count];
+        int index = 0;
+        for (Map.Entry<UUID, Integer> entry : sides.entrySet()) {
+            players[index] = entry.getKey();
+            side[index] = entry.getValue();
+            won[index] = winners.contains(entry.getKey());
+            before[index] = getRating(entry.getKey());
+            index++;
+        }
+
+        for (int i = 0; i < count; i++) {
+            double delta = 0;
+            int opponents = 0;
+            for (int j = 0; j < count; j++) {
+                if (side[i] == side[j]) continue; // Self and teammates
+
+                double expected = 1.0 / (1.0 + Math.pow(10, (before[j] - before[i]) / 400.0));
+                double actual = won[i] == won[j] ? 0.5 : won[i] ? 1.0 : 0.0;
+                delta += actual - expected;
+                opponents++;
+            }
+            if (opponents > 0) {
+                // Averaged so a 30 player lobby does not move ratings 29 times as far as a duel
+                ratings.put(players[i], before[i] + K_FACTOR * delta / opponents);
+            }
+        }
+        writer.markDirty();
+    }
+
+    // Writes pending rating changes immediately, used on shutdown
+    public void flush() {
+        writer.flush();
+    }
+
+    private String render() {
+        YamlConfiguration yaml = new YamlConfiguration();
+        for (Map.Entry<UUID, Double> entry : ratings.entrySet()) {
+            yaml.set("ratings." + entry.getKey(), Math.round(entry.getValue() * 10.0) / 10.0);
+        }
+        return yaml.saveToString();
+    }
+}
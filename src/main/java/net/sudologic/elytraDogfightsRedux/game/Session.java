@@ -1,45 +1,76 @@
 package net.sudologic.elytraDogfightsRedux.game;
 
+import net.sudologic.elytraDogfightsRedux.arena.ArenaReset;
+import net.sudologic.elytraDogfightsRedux.arena.ArenaTemplate;
+import net.sudologic.elytraDogfightsRedux.config.ArenaBounds;
 import net.sudologic.elytraDogfightsRedux.config.DogfightMap;
+import net.sudologic.elytraDogfightsRedux.config.MatchMode;
+import net.sudologic.elytraDogfightsRedux.config.MatchRules;
 import net.sudologic.elytraDogfightsRedux.config.TeamConfiguration;
+import net.sudologic.elytraDogfightsRedux.replay.MatchRecorder;
+import net.sudologic.elytraDogfightsRedux.replay.ReplayStore;
+import net.sudologic.elytraDogfightsRedux.stats.StatsStore;
 import org.bukkit.entity.Player;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
+import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
 import org.bukkit.FireworkEffect;
 import org.bukkit.entity.Firework;
 import org.bukkit.inventory.meta.FireworkMeta;
 import org.bukkit.Color;
-import org.bukkit.Material;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.inventory.meta.LeatherArmorMeta;
-import org.bukkit.enchantments.Enchantment;
 import org.bukkit.GameMode;
 
 import java.util.*;
 
 public class Session {
-    private final DogfightMap map;
+    private final DogfightMap map; // This instance's copy of the map
+    private final int instanceIndex;
+    private ArenaPool pool;
     private final Set<UUID> queuedPlayers;
     private final Set<UUID> activePlayers;
     private final Set<UUID> originalPlayers; // Immutable list of players who started the game
+    private final Set<UUID> spectators; // Watching the running match, never counted by shouldEnd or the win logic
+    private Audience audience; // Everyone who receives match broadcasts, rebuilt only after membership changes
     private final Map<UUID, Integer> playerTeams; // Player UUID -> Team number (0, 1, 2)
+    private final Map<UUID, Integer> matchSides; // Side each original player started on, kept after elimination for rating updates
     private SessionState state;
     private final int requiredPlayers;
     private BukkitTask countdownTask;
+    private MatchLoadout matchLoadout; // Built once per match at startGame
+    private MatchStartPipeline startPipeline; // Teleports players while the session is STARTING
+    private long activeSinceMillis; // When the match became ACTIVE, for time alive statistics
+    private CombatTracker combatTracker; // Hits between this match's players, for kill credit
+    private MatchRecorder recorder; // Event log of the running match, null if replays are unavailable
+    private final Map<UUID, Integer> livesLeft; // Lives mode only, including the current life
+    private final Map<UUID, Long> lifeStartMillis; // When each active player last spawned
+    private int[] sideScores; // Kills per side, indexed like matchSides
+    private boolean decidedByScore; // The score or time limit ended the match, not elimination
+    private BukkitTask matchTask; // Once per second while ACTIVE if the match has a time limit
+    private ArenaReset arenaReset; // Restores the arena's blocks while RESETTING
+    private boolean closed; // Its map was removed or replaced, see close()
     private int countdownDuration = 10; // Default
     private SessionManager sessionManager;
     private Location globalSpawn;
 
     public Session(DogfightMap map) {
+        this(map, 0);
+    }
+
+    public Session(DogfightMap map, int instanceIndex) {
         this.map = map;
+        this.instanceIndex = instanceIndex;
         this.queuedPlayers = new HashSet<>();
         this.activePlayers = new HashSet<>();
         this.originalPlayers = new HashSet<>();
+        this.spectators = new HashSet<>();
         this.playerTeams = new HashMap<>();
+        this.matchSides = new HashMap<>();
+        this.livesLeft = new HashMap<>();
+        this.lifeStartMillis = new HashMap<>();
         this.state = SessionState.WAITING;
         this.requiredPlayers = calculateRequiredPlayers(map.getTeamConfig());
     }
@@ -52,6 +83,14 @@ public class Session {
         this.sessionManager = sessionManager;
     }
 
+    void setPool(ArenaPool pool) {
+        this.pool = pool;
+    }
+
+    ArenaPool getPool() {
+        return pool;
+    }
+
     public void setGlobalSpawn(Location globalSpawn) {
         this.globalSpawn = globalSpawn;
     }
@@ -69,10 +108,13 @@ public class Session {
     }
 
     public boolean addPlayer(UUID playerId) {
-        if (state == SessionState.ACTIVE) {
-            return false; // Cannot join active games
+        if (isInUse() || closed) {
+            return false; // Cannot join active games, an arena still being reset or a removed map
         }
         boolean added = queuedPlayers.add(playerId);
+        if (added && sessionManager != null) {
+            sessionManager.trackQueuedPlayer(playerId, this);
+        }
 
         // Check if we can start countdown
         if (added && state == SessionState.WAITING && queuedPlayers.size() >= requiredPlayers) {
@@ -90,6 +132,10 @@ public class Session {
     public boolean removePlayer(UUID playerId) {
         boolean removed = queuedPlayers.remove(playerId) || activePlayers.remove(playerId);
         playerTeams.remove(playerId);
+        if (removed && sessionManager != null) {
+            sessionManager.untrackPlayer(playerId, this);
+        }
+        audience = null;
 
         // If we're in countdown and drop below required players, cancel countdown
         if (state == SessionState.COUNTDOWN && queuedPlayers.size() < requiredPlayers) {
@@ -105,7 +151,7 @@ public class Session {
     private void startCountdown() {
         if (state != SessionState.WAITING) return;
 
-        state = SessionState.COUNTDOWN;
+        setState(SessionState.COUNTDOWN);
 
         // Announce to all non-active players
         announceCountdownStart(countdownDuration);
@@ -122,16 +168,24 @@ public class Session {
         }.runTaskLater(getPlugin(), countdownDuration * 20L);
     }
 
+    private void setState(SessionState newState) {
+        SessionState oldState = state;
+        state = newState;
+        if (sessionManager != null && oldState != newState) {
+            sessionManager.onSessionStateChanged(this, oldState, newState);
+        }
+    }
+
     private void cancelCountdown() {
         if (countdownTask != null) {
             countdownTask.cancel();
             countdownTask = null;
         }
-        state = SessionState.WAITING;
+        setState(SessionState.WAITING);
     }
 
     private void announceCountdownStart(int duration) {
-        Component message = Component.text("§6A match on map " + map.getName() + " will start in " + duration + " seconds");
+        Component message = Component.text("§6A match on map " + getDisplayName() + " will start in " + duration + " seconds");
 
         if (sessionManager != null) {
             sessionManager.announceToNonActivePlayers(message);
@@ -144,62 +198,97 @@ public class Session {
     public void startGame() {
         if (state != SessionState.COUNTDOWN) return;
 
-        // Assign teams and teleport players
-        assignTeamsAndTeleport();
+        // Build this match's equipment once, team colours included
+        matchLoadout = new MatchLoadout(map.getLoadout(), map.getTeamConfig());
+
+        // Assign teams, players are teleported by the start pipeline
+        assignTeams();
 
         // Store original players who made it to the game start (after team assignment)
         originalPlayers.addAll(queuedPlayers);
+        audience = null;
+        int freeForAllSide = 0;
+        for (UUID playerId : originalPlayers) {
+            Integer team = playerTeams.get(playerId);
+            // Free-for-all players are each their own side, after the team numbers
+            matchSides.put(playerId, team != null ? team : 3 + freeForAllSide++);
+        }
+        sideScores = new int[3 + freeForAllSide];
+
+        // Players stay queued until the whole batch has landed in the arena
+        setState(SessionState.STARTING);
+        startPipeline = new MatchStartPipeline(this, getPlugin(), new ArrayList<>(queuedPlayers));
+        startPipeline.start();
+    }
+
+    // Called by the start pipeline once every player has been teleported
+    void activate() {
+        if (state != SessionState.STARTING) return;
+        startPipeline = null;
 
         // Move remaining players to active
         activePlayers.addAll(queuedPlayers);
         queuedPlayers.clear();
+        if (sessionManager != null) {
+            for (UUID playerId : activePlayers) {
+                sessionManager.trackActivePlayer(playerId, this);
+            }
+        }
+
+        activeSinceMillis = System.currentTimeMillis();
+        startCombatTracking();
+        startRecording();
+        MatchRules rules = map.getRules();
+        for (UUID playerId : activePlayers) {
+            lifeStartMillis.put(playerId, activeSinceMillis);
+            if (rules.getMode() == MatchMode.LIVES) {
+                livesLeft.put(playerId, rules.getLives());
+            }
+        }
+        if (rules.getTimeLimitSeconds() > 0) {
+            matchTask = Bukkit.getScheduler().runTaskTimer(getPlugin(), this::tickMatch, 20L, 20L);
+        }
+        setState(SessionState.ACTIVE);
+        updateSessionScoreboards();
 
-        state = SessionState.ACTIVE;
+        // Everyone may have left while the match was starting
+        if (shouldEnd()) {
+            endGameWithWinner();
+        }
     }
 
-    private void assignTeamsAndTeleport() {
+    private void assignTeams() {
         List<UUID> playersToAssign = new ArrayList<>(queuedPlayers);
         List<UUID> playersToRemove = new ArrayList<>();
+        Collections.shuffle(playersToAssign); // Decides who sits out when teams cannot be even
 
+        int teamCount;
         switch (map.getTeamConfig()) {
-            case FREE_FOR_ALL:
-                teleportPlayersToSpawn(playersToAssign, 0);
-                break;
-
             case TWO_TEAMS:
-                int twoTeamPlayers = (playersToAssign.size() / 2) * 2;
-                if (playersToAssign.size() > twoTeamPlayers) {
-                    playersToRemove.addAll(playersToAssign.subList(twoTeamPlayers, playersToAssign.size()));
-                }
-
-                Collections.shuffle(playersToAssign);
-                for (int i = 0; i < twoTeamPlayers; i++) {
-                    UUID playerId = playersToAssign.get(i);
-                    int team = i % 2;
-                    playerTeams.put(playerId, team);
-                    teleportPlayerToTeamSpawn(playerId, team);
-                }
+                teamCount = 2;
                 break;
-
             case THREE_TEAMS:
-                int threeTeamPlayers = (playersToAssign.size() / 3) * 3;
-                if (playersToAssign.size() > threeTeamPlayers) {
-                    playersToRemove.addAll(playersToAssign.subList(threeTeamPlayers, playersToAssign.size()));
-                }
-
-                Collections.shuffle(playersToAssign);
-                for (int i = 0; i < threeTeamPlayers; i++) {
-                    UUID playerId = playersToAssign.get(i);
-                    int team = i % 3;
-                    playerTeams.put(playerId, team);
-                    teleportPlayerToTeamSpawn(playerId, team);
-                }
+                teamCount = 3;
+                break;
+            default:
+                teamCount = 0; // Free-for-all players have no team
                 break;
         }
 
+        if (teamCount > 0) {
+            int assignedPlayers = (playersToAssign.size() / teamCount) * teamCount;
+            playersToRemove.addAll(playersToAssign.subList(assignedPlayers, playersToAssign.size()));
+            if (assignedPlayers > 0) {
+                balanceTeams(playersToAssign.subList(0, assignedPlayers), teamCount);
+            }
+        }
+
         // Remove excess players from queue
         for (UUID playerId : playersToRemove) {
             queuedPlayers.remove(playerId);
+            if (sessionManager != null) {
+                sessionManager.untrackPlayer(playerId, this);
+            }
             Player player = Bukkit.getPlayer(playerId);
             if (player != null) {
                 player.sendMessage(Component.text("§cYou were removed from the queue due to team balance requirements."));
@@ -207,33 +296,87 @@ public class Session {
         }
     }
 
-    private void teleportPlayersToSpawn(List<UUID> players, int spawnIndex) {
-        for (UUID playerId : players) {
-            teleportPlayerToTeamSpawn(playerId, spawnIndex);
+    private void startCombatTracking() {
+        List<UUID> participants = new ArrayList<>(activePlayers);
+        Map<UUID, String> names = new HashMap<>();
+        for (UUID playerId : participants) {
+            Player player = Bukkit.getPlayer(playerId);
+            names.put(playerId, player != null ? player.getName() : "Unknown");
         }
+        int tagSeconds = sessionManager != null ? sessionManager.getCombatTagSeconds() : 10;
+        combatTracker = new CombatTracker(participants, names, tagSeconds * 20);
     }
 
-    private void teleportPlayerToTeamSpawn(UUID playerId, int teamIndex) {
-        Player player = Bukkit.getPlayer(playerId);
-        if (player == null) return;
+    private void startRecording() {
+        ReplayStore replays = getReplayStore();
+        if (replays == null) return;
 
-        Location spawnLocation = map.getSpawnPoint(teamIndex);
-        if (spawnLocation != null) {
-            player.teleport(spawnLocation);
+        recorder = new MatchRecorder(getPlugin(), replays, map.getName(), new ArrayList<>(activePlayers), matchSides, activePlayers);
+        recorder.start();
+    }
 
-            // Setup player inventory and equipment
-            setupPlayerInventory(player, teamIndex);
+    // Called for every damaging hit between two players of this match that was not blocked
+    void recordHit(UUID victim, UUID attacker, double damage) {
+        if (combatTracker != null) {
+            combatTracker.recordHit(victim, attacker);
+        }
+        if (recorder != null) {
+            recorder.recordDamage(victim, attacker, damage);
+        }
+    }
 
-            String teamMessage = getTeamMessage(teamIndex);
-            player.sendMessage(Component.text("§a" + teamMessage));
-        } else {
-            player.sendMessage(Component.text("§cError: Spawn point not configured for this map."));
+    // Splits the players into teams with rating totals as close as possible
+    private void balanceTeams(List<UUID> players, int teamCount) {
+        PlayerRatings ratings = getRatings();
+        double[] playerRatings = new double[players.size()];
+        for (int i = 0; i < playerRatings.length; i++) {
+            playerRatings[i] = ratings != null ? ratings.getRating(players.get(i)) : PlayerRatings.DEFAULT_RATING;
+        }
+
+        long start = System.nanoTime();
+        int[] teams = TeamBalancer.partition(playerRatings, teamCount);
+        long elapsed = System.nanoTime() - start;
+
+        for (int i = 0; i < teams.length; i++) {
+            playerTeams.put(players.get(i), teams[i]);
+        }
+        if (sessionManager != null) {
+            sessionManager.setLastTeamBalance(new TeamBalance(getDisplayName(), players.size(), teamCount,
+                TeamBalancer.spread(playerRatings, teams, teamCount), elapsed));
+        }
+    }
+
+    int getSpawnIndex(UUID playerId) {
+        Integer team = playerTeams.get(playerId);
+        return team != null ? team : 0;
+    }
+
+    Location getSpawnLocation(UUID playerId) {
+        return map.getSpawnPoint(getSpawnIndex(playerId));
+    }
+
+    // Called by the start pipeline after a player's teleport into the arena completed
+    void onPlayerLanded(Player player) {
+        if (!queuedPlayers.contains(player.getUniqueId())) return;
+
+        int teamIndex = getSpawnIndex(player.getUniqueId());
+
+        // Setup player inventory and equipment
+        setupPlayerInventory(player, teamIndex);
+
+        String teamMessage = getTeamMessage(teamIndex);
+        player.sendMessage(Component.text("§a" + teamMessage));
+
+        // In the arena with the loadout now, so the player counts as in the match from here on
+        queuedPlayers.remove(player.getUniqueId());
+        activePlayers.add(player.getUniqueId());
+        if (sessionManager != null) {
+            sessionManager.trackActivePlayer(player.getUniqueId(), this);
         }
     }
 
     private void setupPlayerInventory(Player player, int teamIndex) {
-        // Clear inventory and set game mode
-        player.getInventory().clear();
+        // Set game mode
         player.setGameMode(GameMode.SURVIVAL);
 
         // Set health and food levels
@@ -245,91 +388,13 @@ public class Session {
         player.setGliding(false);
         player.setSwimming(false);
 
-        // Get team color for armor dyeing
-        Color teamColor = getTeamColor(teamIndex);
-
-        // Create leather armor with team color
-        ItemStack helmet = createLeatherArmor(Material.LEATHER_HELMET, teamColor);
-        ItemStack boots = createLeatherArmor(Material.LEATHER_BOOTS, teamColor);
-        ItemStack leggings = createLeatherArmor(Material.LEATHER_LEGGINGS, teamColor);
-
-        // Create elytra
-        ItemStack elytra = new ItemStack(Material.ELYTRA);
-        ItemMeta elytraMeta = elytra.getItemMeta();
-        elytraMeta.setUnbreakable(true);
-        elytra.setItemMeta(elytraMeta);
-
-        // Create bow with infinity enchantment
-        ItemStack bow = new ItemStack(Material.BOW);
-        ItemMeta bowMeta = bow.getItemMeta();
-        bowMeta.addEnchant(Enchantment.INFINITY, 1, true);
-        bowMeta.setUnbreakable(true);
-        bow.setItemMeta(bowMeta);
-
-        // Create single arrow
-        ItemStack arrow = new ItemStack(Material.ARROW, 1);
-
-        // Create wooden sword with knockback
-        ItemStack sword = new ItemStack(Material.WOODEN_SWORD);
-        ItemMeta swordMeta = sword.getItemMeta();
-        swordMeta.addEnchant(Enchantment.KNOCKBACK, 1, true);
-        swordMeta.setUnbreakable(true);
-        sword.setItemMeta(swordMeta);
-
-        // Equip armor
-        player.getInventory().setHelmet(helmet);
-        player.getInventory().setChestplate(elytra);
-        player.getInventory().setLeggings(leggings);
-        player.getInventory().setBoots(boots);
-
-        // Add items to inventory
-        player.getInventory().addItem(bow);
-        player.getInventory().addItem(sword);
-        player.getInventory().addItem(arrow);
+        // Hand out the match's pre-built equipment
+        matchLoadout.apply(player, teamIndex);
 
         // Update inventory
         player.updateInventory();
     }
 
-    private ItemStack createLeatherArmor(Material material, Color color) {
-        ItemStack armor = new ItemStack(material);
-        LeatherArmorMeta meta = (LeatherArmorMeta) armor.getItemMeta();
-        meta.setColor(color);
-        meta.setUnbreakable(true);
-        armor.setItemMeta(meta);
-        return armor;
-    }
-
-    private Color getTeamColor(int teamIndex) {
-        // Return white for free-for-all
-        if (map.getTeamConfig() == TeamConfiguration.FREE_FOR_ALL) {
-            return Color.WHITE;
-        }
-
-        // Assign random colors for teams
-        Color[] teamColors = getRandomTeamColors();
-        return teamColors[teamIndex % teamColors.length];
-    }
-
-    private Color[] getRandomTeamColors() {
-        List<Color> availableColors = Arrays.asList(
-            Color.RED, Color.BLUE, Color.GREEN, Color.YELLOW,
-            Color.PURPLE, Color.ORANGE, Color.LIME, Color.AQUA,
-            Color.FUCHSIA, Color.NAVY, Color.MAROON, Color.TEAL
-        );
-
-        Collections.shuffle(availableColors);
-
-        int teamsNeeded = map.getTeamConfig() == TeamConfiguration.THREE_TEAMS ? 3 : 2;
-        Color[] teamColors = new Color[teamsNeeded];
-
-        for (int i = 0; i < teamsNeeded; i++) {
-            teamColors[i] = availableColors.get(i);
-        }
-
-        return teamColors;
-    }
-
     public void clearPlayerInventoryAndReset(Player player) {
         // Clear inventory
         player.getInventory().clear();
@@ -357,6 +422,284 @@ public class Session {
         }
     }
 
+    // A player of the running match died or left the arena. Credits the kill, then respawns them if the
+    // match rules allow it, otherwise takes them out of the match and sends them back to spawn.
+    public void eliminatePlayer(Player player, String message) {
+        UUID playerId = player.getUniqueId();
+        if (state == SessionState.STARTING && activePlayers.contains(playerId)) {
+            // Landed before the match began, nothing to credit yet
+            returnToSpawnBeforeStart(player);
+            return;
+        }
+        if (state != SessionState.ACTIVE || !activePlayers.contains(playerId)) return;
+
+        long now = System.currentTimeMillis();
+        CombatTracker.Attribution attribution = combatTracker != null ? combatTracker.resolveDeath(playerId) : null;
+        StatsStore stats = getStatsStore();
+        if (stats != null) {
+            stats.recordDeath(player, now - lifeStartMillis.getOrDefault(playerId, activeSinceMillis));
+            if (attribution != null) {
+                creditAttackers(stats, attribution);
+            }
+        }
+        broadcastKillFeed(player.getName(), attribution);
+        if (recorder != null && attribution != null) {
+            recorder.recordKill(playerId, attribution.killer());
+        }
+
+        if (attribution != null && addScore(attribution.killer())) {
+            // Score limit reached, this death decided the match
+            decidedByScore = true;
+            endGameWithWinner();
+            return;
+        }
+
+        MatchRules rules = map.getRules();
+        int lives = livesLeft.getOrDefault(playerId, 1);
+        if (rules.allowsRespawn(lives)) {
+            livesLeft.put(playerId, lives - 1);
+            respawnPlayer(player);
+            if (recorder != null) {
+                recorder.recordRespawn(playerId);
+            }
+            return;
+        }
+
+        // Remove player from session
+        if (recorder != null) {
+            recorder.recordElimination(playerId);
+        }
+        removePlayer(playerId);
+        lifeStartMillis.remove(playerId);
+
+        if (sessionManager != null && sessionManager.isSpectateOnElimination() && !shouldEnd()) {
+            // Watch the rest of the match from inside the arena
+            player.sendMessage(Component.text(message));
+            addSpectator(player);
+        } else {
+            sendToGlobalSpawn(player, message);
+        }
+
+        // Check if session should end
+        if (shouldEnd()) {
+            endGameWithWinner();
+        }
+    }
+
+    // Teleports the player to the global spawn and resets them, deferred so it is safe from inside event handlers
+    private void sendToGlobalSpawn(Player player, String message) {
+        Location spawn = getGlobalSpawn();
+        if (spawn == null) return;
+
+        Bukkit.getScheduler().runTask(getPlugin(), () -> {
+            player.teleport(spawn);
+            clearPlayerInventoryAndReset(player);
+            if (message != null) {
+                player.sendMessage(Component.text(message));
+            }
+
+            // Update scoreboards for all players in the session
+            updateSessionScoreboards();
+
+            // Update the player's own scoreboard
+            CustomScoreboard scoreboardManager = getScoreboardManager();
+            if (scoreboardManager != null) {
+                scoreboardManager.updatePlayerScoreboard(player);
+            }
+        });
+    }
+
+    // Lets an eliminated player or a lobby player watch this match from inside the arena
+    public boolean addSpectator(Player player) {
+        UUID playerId = player.getUniqueId();
+        if (state != SessionState.ACTIVE || isPlayerInSession(playerId) || !spectators.add(playerId)) return false;
+
+        if (sessionManager != null) {
+            sessionManager.trackSpectator(playerId, this);
+        }
+        audience = null;
+
+        Location viewpoint = getSpectatorLocation();
+        Bukkit.getScheduler().runTask(getPlugin(), () -> {
+            if (!spectators.contains(playerId)) return;
+            clearPlayerInventoryAndReset(player);
+            player.setGameMode(GameMode.SPECTATOR);
+            if (viewpoint != null) {
+                player.teleport(viewpoint);
+            }
+            player.sendMessage(Component.text("§7You are spectating " + getDisplayName() + ". Use /elytradogfights leave to stop."));
+
+            CustomScoreboard scoreboardManager = getScoreboardManager();
+            if (scoreboardManager != null) {
+                scoreboardManager.updatePlayerScoreboard(player);
+            }
+        });
+        return true;
+    }
+
+    // Stops watching and sends the player back to spawn right away, also used while they quit
+    public boolean removeSpectator(Player player) {
+        if (!releaseSpectator(player.getUniqueId())) return false;
+        player.setGameMode(GameMode.SURVIVAL);
+        Location spawn = getGlobalSpawn();
+        if (spawn != null) {
+            player.teleport(spawn);
+        }
+        clearPlayerInventoryAndReset(player);
+
+        CustomScoreboard scoreboardManager = getScoreboardManager();
+        if (scoreboardManager != null) {
+            scoreboardManager.updatePlayerScoreboard(player);
+        }
+        return true;
+    }
+
+    private boolean releaseSpectator(UUID playerId) {
+        if (!spectators.remove(playerId)) return false;
+        if (sessionManager != null) {
+            sessionManager.untrackSpectator(playerId, this);
+        }
+        audience = null;
+        return true;
+    }
+
+    // Middle of the arena, or the first spawn point if the corners are not set
+    private Location getSpectatorLocation() {
+        ArenaBounds bounds = map.getBounds();
+        World world = bounds != null ? Bukkit.getWorld(bounds.getWorldName()) : null;
+        if (world != null) {
+            return new Location(world, (bounds.getMinX() + bounds.getMaxX()) / 2.0 + 0.5,
+                (bounds.getMinY() + bounds.getMaxY()) / 2.0, (bounds.getMinZ() + bounds.getMaxZ()) / 2.0 + 0.5);
+        }
+        return map.getSpawnPoint(0);
+    }
+
+    // Sends one message to the match's players and spectators. The recipients are resolved into a
+    // single audience once per membership change, not on every kill.
+    void broadcast(Component message) {
+        if (audience == null) {
+            List<Player> recipients = new ArrayList<>(originalPlayers.size() + spectators.size());
+            Set<UUID> seen = new HashSet<>(originalPlayers);
+            seen.addAll(spectators);
+            for (UUID playerId : seen) {
+                Player player = Bukkit.getPlayer(playerId);
+                if (player != null) {
+                    recipients.add(player);
+                }
+            }
+            audience = Audience.audience(recipients);
+        }
+        audience.sendMessage(message);
+    }
+
+    // Back to the team spawn with a fresh loadout while the rest of the players are still landing
+    private void returnToSpawnBeforeStart(Player player) {
+        UUID playerId = player.getUniqueId();
+        Bukkit.getScheduler().runTask(getPlugin(), () -> {
+            if ((state != SessionState.STARTING && state != SessionState.ACTIVE) || !activePlayers.contains(playerId)) return;
+
+            Location spawn = getSpawnLocation(playerId);
+            if (spawn != null) {
+                player.teleport(spawn);
+            }
+            setupPlayerInventory(player, getSpawnIndex(playerId));
+            player.sendMessage(Component.text("§eThe match has not started yet, back to your spawn."));
+        });
+    }
+
+    // Back to the team spawn with the match's pre-built equipment, deferred like elimination
+    private void respawnPlayer(Player player) {
+        UUID playerId = player.getUniqueId();
+        lifeStartMillis.put(playerId, System.currentTimeMillis());
+        Bukkit.getScheduler().runTask(getPlugin(), () -> {
+            if (state != SessionState.ACTIVE || !activePlayers.contains(playerId)) return;
+
+            Location spawn = getSpawnLocation(playerId);
+            if (spawn != null) {
+                player.teleport(spawn);
+            }
+            setupPlayerInventory(player, getSpawnIndex(playerId));
+
+            if (map.getRules().getMode() == MatchMode.LIVES) {
+                int lives = livesLeft.getOrDefault(playerId, 1);
+                player.sendMessage(Component.text("§eYou respawned. " + lives + (lives == 1 ? " life" : " lives") + " left."));
+            } else {
+                player.sendMessage(Component.text("§eYou respawned."));
+            }
+            updateSessionScoreboards();
+        });
+    }
+
+    // Adds a kill to the killer's side, true if that reached the score limit
+    private boolean addScore(UUID killerId) {
+        Integer side = matchSides.get(killerId);
+        if (side == null || sideScores == null) return false;
+
+        sideScores[side]++;
+        updateSessionScoreboards();
+        int scoreLimit = map.getRules().getScoreLimit();
+        return scoreLimit > 0 && sideScores[side] >= scoreLimit;
+    }
+
+    // One check per second for the time limit, the cost does not grow with the match length
+    private void tickMatch() {
+        if (state != SessionState.ACTIVE) return;
+
+        if (getRemainingSeconds() <= 0) {
+            decidedByScore = true;
+            endGameWithWinner();
+        } else {
+            // Keeps the time left on the sidebar current
+            updateSessionScoreboards();
+        }
+    }
+
+    // Seconds until the time limit, -1 if the match has none
+    public int getRemainingSeconds() {
+        int timeLimit = map.getRules().getTimeLimitSeconds();
+        if (timeLimit <= 0 || state != SessionState.ACTIVE) return -1;
+        long elapsed = (System.currentTimeMillis() - activeSinceMillis) / 1000;
+        return (int) Math.max(0, timeLimit - elapsed);
+    }
+
+    // Kills scored by the player's team, or by the player in free-for-all
+    public int getSideScore(UUID playerId) {
+        Integer side = matchSides.get(playerId);
+        return side != null && sideScores != null ? sideScores[side] : 0;
+    }
+
+    // Lives left including the current one, only meaningful in lives mode
+    public int getLivesLeft(UUID playerId) {
+        return livesLeft.getOrDefault(playerId, 1);
+    }
+
+    private void creditAttackers(StatsStore stats, CombatTracker.Attribution attribution) {
+        Player killer = Bukkit.getPlayer(attribution.killer());
+        if (killer != null) {
+            stats.recordKill(killer);
+        }
+        for (UUID assistId : attribution.assists()) {
+            Player assist = Bukkit.getPlayer(assistId);
+            if (assist != null) {
+                stats.recordAssist(assist);
+            }
+        }
+    }
+
+    private void broadcastKillFeed(String victimName, CombatTracker.Attribution attribution) {
+        String text;
+        if (attribution == null) {
+            text = "§c" + victimName + " §7was eliminated";
+        } else {
+            text = "§a" + attribution.killerName() + " §7eliminated §c" + victimName;
+            if (!attribution.assistNames().isEmpty()) {
+                text += " §8(+" + String.join(", ", attribution.assistNames()) + ")";
+            }
+        }
+
+        broadcast(Component.text(text));
+    }
+
     public boolean shouldEnd() {
         if (state != SessionState.ACTIVE) return false;
 
@@ -387,13 +730,23 @@ public class Session {
 
         List<UUID> winners = getWinners();
         String winnerMessage = getWinnerMessage(winners);
+        Set<UUID> winningSide = getWinningSide(winners);
+        updateRatings(winningSide);
+        recordMatchStats(winningSide);
+        if (recorder != null) {
+            recorder.finish(winners);
+            recorder = null;
+        }
 
         teleportPlayersToGlobalSpawn();
-        announceWinnerToOriginalPlayers(winnerMessage, winners);
+        announceWinner(winnerMessage, winners);
         endGame();
     }
 
     private List<UUID> getWinners() {
+        if (decidedByScore) {
+            return getScoreWinners();
+        }
         List<UUID> winners = new ArrayList<>();
 
         switch (map.getTeamConfig()) {
@@ -418,6 +771,66 @@ public class Session {
         return winners;
     }
 
+    // Players of the side with the most kills, none if two teams tie, all of them if free-for-all players tie
+    private List<UUID> getScoreWinners() {
+        int best = -1;
+        int bestCount = 0;
+        for (int score : sideScores) {
+            if (score > best) {
+                best = score;
+                bestCount = 1;
+            } else if (score == best) {
+                bestCount++;
+            }
+        }
+
+        List<UUID> winners = new ArrayList<>();
+        boolean teams = map.getTeamConfig() != TeamConfiguration.FREE_FOR_ALL;
+        if (teams && bestCount > 1) return winners;
+        for (Map.Entry<UUID, Integer> entry : matchSides.entrySet()) {
+            if (sideScores[entry.getValue()] == best && (teams || activePlayers.contains(entry.getKey()) || best > 0)) {
+                winners.add(entry.getKey());
+            }
+        }
+        return winners;
+    }
+
+    // Eliminated members of the winning team share the win
+    private Set<UUID> getWinningSide(List<UUID> winners) {
+        Set<UUID> winningSide = new HashSet<>();
+        if (!winners.isEmpty()) {
+            Integer side = matchSides.get(winners.get(0));
+            for (Map.Entry<UUID, Integer> entry : matchSides.entrySet()) {
+                if (map.getTeamConfig() == TeamConfiguration.FREE_FOR_ALL ? winners.contains(entry.getKey()) : entry.getValue().equals(side)) {
+                    winningSide.add(entry.getKey());
+                }
+            }
+        }
+        return winningSide;
+    }
+
+    private void updateRatings(Set<UUID> winningSide) {
+        PlayerRatings ratings = getRatings();
+        if (ratings != null) {
+            ratings.recordMatch(matchSides, winningSide);
+        }
+    }
+
+    private void recordMatchStats(Set<UUID> winningSide) {
+        StatsStore stats = getStatsStore();
+        if (stats == null) return;
+
+        long now = System.currentTimeMillis();
+        for (UUID playerId : originalPlayers) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player != null) {
+                // Earlier lives were counted with each death, only the current one is left
+                long aliveMillis = activePlayers.contains(playerId) ? now - lifeStartMillis.getOrDefault(playerId, activeSinceMillis) : 0;
+                stats.recordMatch(player, winningSide.contains(playerId), aliveMillis);
+            }
+        }
+    }
+
     private String getWinnerMessage(List<UUID> winners) {
         if (winners.isEmpty()) {
             return "§7The match ended with no winners.";
@@ -434,7 +847,7 @@ public class Session {
             case TWO_TEAMS:
             case THREE_TEAMS:
                 if (!winners.isEmpty()) {
-                    Integer winningTeam = playerTeams.get(winners.get(0));
+                    Integer winningTeam = matchSides.get(winners.get(0)); // Winners may include eliminated teammates
                     if (winningTeam != null) {
                         return "§6Team " + (winningTeam + 1) + " won the match!";
                     }
@@ -446,28 +859,25 @@ public class Session {
     }
 
     private void teleportPlayersToGlobalSpawn() {
-        if (globalSpawn != null) {
+        Location spawn = getGlobalSpawn();
+        if (spawn != null) {
             for (UUID playerId : activePlayers) {
                 Player player = Bukkit.getPlayer(playerId);
                 if (player != null) {
-                    player.teleport(globalSpawn);
+                    player.teleport(spawn);
                     clearPlayerInventoryAndReset(player);
                 }
             }
         }
     }
 
-    private void announceWinnerToOriginalPlayers(String message, List<UUID> winners) {
-        Component winnerComponent = Component.text(message);
+    private void announceWinner(String message, List<UUID> winners) {
+        broadcast(Component.text(message));
 
-        for (UUID playerId : originalPlayers) {
+        for (UUID playerId : winners) {
             Player player = Bukkit.getPlayer(playerId);
-            if (player != null) {
-                player.sendMessage(winnerComponent);
-
-                if (winners.contains(playerId) && !isPlayerInOtherActiveSession(playerId)) {
-                    spawnFirework(player);
-                }
+            if (player != null && !isPlayerInOtherActiveSession(playerId)) {
+                spawnFirework(player);
             }
         }
     }
@@ -500,54 +910,212 @@ public class Session {
         updateSessionScoreboards();
     }
 
-    private void updateSessionScoreboards() {
+    void updateSessionScoreboards() {
+        CustomScoreboard scoreboardManager = getScoreboardManager();
+        if (scoreboardManager != null) {
+            // Mark all players in the session dirty, the scoreboard manager renders them once on its next flush
+            for (UUID playerId : queuedPlayers) {
+                scoreboardManager.markDirty(playerId);
+            }
+
+            for (UUID playerId : activePlayers) {
+                scoreboardManager.markDirty(playerId);
+            }
+
+            // Spectators all see the same sidebar, it is built once per flush for all of them
+            if (!spectators.isEmpty()) {
+                scoreboardManager.markSpectatorsDirty(this);
+            }
+        }
+    }
+
+    private CustomScoreboard getScoreboardManager() {
         org.bukkit.plugin.Plugin plugin = getPlugin();
         if (plugin instanceof net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux) {
-            net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux dogfightsPlugin =
-                (net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux) plugin;
+            return ((net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux) plugin).getScoreboardManager();
+        }
+        return null;
+    }
 
-            // Update scoreboards for all players in the session
-            for (UUID playerId : queuedPlayers) {
+    private PlayerRatings getRatings() {
+        org.bukkit.plugin.Plugin plugin = getPlugin();
+        if (plugin instanceof net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux) {
+            return ((net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux) plugin).getRatings();
+        }
+        return null;
+    }
+
+    private StatsStore getStatsStore() {
+        org.bukkit.plugin.Plugin plugin = getPlugin();
+        if (plugin instanceof net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux) {
+            return ((net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux) plugin).getStatsStore();
+        }
+        return null;
+    }
+
+    private ReplayStore getReplayStore() {
+        org.bukkit.plugin.Plugin plugin = getPlugin();
+        if (plugin instanceof net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux) {
+            return ((net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux) plugin).getReplayStore();
+        }
+        return null;
+    }
+
+    // The manager's spawn is current even if it changed after this session was created
+    private Location getGlobalSpawn() {
+        return sessionManager != null ? sessionManager.getGlobalSpawn() : globalSpawn;
+    }
+
+    SessionManager getSessionManager() {
+        return sessionManager;
+    }
+
+    private org.bukkit.plugin.Plugin getPlugin() {
+        return Bukkit.getPluginManager().getPlugin("ElytraDogfightsRedux");
+    }
+
+    // Called when the map is removed or replaced under this session: anyone mid-match goes back to spawn
+    // without a result, queued players are told, and a reset still writing into the box is stopped
+    void close() {
+        if (state == SessionState.STARTING || state == SessionState.ACTIVE) {
+            Component message = Component.text("§cThe match on " + getDisplayName() + " was cancelled because the map was changed.");
+            Location spawn = getGlobalSpawn();
+            Set<UUID> matchPlayers = new HashSet<>(queuedPlayers);
+            matchPlayers.addAll(activePlayers);
+            for (UUID playerId : matchPlayers) {
                 Player player = Bukkit.getPlayer(playerId);
-                if (player != null) {
-                    dogfightsPlugin.getScoreboardManager().updatePlayerScoreboard(player);
+                if (player == null) continue;
+                player.sendMessage(message);
+                if (spawn != null) {
+                    player.teleport(spawn);
                 }
+                clearPlayerInventoryAndReset(player);
             }
-
-            for (UUID playerId : activePlayers) {
+        } else {
+            for (UUID playerId : queuedPlayers) {
                 Player player = Bukkit.getPlayer(playerId);
                 if (player != null) {
-                    dogfightsPlugin.getScoreboardManager().updatePlayerScoreboard(player);
+                    player.sendMessage(Component.text("§cYou were removed from the queue for " + getDisplayName() + " because the map was changed."));
                 }
             }
         }
-    }
 
-    private org.bukkit.plugin.Plugin getPlugin() {
-        return Bukkit.getPluginManager().getPlugin("ElytraDogfightsRedux");
+        closed = true;
+        endGame();
+        if (arenaReset != null) {
+            arenaReset.cancel();
+            arenaReset = null;
+        }
+        // endGame leaves a reset that was already running in RESETTING, a closed session is idle
+        setState(SessionState.WAITING);
     }
 
     public void endGame() {
+        if (state == SessionState.RESETTING) return; // Already over, the reset finishes on its own
+        boolean matchPlayed = isInUse() && !closed; // A closed session's box is not restored, its map is gone
         if (countdownTask != null) {
             countdownTask.cancel();
             countdownTask = null;
         }
+        if (matchTask != null) {
+            matchTask.cancel();
+            matchTask = null;
+        }
+        if (startPipeline != null) {
+            startPipeline.cancel();
+            startPipeline = null;
+        }
+        if (recorder != null) {
+            // Cut short without a winner, the replay still ends here
+            recorder.finish(Collections.emptyList());
+            recorder = null;
+        }
+        if (sessionManager != null) {
+            for (UUID playerId : queuedPlayers) {
+                sessionManager.untrackPlayer(playerId, this);
+            }
+            for (UUID playerId : activePlayers) {
+                sessionManager.untrackPlayer(playerId, this);
+            }
+        }
+        for (UUID playerId : new ArrayList<>(spectators)) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player != null) {
+                removeSpectator(player);
+            } else {
+                releaseSpectator(playerId);
+            }
+        }
         activePlayers.clear();
         queuedPlayers.clear();
         originalPlayers.clear();
+        audience = null;
         playerTeams.clear();
-        state = SessionState.WAITING;
+        matchSides.clear();
+        livesLeft.clear();
+        lifeStartMillis.clear();
+        sideScores = null;
+        decidedByScore = false;
+        combatTracker = null;
+        matchLoadout = null;
+        if (!matchPlayed || !startArenaReset()) {
+            setState(SessionState.WAITING);
+        }
+    }
+
+    // Called by ArenaPool for a copy placed in the arena world, the session opens once it has been pasted
+    void provisionArena() {
+        if (state == SessionState.WAITING) {
+            startArenaReset();
+        }
+    }
+
+    // Restores the arena from its snapshot over the next ticks, false if there is nothing to restore from
+    private boolean startArenaReset() {
+        ArenaBounds bounds = map.getBounds();
+        var plugin = getPlugin();
+        if (bounds == null || !(plugin instanceof net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux)) return false;
+        ArenaTemplate template = ((net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux) plugin).getConfigManager()
+            .getArenaTemplates().get(map.getName());
+        World world = Bukkit.getWorld(bounds.getWorldName());
+        if (template == null || world == null || !template.hasSize(bounds.getMaxX() - bounds.getMinX() + 1,
+                bounds.getMaxY() - bounds.getMinY() + 1, bounds.getMaxZ() - bounds.getMinZ() + 1)) {
+            return false;
+        }
+
+        int budgetMillis = sessionManager != null ? sessionManager.getResetBudgetMillis() : 5;
+        arenaReset = new ArenaReset(getDisplayName(), world, template, bounds.getMinX(), bounds.getMinY(), bounds.getMinZ(),
+            budgetMillis * 1_000_000L, this::finishArenaReset);
+        setState(SessionState.RESETTING);
+        arenaReset.start(plugin);
+        return true;
+    }
+
+    private void finishArenaReset() {
+        if (sessionManager != null) {
+            sessionManager.setLastArenaReset(arenaReset);
+        }
+        arenaReset = null;
+        setState(SessionState.WAITING);
+        updateSessionScoreboards();
     }
 
     // Getters
     public boolean isPlayerQueued(UUID playerId) { return queuedPlayers.contains(playerId); }
     public boolean isPlayerActive(UUID playerId) { return activePlayers.contains(playerId); }
     public boolean isPlayerInSession(UUID playerId) { return isPlayerQueued(playerId) || isPlayerActive(playerId); }
-    public boolean isInUse() { return state == SessionState.ACTIVE; }
+    public boolean isInUse() { return state == SessionState.ACTIVE || state == SessionState.STARTING || state == SessionState.RESETTING; }
+    public double getResetProgress() { return arenaReset != null ? arenaReset.getProgress() : 1; }
     public DogfightMap getMap() { return map; }
+    public int getInstanceIndex() { return instanceIndex; }
+    public String getDisplayName() { return instanceIndex == 0 ? map.getName() : map.getName() + " #" + (instanceIndex + 1); }
     public Set<UUID> getQueuedPlayers() { return new HashSet<>(queuedPlayers); }
     public Set<UUID> getActivePlayers() { return new HashSet<>(activePlayers); }
+    public Set<UUID> getActivePlayerView() { return Collections.unmodifiableSet(activePlayers); }
     public Set<UUID> getOriginalPlayers() { return new HashSet<>(originalPlayers); }
+    public Set<UUID> getSpectators() { return Collections.unmodifiableSet(spectators); }
+    public int getSpectatorCount() { return spectators.size(); }
+    public boolean isSpectator(UUID playerId) { return spectators.contains(playerId); }
     public SessionState getState() { return state; }
     public int getRequiredPlayers() { return requiredPlayers; }
     public int getQueuedPlayerCount() { return queuedPlayers.size(); }
@@ -1,6 +1,10 @@
 package net.sudologic.elytraDogfightsRedux.game;
 
+import net.sudologic.elytraDogfightsRedux.arena.ArenaReset;
+import net.sudologic.elytraDogfightsRedux.arena.ArenaWorld;
 import net.sudologic.elytraDogfightsRedux.config.DogfightMap;
+import net.sudologic.elytraDogfightsRedux.metrics.Counter;
+import net.sudologic.elytraDogfightsRedux.metrics.MetricsRegistry;
 import org.bukkit.entity.Player;
 import org.bukkit.Location;
 import net.kyori.adventure.text.Component;
@@ -8,18 +12,98 @@ import net.kyori.adventure.text.Component;
 import java.util.*;
 
 public class SessionManager {
-    private final Map<String, Session> sessions;
+    private final Map<String, ArenaPool> pools; // Map name -> running instances of that map
+    private final Map<UUID, Session> playerSessions; // Player UUID -> Session they are queued for or playing in
+    private final Set<UUID> activeGamePlayers; // Players currently fighting in an ACTIVE session
+    private final Map<UUID, Session> spectatorSessions; // Player UUID -> Session they are watching
+    private int activeSessionCount; // Sessions currently in the ACTIVE state
+    private MatchStartTimings lastMatchStartTimings;
+    private TeamBalance lastTeamBalance;
     private int countdownDuration = 10; // Default, will be updated by ConfigManager
     private Location globalSpawn;
+    private int combatTagSeconds = 10; // Default, will be updated by ConfigManager
+    private boolean spectateOnElimination = true; // Default, will be updated by ConfigManager
+    private int resetBudgetMillis = 5; // Default, will be updated by ConfigManager
+    private ArenaReset lastArenaReset;
+    private ArenaWorld arenaWorld; // Holds provisioned arena copies, null if maps only use hand-built copies
+    private final Map<SessionState, Counter> transitions; // Target state -> number of sessions that entered it
 
-    public SessionManager() {
-        this.sessions = new HashMap<>();
+    public SessionManager(MetricsRegistry metrics) {
+        this.pools = new HashMap<>();
+        this.playerSessions = new HashMap<>();
+        this.activeGamePlayers = new HashSet<>();
+        this.spectatorSessions = new HashMap<>();
+        this.transitions = new EnumMap<>(SessionState.class);
+        for (SessionState state : SessionState.values()) {
+            transitions.put(state, metrics.counter("edf_session_transitions_total", "Session state changes by the state entered",
+                "state", state.name().toLowerCase()));
+        }
+        metrics.gauge("edf_sessions_active", "Sessions with a match in progress", () -> activeSessionCount);
+        metrics.gauge("edf_players_in_game", "Players fighting in a match", () -> activeGamePlayers.size());
+        metrics.gauge("edf_spectators", "Players spectating a match", () -> spectatorSessions.size());
     }
 
     public void setCountdownDuration(int duration) {
         this.countdownDuration = duration;
     }
 
+    public void setCombatTagSeconds(int seconds) {
+        this.combatTagSeconds = seconds;
+    }
+
+    // Read when a match starts, so a change applies from the next match on
+    public int getCombatTagSeconds() {
+        return combatTagSeconds;
+    }
+
+    public void setSpectateOnElimination(boolean spectate) {
+        this.spectateOnElimination = spectate;
+    }
+
+    public boolean isSpectateOnElimination() {
+        return spectateOnElimination;
+    }
+
+    public void setResetBudgetMillis(int millis) {
+        this.resetBudgetMillis = millis;
+    }
+
+    // Read when a reset starts, a reset already running keeps its budget
+    public int getResetBudgetMillis() {
+        return resetBudgetMillis;
+    }
+
+    public void setArenaWorld(ArenaWorld arenaWorld) {
+        this.arenaWorld = arenaWorld;
+    }
+
+    // True if maps without an instance offset can still run several matches at once
+    public boolean canProvisionInstances() {
+        return arenaWorld != null && arenaWorld.isOpen();
+    }
+
+    // Instances a new pool of the map gets, copies without an offset need the arena world
+    int instanceCapacity(DogfightMap map) {
+        return map.getInstanceOffset() != null || canProvisionInstances() ? map.getMaxInstances() : 1;
+    }
+
+    // Rebuilds idle pools whose capacity changed with the arena world opening or closing; a pool in use
+    // keeps its capacity until its map is next saved
+    public void resizePools() {
+        for (ArenaPool pool : new ArrayList<>(pools.values())) {
+            DogfightMap map = pool.getMap();
+            if (pool.getMaxInstances() != instanceCapacity(map) && pool.isIdle()) {
+                removeSession(map.getName());
+                createSession(map);
+            }
+        }
+    }
+
+    // The map moved into its instance's slot of the arena world, null if that is not possible yet
+    DogfightMap provisionInstance(DogfightMap map, int instanceIndex) {
+        return arenaWorld != null ? arenaWorld.place(map, instanceIndex) : null;
+    }
+
     public void setGlobalSpawn(Location globalSpawn) {
         this.globalSpawn = globalSpawn;
     }
@@ -29,15 +113,26 @@ public class SessionManager {
     }
 
     public void createSession(DogfightMap map) {
-        Session session = new Session(map);
+        pools.put(map.getName(), new ArenaPool(map, this));
+    }
+
+    // Called by ArenaPool to open a new instance of its map
+    Session newSession(DogfightMap instanceMap, int instanceIndex, ArenaPool pool) {
+        Session session = new Session(instanceMap, instanceIndex);
         session.setCountdownDuration(countdownDuration);
         session.setSessionManager(this);
+        session.setPool(pool);
         session.setGlobalSpawn(globalSpawn);
-        sessions.put(map.getName(), session);
+        return session;
     }
 
     public void removeSession(String mapName) {
-        sessions.remove(mapName);
+        ArenaPool pool = pools.remove(mapName);
+        if (pool != null) {
+            // Release every instance's players from the index, send anyone mid-match back to spawn
+            // and stop resets still writing into the arena
+            pool.close();
+        }
     }
 
     public boolean queuePlayer(Player player, String mapName) {
@@ -45,18 +140,19 @@ public class SessionManager {
     }
 
     public boolean queuePlayer(UUID playerId, String mapName) {
-        Session targetSession = sessions.get(mapName);
-        if (targetSession == null) {
+        ArenaPool pool = pools.get(mapName);
+        if (pool == null) {
             return false; // Map/session doesn't exist
         }
 
-        // Check if the map is already in active use
-        if (targetSession.isInUse()) {
+        // Pick the instance accepting players, if every instance is mid-match the map is in use
+        Session targetSession = pool.getJoinable();
+        if (targetSession == null) {
             return false; // Map is in use
         }
 
-        // Check if player is already in an active game
-        if (isPlayerInActiveGame(playerId)) {
+        // Check if player is already in a starting or active game
+        if (isPlayerInMatch(playerId)) {
             return false; // Player is in an active game
         }
 
@@ -68,41 +164,150 @@ public class SessionManager {
     }
 
     public void removePlayerFromAllSessions(UUID playerId) {
-        for (Session session : sessions.values()) {
+        // A player is only ever indexed against one session
+        Session session = playerSessions.get(playerId);
+        if (session != null) {
             session.removePlayer(playerId);
         }
     }
 
     public Session getPlayerSession(UUID playerId) {
-        for (Session session : sessions.values()) {
-            if (session.isPlayerInSession(playerId)) {
-                return session;
-            }
-        }
-        return null;
+        return playerSessions.get(playerId);
     }
 
     public boolean isPlayerInActiveGame(UUID playerId) {
-        Session session = getPlayerSession(playerId);
-        return session != null && session.getState() == SessionState.ACTIVE && session.isPlayerActive(playerId);
+        return activeGamePlayers.contains(playerId);
+    }
+
+    // In a running match, or in one that is still teleporting its players into the arena
+    public boolean isPlayerInMatch(UUID playerId) {
+        if (activeGamePlayers.contains(playerId)) return true;
+        Session session = playerSessions.get(playerId);
+        return session != null && session.getState() == SessionState.STARTING;
+    }
+
+    public Session getSpectatedSession(UUID playerId) {
+        return spectatorSessions.get(playerId);
+    }
+
+    public boolean isSpectating(UUID playerId) {
+        return spectatorSessions.containsKey(playerId);
     }
 
     public boolean isPlayerQueued(UUID playerId) {
-        Session session = getPlayerSession(playerId);
-        return session != null && session.isPlayerQueued(playerId);
+        return playerSessions.containsKey(playerId) && !activeGamePlayers.contains(playerId);
     }
 
+    // The instance of the map that new players would join, null if all are busy
     public Session getSession(String mapName) {
-        return sessions.get(mapName);
+        ArenaPool pool = pools.get(mapName);
+        return pool != null ? pool.getJoinable() : null;
+    }
+
+    public ArenaPool getPool(String mapName) {
+        return pools.get(mapName);
     }
 
+    // True when every instance of the map is running a match
     public boolean isMapInUse(String mapName) {
-        Session session = sessions.get(mapName);
-        return session != null && session.isInUse();
+        ArenaPool pool = pools.get(mapName);
+        return pool != null && pool.getJoinable() == null;
+    }
+
+    // True while any instance of the map is starting, running or resetting a match, its pool should not be
+    // replaced then
+    public boolean isMapBusy(String mapName) {
+        ArenaPool pool = pools.get(mapName);
+        return pool != null && pool.getBusyCount() > 0;
+    }
+
+    public int getActiveSessionCount() {
+        return activeSessionCount;
+    }
+
+    public MatchStartTimings getLastMatchStartTimings() {
+        return lastMatchStartTimings;
+    }
+
+    void setLastMatchStartTimings(MatchStartTimings timings) {
+        this.lastMatchStartTimings = timings;
+    }
+
+    public TeamBalance getLastTeamBalance() {
+        return lastTeamBalance;
+    }
+
+    void setLastTeamBalance(TeamBalance balance) {
+        this.lastTeamBalance = balance;
+    }
+
+    public ArenaReset getLastArenaReset() {
+        return lastArenaReset;
+    }
+
+    void setLastArenaReset(ArenaReset reset) {
+        this.lastArenaReset = reset;
     }
 
     public Collection<Session> getAllSessions() {
-        return new ArrayList<>(sessions.values());
+        List<Session> sessions = new ArrayList<>();
+        for (ArenaPool pool : pools.values()) {
+            sessions.addAll(pool.getInstances());
+        }
+        return sessions;
+    }
+
+    // Called by Session on every state transition
+    void onSessionStateChanged(Session session, SessionState oldState, SessionState newState) {
+        transitions.get(newState).increment();
+        if (oldState == SessionState.ACTIVE) {
+            activeSessionCount--;
+        }
+        if (newState == SessionState.ACTIVE) {
+            activeSessionCount++;
+        }
+        if (session.getPool() != null) {
+            session.getPool().onSessionStateChanged(session, oldState, newState);
+        }
+    }
+
+    // Index maintenance, called by Session whenever its player sets change
+    void trackQueuedPlayer(UUID playerId, Session session) {
+        playerSessions.put(playerId, session);
+        activeGamePlayers.remove(playerId);
+    }
+
+    void trackActivePlayer(UUID playerId, Session session) {
+        playerSessions.put(playerId, session);
+        activeGamePlayers.add(playerId);
+    }
+
+    void untrackPlayer(UUID playerId, Session session) {
+        // Only drop the entry if it still points at the calling session
+        if (playerSessions.remove(playerId, session)) {
+            activeGamePlayers.remove(playerId);
+        }
+    }
+
+    void trackSpectator(UUID playerId, Session session) {
+        spectatorSessions.put(playerId, session);
+    }
+
+    void untrackSpectator(UUID playerId, Session session) {
+        spectatorSessions.remove(playerId, session);
+    }
+
+    // Read-only views of the index, so tests can check it against every session's own sets
+    Set<UUID> getIndexedPlayers() {
+        return Collections.unmodifiableSet(playerSessions.keySet());
+    }
+
+    Set<UUID> getIndexedActivePlayers() {
+        return Collections.unmodifiableSet(activeGamePlayers);
+    }
+
+    Set<UUID> getIndexedSpectators() {
+        return Collections.unmodifiableSet(spectatorSessions.keySet());
     }
 
     public void announceToNonActivePlayers(Component message) {
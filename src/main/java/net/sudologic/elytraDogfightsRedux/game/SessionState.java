@@ -3,6 +3,8 @@ package net.sudologic.elytraDogfightsRedux.game;
 public enum SessionState {
     WAITING,    // Waiting for players to join
     COUNTDOWN,  // Enough players joined, countdown started
+    STARTING,   // Countdown finished, players are being teleported into the arena
     ACTIVE,     // Game is actively running
+    RESETTING,  // Match over, the arena's blocks are being restored before the next one
     FINISHED    // Game is over
 }
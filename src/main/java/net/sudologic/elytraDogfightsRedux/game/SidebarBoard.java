@@ -0,0 +1,72 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.scoreboard.DisplaySlot;
+import org.bukkit.scoreboard.Objective;
+import org.bukkit.scoreboard.Scoreboard;
+import org.bukkit.scoreboard.Team;
+
+import java.util.List;
+
+// Persistent sidebar with a fixed set of line slots. Each slot is a hidden score entry whose
+// visible text lives in a team prefix, so only lines whose text changed are sent to the client.
+public class SidebarBoard {
+    public static final int MAX_LINES = 15;
+
+    private final Scoreboard scoreboard;
+    private final Objective objective;
+    private final Team[] lineTeams;
+    private final String[] lineEntries;
+    private final String[] lineText; // Text the client currently has for each slot
+    private String title;
+    private int visibleLines;
+
+    public SidebarBoard(String title) {
+        this.scoreboard = Bukkit.getScoreboardManager().getNewScoreboard();
+        this.objective = scoreboard.registerNewObjective("dogfights", "dummy", title);
+        this.objective.setDisplaySlot(DisplaySlot.SIDEBAR);
+        this.title = title;
+        this.lineTeams = new Team[MAX_LINES];
+        this.lineEntries = new String[MAX_LINES];
+        this.lineText = new String[MAX_LINES];
+
+        ChatColor[] colors = ChatColor.values();
+        for (int i = 0; i < MAX_LINES; i++) {
+            // Unique, invisible entry per slot, e.g. "§0§r"
+            lineEntries[i] = colors[i].toString() + ChatColor.RESET;
+            lineTeams[i] = scoreboard.registerNewTeam("line" + i);
+            lineTeams[i].addEntry(lineEntries[i]);
+        }
+    }
+
+    public Scoreboard getScoreboard() {
+        return scoreboard;
+    }
+
+    public void render(String title, List<String> lines) {
+        if (!title.equals(this.title)) {
+            objective.setDisplayName(title);
+            this.title = title;
+        }
+
+        int count = Math.min(lines.size(), MAX_LINES);
+        for (int i = 0; i < count; i++) {
+            String text = lines.get(i);
+            if (!text.equals(lineText[i])) {
+                lineTeams[i].setPrefix(text);
+                lineText[i] = text;
+            }
+            if (i >= visibleLines) {
+                // Slot was hidden, show it again at its fixed position
+                objective.getScore(lineEntries[i]).setScore(MAX_LINES - i);
+            }
+        }
+
+        // Hide slots the new layout no longer uses
+        for (int i = count; i < visibleLines; i++) {
+            scoreboard.resetScores(lineEntries[i]);
+        }
+        visibleLines = count;
+    }
+}
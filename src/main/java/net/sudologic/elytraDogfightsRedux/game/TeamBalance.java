@@ -0,0 +1,10 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+// Outcome of one rating-balanced team split
+public record TeamBalance(String mapName, int players, int teams, double ratingSpread, long partitionNanos) {
+
+    public String describe() {
+        return String.format("%s (%d players, %d teams): rating spread %.0f, partitioned in %.1fµs",
+            mapName, players, teams, ratingSpread, partitionNanos / 1e3);
+    }
+}
@@ -0,0 +1,91 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Splits players into equally sized teams with rating totals as close as possible. A greedy pass
+// hands the strongest remaining player to the weakest team with room, then a bounded number of
+// swaps between the strongest and weakest team narrows the gap further. O(n log n + n^2) at worst.
+final class TeamBalancer {
+    private static final int MAX_SWAP_ROUNDS = 32;
+
+    private TeamBalancer() {
+    }
+
+    // Team index for each rating; ratings.length must be a multiple of teamCount
+    static int[] partition(double[] ratings, int teamCount) {
+        int count = ratings.length;
+        int teamSize = count / teamCount;
+        int[] teams = new int[count];
+        double[] totals = new double[teamCount];
+        int[] sizes = new int[teamCount];
+
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> ratings[i]).reversed());
+
+        for (int player : order) {
+            int weakest = -1;
+            for (int team = 0; team < teamCount; team++) {
+                if (sizes[team] < teamSize && (weakest < 0 || totals[team] < totals[weakest])) {
+                    weakest = team;
+                }
+            }
+            teams[player] = weakest;
+            totals[weakest] += ratings[player];
+            sizes[weakest]++;
+        }
+
+        for (int round = 0; round < MAX_SWAP_ROUNDS; round++) {
+            int strongest = 0;
+            int weakest = 0;
+            for (int team = 1; team < teamCount; team++) {
+                if (totals[team] > totals[strongest]) strongest = team;
+                if (totals[team] < totals[weakest]) weakest = team;
+            }
+            double gap = totals[strongest] - totals[weakest];
+
+            // Best single swap between the two extreme teams, moving half the gap is ideal
+            int bestA = -1;
+            int bestB = -1;
+            double bestGap = gap;
+            for (int a = 0; a < count; a++) {
+                if (teams[a] != strongest) continue;
+                for (int b = 0; b < count; b++) {
+                    if (teams[b] != weakest) continue;
+                    double diff = ratings[a] - ratings[b];
+                    double newGap = Math.abs(gap - 2 * diff);
+                    if (newGap < bestGap) {
+                        bestGap = newGap;
+                        bestA = a;
+                        bestB = b;
+                    }
+                }
+            }
+            if (bestA < 0) break; // No swap improves the balance
+
+            double diff = ratings[bestA] - ratings[bestB];
+            teams[bestA] = weakest;
+            teams[bestB] = strongest;
+            totals[strongest] -= diff;
+            totals[weakest] += diff;
+        }
+
+        return teams;
+    }
+
+    // Difference between the highest and lowest team rating total
+    static double spread(double[] ratings, int[] teams, int teamCount) {
+        double[] totals = new double[teamCount];
+        for (int i = 0; i < ratings.length; i++) {
+            totals[teams[i]] += ratings[i];
+        }
+        double min = totals[0];
+        double max = totals[0];
+        for (double total : totals) {
+            min = Math.min(min, total);
+            max = Math.max(max, total);
+        }
+        return max - min;
+    }
+}
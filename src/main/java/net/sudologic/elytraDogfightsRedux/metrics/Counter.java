@@ -0,0 +1,23 @@
+package net.sudologic.elytraDogfightsRedux.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Monotonic count, safe to bump from any thread without locking
+public class Counter {
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
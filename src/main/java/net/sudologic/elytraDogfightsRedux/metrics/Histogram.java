@@ -0,0 +1,105 @@
+package net.sudologic.elytraDogfightsRedux.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear latency histogram in the style of HdrHistogram: every power of two is split into
+// 8 linear sub-buckets, so any recorded value is reported within 12.5% of its true size no matter
+// whether it is a few nanoseconds or several minutes. Values are recorded as longs in a fixed unit
+// and every bucket is its own LongAdder, so recording never locks and threads rarely contend.
+public class Histogram {
+    public static final double NANOS = 1e-9; // Unit scales, converting recorded values to seconds
+    public static final double MILLIS = 1e-3;
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 46; // 2^46 ns is about 19 hours, larger values share the last bucket
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final double unitSeconds;
+    private final LongAdder[] buckets;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final LongAccumulator max;
+
+    Histogram(double unitSeconds) {
+        this.unitSeconds = unitSeconds;
+        this.buckets = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    public void record(long value) {
+        if (value < 0) value = 0; // nanoTime differences can go negative across cores
+        buckets[bucketOf(value)].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    // Sum of all recorded values, in seconds
+    public double getSum() {
+        return sum.sum() * unitSeconds;
+    }
+
+    public double getMean() {
+        long total = count.sum();
+        return total > 0 ? getSum() / total : 0;
+    }
+
+    public double getMax() {
+        return max.get() * unitSeconds;
+    }
+
+    // Value below which the given fraction of recordings fall, in seconds at bucket resolution
+    public double getPercentile(double fraction) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+
+        long threshold = Math.max(1, (long) Math.ceil(total * fraction));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= threshold) {
+                // The largest value seen caps the top bucket's estimate
+                return Math.min(upperBoundOf(i), max.get()) * unitSeconds;
+            }
+        }
+        return getMax();
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value; // Small values are counted exactly
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+}
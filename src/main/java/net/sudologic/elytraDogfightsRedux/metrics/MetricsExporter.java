@@ -0,0 +1,94 @@
+package net.sudologic.elytraDogfightsRedux.metrics;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+// Periodically writes the registry to metrics.prom in the plugin folder, in the Prometheus text format
+// that node_exporter's textfile collector and most scrapers read. The text is rendered on the main
+// thread so gauges can read game state, the file is written in the background.
+public class MetricsExporter {
+    private static final long EXPORT_INTERVAL_TICKS = 300L; // 15 seconds
+    private static final String FILE_NAME = "metrics.prom";
+
+    private final Plugin plugin;
+    private final MetricsRegistry metrics;
+    private final Path file;
+    private final ExecutorService ioExecutor;
+    private BukkitTask task;
+
+    public MetricsExporter(Plugin plugin, MetricsRegistry metrics) {
+        this.plugin = plugin;
+        this.metrics = metrics;
+        this.file = plugin.getDataFolder().toPath().resolve(FILE_NAME);
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ElytraDogfights-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        task = Bukkit.getScheduler().runTaskTimer(plugin, () -> export(null), EXPORT_INTERVAL_TICKS, EXPORT_INTERVAL_TICKS);
+    }
+
+    // Writes the final values and stops the writer thread, used on shutdown
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        export(null);
+        ioExecutor.shutdown();
+        try {
+            ioExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Renders now and writes in the background, the callback runs on the main thread with whether the write worked
+    public void export(Consumer<Boolean> callback) {
+        String contents = metrics.renderPrometheus();
+        if (ioExecutor.isShutdown()) return;
+        ioExecutor.execute(() -> {
+            boolean written = write(contents);
+            if (callback != null && plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> callback.accept(written));
+            }
+        });
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private boolean write(String contents) {
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(temp, contents, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not export metrics to " + FILE_NAME, e);
+            return false;
+        }
+    }
+}
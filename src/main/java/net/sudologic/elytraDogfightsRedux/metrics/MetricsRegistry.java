@@ -0,0 +1,193 @@
+package net.sudologic.elytraDogfightsRedux.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+// Named counters, gauges and histograms shared by the whole plugin. Metrics are registered once, usually
+// when their owner is created, and the returned instance is kept and recorded into directly, so the hot
+// path never looks anything up. Gauges are read when rendering, which must happen on the main thread.
+public class MetricsRegistry {
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99 };
+
+    // Name and labels -> metric. Sorted with a separator below any name character so every
+    // label set of a metric stays next to the others, as the Prometheus text format requires.
+    private final Map<String, Metric> metrics;
+
+    public MetricsRegistry() {
+        this.metrics = new ConcurrentSkipListMap<>();
+    }
+
+    // Labels are given as alternating name, value pairs
+    public Counter counter(String name, String help, String... labels) {
+        return register(name, help, labels, Counter.class, new Counter());
+    }
+
+    public Histogram histogram(String name, String help, double unitSeconds, String... labels) {
+        return register(name, help, labels, Histogram.class, new Histogram(unitSeconds));
+    }
+
+    public void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        register(name, help, labels, DoubleSupplier.class, supplier);
+    }
+
+    private <T> T register(String name, String help, String[] labels, Class<T> type, T created) {
+        String labelText = formatLabels(labels);
+        Metric metric = metrics.computeIfAbsent(name + '\0' + labelText, key -> new Metric(name, labelText, labels.clone(), help, created));
+        if (!type.isInstance(metric.value())) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered with another type");
+        }
+        return type.cast(metric.value());
+    }
+
+    // One line per metric for the in-game view, optionally only those whose name contains the filter
+    public List<String> describe(String filter) {
+        List<String> lines = new ArrayList<>();
+        for (Metric metric : metrics.values()) {
+            if (filter != null && !metric.name().contains(filter)) continue;
+            String label = metric.name() + (metric.labels().isEmpty() ? "" : "{" + metric.labels() + "}");
+            if (metric.value() instanceof Counter counter) {
+                lines.add(label + " " + counter.get());
+            } else if (metric.value() instanceof DoubleSupplier gauge) {
+                lines.add(label + " " + formatNumber(gauge.getAsDouble()));
+            } else if (metric.value() instanceof Histogram histogram) {
+                lines.add(label + " n=" + histogram.getCount()
+                    + " mean=" + formatSeconds(histogram.getMean())
+                    + " p50=" + formatSeconds(histogram.getPercentile(0.5))
+                    + " p99=" + formatSeconds(histogram.getPercentile(0.99))
+                    + " max=" + formatSeconds(histogram.getMax()));
+            }
+        }
+        return lines;
+    }
+
+    // Prometheus text exposition format, histograms are exported as summaries with fixed quantiles
+    public String renderPrometheus() {
+        StringBuilder builder = new StringBuilder(4096);
+        String family = null;
+        for (Metric metric : metrics.values()) {
+            if (!metric.name().equals(family)) {
+                family = metric.name();
+                builder.append("# HELP ").append(family).append(' ').append(metric.help()).append('\n');
+                builder.append("# TYPE ").append(family).append(' ').append(typeOf(metric)).append('\n');
+            }
+            if (metric.value() instanceof Counter counter) {
+                appendSample(builder, family, metric.labels(), null, counter.get());
+            } else if (metric.value() instanceof DoubleSupplier gauge) {
+                appendSample(builder, family, metric.labels(), null, gauge.getAsDouble());
+            } else if (metric.value() instanceof Histogram histogram) {
+                for (double quantile : QUANTILES) {
+                    appendSample(builder, family, metric.labels(), "quantile=\"" + quantile + "\"", histogram.getPercentile(quantile));
+                }
+                appendSample(builder, family + "_sum", metric.labels(), null, histogram.getSum());
+                appendSample(builder, family + "_count", metric.labels(), null, histogram.getCount());
+            }
+        }
+        return builder.toString();
+    }
+
+    // Same values as the Prometheus export as a JSON array, one object per metric and label set
+    public String renderJson() {
+        StringBuilder builder = new StringBuilder(4096).append('[');
+        for (Metric metric : metrics.values()) {
+            if (builder.length() > 1) builder.append(',');
+            builder.append("{\"name\":");
+            appendJsonString(builder, metric.name());
+            builder.append(",\"type\":\"").append(typeOf(metric)).append("\",\"labels\":{");
+            String[] labels = metric.labelPairs();
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) builder.append(',');
+                appendJsonString(builder, labels[i]);
+                builder.append(':');
+                appendJsonString(builder, labels[i + 1]);
+            }
+            builder.append('}');
+            if (metric.value() instanceof Counter counter) {
+                builder.append(",\"value\":").append(counter.get());
+            } else if (metric.value() instanceof DoubleSupplier gauge) {
+                builder.append(",\"value\":").append(formatJsonNumber(gauge.getAsDouble()));
+            } else if (metric.value() instanceof Histogram histogram) {
+                builder.append(",\"count\":").append(histogram.getCount())
+                    .append(",\"sum\":").append(formatJsonNumber(histogram.getSum()))
+                    .append(",\"mean\":").append(formatJsonNumber(histogram.getMean()))
+                    .append(",\"max\":").append(formatJsonNumber(histogram.getMax()));
+                for (double quantile : QUANTILES) {
+                    builder.append(",\"p").append(Math.round(quantile * 100)).append("\":")
+                        .append(formatJsonNumber(histogram.getPercentile(quantile)));
+                }
+            }
+            builder.append('}');
+        }
+        return builder.append(']').toString();
+    }
+
+    private static void appendJsonString(StringBuilder builder, String text) {
+        builder.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+
+    private static String formatJsonNumber(double value) {
+        return Double.isFinite(value) ? formatNumber(value) : "null";
+    }
+
+    private static String typeOf(Metric metric) {
+        if (metric.value() instanceof Counter) return "counter";
+        if (metric.value() instanceof Histogram) return "summary";
+        return "gauge";
+    }
+
+    private static void appendSample(StringBuilder builder, String name, String labels, String extraLabel, double value) {
+        builder.append(name);
+        if (!labels.isEmpty() || extraLabel != null) {
+            builder.append('{').append(labels);
+            if (extraLabel != null) {
+                if (!labels.isEmpty()) builder.append(',');
+                builder.append(extraLabel);
+            }
+            builder.append('}');
+        }
+        builder.append(' ').append(formatNumber(value)).append('\n');
+    }
+
+    private static String formatLabels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name, value pairs");
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) builder.append(',');
+            String value = labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+            builder.append(labels[i]).append("=\"").append(value).append('"');
+        }
+        return builder.toString();
+    }
+
+    private static String formatNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String formatSeconds(double seconds) {
+        if (seconds < 1e-3) return String.format(Locale.ROOT, "%.1fµs", seconds * 1e6);
+        if (seconds < 1) return String.format(Locale.ROOT, "%.2fms", seconds * 1e3);
+        return String.format(Locale.ROOT, "%.2fs", seconds);
+    }
+
+    private record Metric(String name, String labels, String[] labelPairs, String help, Object value) {
+    }
+}
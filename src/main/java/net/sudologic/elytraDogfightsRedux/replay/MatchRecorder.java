@@ -0,0 +1,149 @@
+package net.sudologic.elytraDogfightsRedux.replay;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+
+// Records one match as a stream of primitive events. Events go into preallocated parallel arrays that
+// are reused for the whole match; whenever they fill up, and when the match ends, a copy of the filled
+// part is handed to the replay store's writer thread. Recording an event is a handful of array writes.
+public class MatchRecorder {
+    static final int CAPACITY = 8192;
+    private static final long SAMPLE_INTERVAL_TICKS = 10L;
+
+    private final Plugin plugin;
+    private final ReplayStore store;
+    private final String replayId;
+    private final Map<UUID, Integer> slots;
+    private final Set<UUID> livePlayers; // The session's active players, read on the main thread only
+    private final int startTick;
+    private final Location scratch; // Reused for every position sample
+
+    private final byte[] types = new byte[CAPACITY];
+    private final int[] ticks = new int[CAPACITY];
+    private final short[] subjects = new short[CAPACITY];
+    private final short[] objects = new short[CAPACITY];
+    private final float[] xs = new float[CAPACITY];
+    private final float[] ys = new float[CAPACITY];
+    private final float[] zs = new float[CAPACITY];
+    private int size;
+    private BukkitTask sampleTask;
+    private boolean finished;
+
+    // Players are given slots in the order given; sides are their team, or their own side in free-for-all
+    public MatchRecorder(Plugin plugin, ReplayStore store, String mapName, List<UUID> players, Map<UUID, Integer> sides,
+                         Set<UUID> livePlayers) {
+        this.plugin = plugin;
+        this.store = store;
+        this.livePlayers = livePlayers;
+        this.startTick = Bukkit.getCurrentTick();
+        this.scratch = new Location(null, 0, 0, 0);
+        this.slots = new HashMap<>(players.size() * 2);
+
+        String[] names = new String[players.size()];
+        byte[] playerSides = new byte[players.size()];
+        for (int i = 0; i < players.size(); i++) {
+            UUID playerId = players.get(i);
+            slots.put(playerId, i);
+            Player player = Bukkit.getPlayer(playerId);
+            names[i] = player != null ? player.getName() : playerId.toString();
+            playerSides[i] = sides.getOrDefault(playerId, -1).byteValue();
+        }
+        this.replayId = store.begin(mapName, System.currentTimeMillis(), players.toArray(new UUID[0]), names, playerSides);
+
+        for (int i = 0; i < players.size(); i++) {
+            int side = playerSides[i];
+            record(ReplayEvent.JOIN, i, side < 3 ? side : -1);
+        }
+    }
+
+    public String getReplayId() {
+        return replayId;
+    }
+
+    // Records the start and begins sampling positions of gliding players
+    public void start() {
+        record(ReplayEvent.MATCH_START, slots.size(), -1);
+        sampleTask = Bukkit.getScheduler().runTaskTimer(plugin, this::samplePositions, SAMPLE_INTERVAL_TICKS, SAMPLE_INTERVAL_TICKS);
+    }
+
+    public void recordDamage(UUID victim, UUID attacker, double damage) {
+        int index = record(ReplayEvent.DAMAGE, slot(victim), slot(attacker));
+        if (index >= 0) xs[index] = (float) damage;
+    }
+
+    public void recordKill(UUID victim, UUID killer) {
+        record(ReplayEvent.KILL, slot(victim), slot(killer));
+    }
+
+    public void recordElimination(UUID playerId) {
+        record(ReplayEvent.ELIMINATION, slot(playerId), -1);
+    }
+
+    public void recordRespawn(UUID playerId) {
+        record(ReplayEvent.RESPAWN, slot(playerId), -1);
+    }
+
+    // Writes the winners and hands the rest of the stream to the writer, the recorder is done afterwards
+    public void finish(Collection<UUID> winners) {
+        if (finished) return;
+        if (sampleTask != null) {
+            sampleTask.cancel();
+            sampleTask = null;
+        }
+        for (UUID winner : winners) {
+            record(ReplayEvent.WINNER, slot(winner), -1);
+        }
+        record(ReplayEvent.MATCH_END, -1, -1);
+        finished = true;
+        drain();
+        store.finish(replayId);
+    }
+
+    private void samplePositions() {
+        for (UUID playerId : livePlayers) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player == null || !player.isGliding()) continue;
+
+            player.getLocation(scratch);
+            int index = record(ReplayEvent.POSITION, slot(playerId), -1);
+            if (index >= 0) {
+                xs[index] = (float) scratch.getX();
+                ys[index] = (float) scratch.getY();
+                zs[index] = (float) scratch.getZ();
+            }
+        }
+    }
+
+    private int slot(UUID playerId) {
+        Integer slot = playerId != null ? slots.get(playerId) : null;
+        return slot != null ? slot : -1;
+    }
+
+    // Index of the new record, -1 once the match has finished
+    private int record(byte type, int subject, int object) {
+        if (finished) return -1;
+        if (size == CAPACITY) {
+            drain();
+        }
+        int index = size++;
+        types[index] = type;
+        ticks[index] = Bukkit.getCurrentTick() - startTick;
+        subjects[index] = (short) subject;
+        objects[index] = (short) object;
+        return index;
+    }
+
+    // Copies the filled part for the writer thread and starts refilling the arrays from the front
+    private void drain() {
+        if (size == 0) return;
+        store.append(replayId, new ReplayChunk(size,
+            Arrays.copyOf(types, size), Arrays.copyOf(ticks, size), Arrays.copyOf(subjects, size),
+            Arrays.copyOf(objects, size), Arrays.copyOf(xs, size), Arrays.copyOf(ys, size), Arrays.copyOf(zs, size)));
+        size = 0;
+    }
+}
@@ -0,0 +1,5 @@
+package net.sudologic.elytraDogfightsRedux.replay;
+
+// A filled slice of a recorder's arrays, owned by the writer thread once handed over
+record ReplayChunk(int size, byte[] types, int[] ticks, short[] subjects, short[] objects, float[] xs, float[] ys, float[] zs) {
+}
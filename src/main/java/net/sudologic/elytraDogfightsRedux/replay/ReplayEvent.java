@@ -0,0 +1,17 @@
+package net.sudologic.elytraDogfightsRedux.replay;
+
+// Event codes in a replay stream. Subject and object are player slots from the replay header, -1 if unused.
+public final class ReplayEvent {
+    public static final byte MATCH_START = 0; // subject: player count
+    public static final byte JOIN = 1;        // subject: player, object: team (-1 in free-for-all)
+    public static final byte DAMAGE = 2;      // subject: victim, object: attacker, x: damage
+    public static final byte KILL = 3;        // subject: victim, object: killer
+    public static final byte ELIMINATION = 4; // subject: player
+    public static final byte RESPAWN = 5;     // subject: player
+    public static final byte POSITION = 6;    // subject: player, x/y/z: location while gliding
+    public static final byte WINNER = 7;      // subject: player, one per winner just before MATCH_END
+    public static final byte MATCH_END = 8;
+
+    private ReplayEvent() {
+    }
+}
@@ -0,0 +1,316 @@
+package net.sudologic.elytraDogfightsRedux.replay;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Replay files under replays/, one gzip stream per match. A single writer thread owns every open
+// stream: recorders hand it their header and then chunks of events, and a replay only gets its final
+// name once the match has ended. Only the newest replays are kept.
+public class ReplayStore {
+    static final int MAGIC = 0x45444652; // "EDFR"
+    static final short VERSION = 1;
+    private static final String EXTENSION = ".edr.gz";
+    private static final String PARTIAL_EXTENSION = ".edr.gz.part";
+    private static final int MAX_REPLAYS = 200;
+
+    private final Plugin plugin;
+    private final Path replayFolder;
+    private final ExecutorService ioExecutor;
+    private final SimpleDateFormat idFormat; // Main thread only
+    private final Set<String> reserved; // Main thread only, ids of replays still being written
+
+    // Writer thread only
+    private final Map<String, DataOutputStream> open;
+
+    public ReplayStore(Plugin plugin) {
+        this.plugin = plugin;
+        this.replayFolder = new File(plugin.getDataFolder(), "replays").toPath();
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ElytraDogfights-replays");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.idFormat = new SimpleDateFormat("yyyyMMdd-HHmmss");
+        this.reserved = new HashSet<>();
+        this.open = new HashMap<>();
+    }
+
+    public void start() {
+        ioExecutor.execute(() -> {
+            // Matches cut off by a crash are not kept, a clean shutdown finishes them
+            try {
+                Files.createDirectories(replayFolder);
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(replayFolder, "*" + PARTIAL_EXTENSION)) {
+                    for (Path file : files) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not clean up the replay folder", e);
+            }
+        });
+    }
+
+    // Closes every replay still being written and stops the writer thread, used on shutdown
+    public void stop() {
+        ioExecutor.execute(() -> {
+            for (String id : new ArrayList<>(open.keySet())) {
+                close(id);
+            }
+        });
+        ioExecutor.shutdown();
+        try {
+            ioExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Opens a new replay and writes its header, returns the id the recorder appends to
+    String begin(String mapName, long startedAtMillis, UUID[] players, String[] names, byte[] sides) {
+        String id = idFormat.format(new Date(startedAtMillis)) + "-" + mapName.replaceAll("[^A-Za-z0-9_-]", "_");
+        String uniqueId = id;
+        for (int suffix = 2; isTaken(uniqueId); suffix++) {
+            uniqueId = id + "-" + suffix;
+        }
+        String replayId = uniqueId;
+        reserved.add(replayId);
+        execute(() -> {
+            try {
+                Files.createDirectories(replayFolder);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(
+                    Files.newOutputStream(replayFolder.resolve(replayId + PARTIAL_EXTENSION)), 8192)));
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeUTF(mapName);
+                out.writeLong(startedAtMillis);
+                out.writeShort(players.length);
+                for (int i = 0; i < players.length; i++) {
+                    out.writeLong(players[i].getMostSignificantBits());
+                    out.writeLong(players[i].getLeastSignificantBits());
+                    out.writeUTF(names[i]);
+                    out.writeByte(sides[i]);
+                }
+                open.put(replayId, out);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not start replay " + replayId, e);
+            }
+        });
+        return replayId;
+    }
+
+    void append(String replayId, ReplayChunk chunk) {
+        execute(() -> {
+            DataOutputStream out = open.get(replayId);
+            if (out == null) return; // Header failed, the replay is being dropped
+            try {
+                for (int i = 0; i < chunk.size(); i++) {
+                    byte type = chunk.types()[i];
+                    out.writeByte(type);
+                    out.writeInt(chunk.ticks()[i]);
+                    out.writeShort(chunk.subjects()[i]);
+                    out.writeShort(chunk.objects()[i]);
+                    // Only positions and damage carry values, everything else is eight bytes
+                    if (type == ReplayEvent.POSITION) {
+                        out.writeFloat(chunk.xs()[i]);
+                        out.writeFloat(chunk.ys()[i]);
+                        out.writeFloat(chunk.zs()[i]);
+                    } else if (type == ReplayEvent.DAMAGE) {
+                        out.writeFloat(chunk.xs()[i]);
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not write replay " + replayId + ", dropping it", e);
+                discard(replayId);
+            }
+        });
+    }
+
+    void finish(String replayId) {
+        execute(() -> {
+            close(replayId);
+            prune();
+        });
+    }
+
+    // Ids of the stored replays, newest first, the callback runs on the main thread
+    public void list(Consumer<List<String>> callback) {
+        execute(() -> {
+            List<String> ids = new ArrayList<>();
+            for (Path file : listFinished()) {
+                String name = file.getFileName().toString();
+                ids.add(name.substring(0, name.length() - EXTENSION.length()));
+            }
+            Collections.reverse(ids);
+            runOnMainThread(() -> callback.accept(ids));
+        });
+    }
+
+    // Reads a replay back into a summary, the callback runs on the main thread with null if it does not exist
+    public void summarize(String replayId, Consumer<ReplaySummary> callback) {
+        execute(() -> {
+            Path file = replayFolder.resolve(replayId + EXTENSION);
+            ReplaySummary summary = null;
+            if (!replayId.contains("/") && !replayId.contains("\\") && Files.isRegularFile(file)) {
+                try {
+                    summary = read(replayId, file);
+                } catch (IOException e) {
+                    plugin.getLogger().log(Level.WARNING, "Could not read replay " + replayId, e);
+                }
+            }
+            ReplaySummary result = summary;
+            runOnMainThread(() -> callback.accept(result));
+        });
+    }
+
+    private ReplaySummary read(String replayId, Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a replay file");
+            short version = in.readShort();
+            if (version != VERSION) throw new IOException("Unsupported replay version " + version);
+            String mapName = in.readUTF();
+            long startedAtMillis = in.readLong();
+            int playerCount = in.readShort();
+            List<String> players = new ArrayList<>(playerCount);
+            for (int i = 0; i < playerCount; i++) {
+                in.readLong();
+                in.readLong();
+                players.add(in.readUTF());
+                in.readByte();
+            }
+
+            int[] kills = new int[playerCount];
+            int[] deaths = new int[playerCount];
+            List<String> winners = new ArrayList<>();
+            int positionSamples = 0;
+            int damageEvents = 0;
+            int lastTick = 0;
+            boolean complete = false;
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                int tick = in.readInt();
+                int subject = in.readShort();
+                int object = in.readShort();
+                lastTick = tick;
+                switch (type) {
+                    case ReplayEvent.POSITION -> {
+                        in.readFloat();
+                        in.readFloat();
+                        in.readFloat();
+                        positionSamples++;
+                    }
+                    case ReplayEvent.DAMAGE -> {
+                        in.readFloat();
+                        damageEvents++;
+                    }
+                    case ReplayEvent.KILL -> {
+                        if (object >= 0 && object < playerCount) kills[object]++;
+                        if (subject >= 0 && subject < playerCount) deaths[subject]++;
+                    }
+                    case ReplayEvent.WINNER -> {
+                        if (subject >= 0 && subject < playerCount) winners.add(players.get(subject));
+                    }
+                    case ReplayEvent.MATCH_END -> complete = true;
+                    default -> {
+                        // Joins, eliminations and respawns carry nothing the summary counts
+                    }
+                }
+            }
+            return new ReplaySummary(replayId, mapName, startedAtMillis, lastTick, players, kills, deaths,
+                positionSamples, damageEvents, winners, complete);
+        }
+    }
+
+    private void close(String replayId) {
+        DataOutputStream out = open.remove(replayId);
+        if (out == null) return;
+        Path partial = replayFolder.resolve(replayId + PARTIAL_EXTENSION);
+        Path finished = replayFolder.resolve(replayId + EXTENSION);
+        try {
+            out.close();
+            try {
+                Files.move(partial, finished, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partial, finished, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not finish replay " + replayId, e);
+        }
+        runOnMainThread(() -> reserved.remove(replayId));
+    }
+
+    private void discard(String replayId) {
+        DataOutputStream out = open.remove(replayId);
+        try {
+            if (out != null) out.close();
+            Files.deleteIfExists(replayFolder.resolve(replayId + PARTIAL_EXTENSION));
+        } catch (IOException ignored) {
+            // Already failing, the partial file is removed on the next start
+        }
+        runOnMainThread(() -> reserved.remove(replayId));
+    }
+
+    // Deletes the oldest replays beyond the limit, ids start with their timestamp so names sort by age
+    private void prune() {
+        List<Path> files = listFinished();
+        for (int i = 0; i < files.size() - MAX_REPLAYS; i++) {
+            try {
+                Files.deleteIfExists(files.get(i));
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not delete old replay " + files.get(i).getFileName(), e);
+            }
+        }
+    }
+
+    private List<Path> listFinished() {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(replayFolder)) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(replayFolder, "*" + EXTENSION)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not list replays", e);
+        }
+        files.sort(Comparator.comparing(file -> file.getFileName().toString()));
+        return files;
+    }
+
+    // Two instances of a map can start in the same second, ids still being written are reserved
+    private boolean isTaken(String replayId) {
+        return reserved.contains(replayId) || Files.exists(replayFolder.resolve(replayId + EXTENSION));
+    }
+
+    private void execute(Runnable task) {
+        if (!ioExecutor.isShutdown()) {
+            ioExecutor.execute(task);
+        }
+    }
+
+    private void runOnMainThread(Runnable runnable) {
+        if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, runnable);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package net.sudologic.elytraDogfightsRedux.replay;
+
+import java.util.List;
+
+// What a replay file contains, read back for the replay command
+public record ReplaySummary(String id, String mapName, long startedAtMillis, int durationTicks, List<String> players,
+                            int[] kills, int[] deaths, int positionSamples, int damageEvents, List<String> winners, boolean complete) {
+}
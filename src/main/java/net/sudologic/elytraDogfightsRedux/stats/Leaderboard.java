@@ -0,0 +1,61 @@
+package net.sudologic.elytraDogfightsRedux.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+// Players ordered by one statistic, highest first. A change moves one entry in O(log n), reading a
+// page walks only the entries up to the end of that page. Owned by the stats writer thread.
+class Leaderboard {
+    private final StatType type;
+    private final TreeSet<Ranked> ranking;
+
+    private record Ranked(UUID playerId, long value) {
+    }
+
+    private static final Comparator<Ranked> ORDER = Comparator.comparingLong(Ranked::value).reversed()
+        .thenComparing(Ranked::playerId);
+
+    Leaderboard(StatType type) {
+        this.type = type;
+        this.ranking = new TreeSet<>(ORDER);
+    }
+
+    void rebuild(Map<UUID, PlayerStats> totals) {
+        ranking.clear();
+        for (PlayerStats row : totals.values()) {
+            ranking.add(new Ranked(row.getPlayerId(), row.get(type)));
+        }
+    }
+
+    // Moves a player from their previous value, which must be the value last given for them
+    void update(UUID playerId, long previousValue, long newValue, boolean isNew) {
+        if (!isNew) {
+            if (previousValue == newValue) return;
+            ranking.remove(new Ranked(playerId, previousValue));
+        }
+        ranking.add(new Ranked(playerId, newValue));
+    }
+
+    List<LeaderboardEntry> page(int offset, int limit, Map<UUID, PlayerStats> totals) {
+        List<LeaderboardEntry> entries = new ArrayList<>(limit);
+        Iterator<Ranked> iterator = ranking.iterator();
+        for (int i = 0; i < offset && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        while (entries.size() < limit && iterator.hasNext()) {
+            Ranked ranked = iterator.next();
+            PlayerStats row = totals.get(ranked.playerId());
+            entries.add(new LeaderboardEntry(ranked.playerId(), row != null ? row.getName() : null, ranked.value()));
+        }
+        return entries;
+    }
+
+    int size() {
+        return ranking.size();
+    }
+}
@@ -0,0 +1,6 @@
+package net.sudologic.elytraDogfightsRedux.stats;
+
+import java.util.UUID;
+
+public record LeaderboardEntry(UUID playerId, String name, long value) {
+}
@@ -0,0 +1,104 @@
+package net.sudologic.elytraDogfightsRedux.stats;
+
+import java.util.UUID;
+
+// One player's totals, or a change to them waiting to be written. Not thread-safe, every
+// instance is owned by either the main thread or the stats writer thread.
+public class PlayerStats {
+    private final UUID playerId;
+    private String name;
+    private long kills;
+    private long assists;
+    private long deaths;
+    private long wins;
+    private long losses;
+    private long matches;
+    private long timeAliveMillis;
+
+    public PlayerStats(UUID playerId, String name) {
+        this.playerId = playerId;
+        this.name = name;
+    }
+
+    public UUID getPlayerId() { return playerId; }
+    public String getName() { return name; }
+    public long getKills() { return kills; }
+    public long getAssists() { return assists; }
+    public long getDeaths() { return deaths; }
+    public long getWins() { return wins; }
+    public long getLosses() { return losses; }
+    public long getMatches() { return matches; }
+    public long getTimeAliveMillis() { return timeAliveMillis; }
+
+    public long get(StatType type) {
+        switch (type) {
+            case KILLS: return kills;
+            case ASSISTS: return assists;
+            case DEATHS: return deaths;
+            case WINS: return wins;
+            case LOSSES: return losses;
+            case MATCHES: return matches;
+            case TIME_ALIVE: return timeAliveMillis;
+            default: return 0;
+        }
+    }
+
+    void addKill() {
+        kills++;
+    }
+
+    void addAssist() {
+        assists++;
+    }
+
+    void addDeath(long aliveMillis) {
+        deaths++;
+        timeAliveMillis += aliveMillis;
+    }
+
+    void addMatch(boolean won, long aliveMillis) {
+        matches++;
+        if (won) wins++; else losses++;
+        timeAliveMillis += aliveMillis;
+    }
+
+    // Adds another row or change onto this one, the newest non-null name wins
+    void add(PlayerStats other) {
+        if (other.name != null) name = other.name;
+        kills += other.kills;
+        assists += other.assists;
+        deaths += other.deaths;
+        wins += other.wins;
+        losses += other.losses;
+        matches += other.matches;
+        timeAliveMillis += other.timeAliveMillis;
+    }
+
+    PlayerStats copy() {
+        PlayerStats copy = new PlayerStats(playerId, name);
+        copy.add(this);
+        return copy;
+    }
+
+    // Tab separated: id, name, kills, deaths, wins, losses, matches, time alive, assists
+    String toLine() {
+        return playerId + "\t" + (name != null ? name : "") + "\t" + kills + "\t" + deaths + "\t" + wins + "\t"
+            + losses + "\t" + matches + "\t" + timeAliveMillis + "\t" + assists;
+    }
+
+    static PlayerStats fromLine(String line) {
+        String[] parts = line.split("\t");
+        if (parts.length != 8 && parts.length != 9) { // Lines written before assists were tracked have 8
+            throw new IllegalArgumentException("Expected 9 fields but found " + parts.length);
+        }
+        PlayerStats stats = new PlayerStats(UUID.fromString(parts[0]), parts[1].isEmpty() ? null : parts[1]);
+        stats.kills = Long.parseLong(parts[2]);
+        stats.deaths = Long.parseLong(parts[3]);
+        stats.wins = Long.parseLong(parts[4]);
+        stats.losses = Long.parseLong(parts[5]);
+        stats.matches = Long.parseLong(parts[6]);
+        stats.timeAliveMillis = Long.parseLong(parts[7]);
+        stats.assists = parts.length > 8 ? Long.parseLong(parts[8]) : 0;
+        return stats;
+    }
+}
@@ -0,0 +1,32 @@
+package net.sudologic.elytraDogfightsRedux.stats;
+
+public enum StatType {
+    KILLS("Kills"),
+    ASSISTS("Assists"),
+    DEATHS("Deaths"),
+    WINS("Wins"),
+    LOSSES("Losses"),
+    MATCHES("Matches"),
+    TIME_ALIVE("Time Alive");
+
+    private final String displayName;
+
+    StatType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    // Accepts "kills", "time_alive", "timealive", ... case-insensitively, null if unknown
+    public static StatType fromName(String name) {
+        String normalized = name.replace("_", "").toUpperCase();
+        for (StatType type : values()) {
+            if (type.name().replace("_", "").equals(normalized)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,331 @@
+package net.sudologic.elytraDogfightsRedux.stats;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+// Player statistics kept in a snapshot file plus an append-only log of changes. The main thread only
+// touches its cache of online players' rows and a batch of pending changes; a single writer thread
+// appends each batch to the log, owns the full table of totals and answers queries about it.
+// The log is folded into a new snapshot on startup and whenever it grows past a threshold. Each
+// snapshot names its generation and only the log of that generation is replayed on top of it, so a
+// crash part way through compaction never counts a change twice.
+public class StatsStore {
+    private static final long FLUSH_INTERVAL_TICKS = 100L;
+    private static final int COMPACT_AFTER_LOG_LINES = 50_000;
+    public static final int CACHED_TOP_ENTRIES = 10; // Per statistic, readable from the main thread without a query
+
+    private final Plugin plugin;
+    private final Path dataFolder;
+    private final Path snapshotFile;
+    private final ExecutorService ioExecutor;
+
+    // Main thread only
+    private final Map<UUID, PlayerStats> online; // Loaded rows of online players
+    private final Map<UUID, PlayerStats> loading; // Changes made while a player's row is being loaded
+    private Map<UUID, PlayerStats> pending; // Changes not yet handed to the writer thread
+    private BukkitTask flushTask;
+    private volatile Runnable leaderboardListener; // Run on the main thread when a cached top list changed
+    private volatile Map<StatType, List<LeaderboardEntry>> cachedTop; // Published by the writer thread
+
+    // Writer thread only
+    private final Map<UUID, PlayerStats> totals;
+    private final Map<StatType, Leaderboard> leaderboards;
+    private long generation;
+    private int logLines;
+
+    public StatsStore(Plugin plugin) {
+        this.plugin = plugin;
+        this.dataFolder = plugin.getDataFolder().toPath();
+        this.snapshotFile = new File(plugin.getDataFolder(), "stats.dat").toPath();
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ElytraDogfights-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.online = new HashMap<>();
+        this.loading = new HashMap<>();
+        this.pending = new HashMap<>();
+        this.totals = new HashMap<>();
+        this.leaderboards = new EnumMap<>(StatType.class);
+        for (StatType type : StatType.values()) {
+            leaderboards.put(type, new Leaderboard(type));
+        }
+        this.cachedTop = Collections.emptyMap();
+    }
+
+    public void setLeaderboardListener(Runnable listener) {
+        this.leaderboardListener = listener;
+    }
+
+    public void start() {
+        ioExecutor.execute(() -> {
+            load();
+            compact();
+            // The only full rebuild, afterwards every change moves single entries
+            for (Leaderboard leaderboard : leaderboards.values()) {
+                leaderboard.rebuild(totals);
+            }
+            publishTop();
+        });
+        // Players already online, e.g. after a reload
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            loadPlayer(player);
+        }
+        flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::flush, FLUSH_INTERVAL_TICKS, FLUSH_INTERVAL_TICKS);
+    }
+
+    // Writes every pending change synchronously and stops the writer thread, used on shutdown
+    public void stop() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flush();
+        ioExecutor.shutdown();
+        try {
+            ioExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void loadPlayer(Player player) {
+        UUID playerId = player.getUniqueId();
+        if (online.containsKey(playerId) || loading.containsKey(playerId)) return;
+
+        // Changes still waiting for the writer are not in the totals the load will read
+        PlayerStats unflushed = pending.get(playerId);
+        loading.put(playerId, unflushed != null ? unflushed.copy() : new PlayerStats(playerId, player.getName()));
+
+        ioExecutor.execute(() -> {
+            PlayerStats stored = totals.get(playerId);
+            PlayerStats loaded = stored != null ? stored.copy() : new PlayerStats(playerId, null);
+            runOnMainThread(() -> {
+                PlayerStats changes = loading.remove(playerId);
+                if (changes == null) return; // Player left before the load finished
+                loaded.add(changes);
+                online.put(playerId, loaded);
+            });
+        });
+    }
+
+    public void unloadPlayer(UUID playerId) {
+        online.remove(playerId);
+        loading.remove(playerId);
+    }
+
+    public void recordKill(Player player) {
+        change(player, PlayerStats::addKill);
+    }
+
+    public void recordAssist(Player player) {
+        change(player, PlayerStats::addAssist);
+    }
+
+    public void recordDeath(Player player, long aliveMillis) {
+        change(player, stats -> stats.addDeath(aliveMillis));
+    }
+
+    public void recordMatch(Player player, boolean won, long aliveMillis) {
+        change(player, stats -> stats.addMatch(won, aliveMillis));
+    }
+
+    // Row of an online player, null until it has loaded
+    public PlayerStats getCached(UUID playerId) {
+        return online.get(playerId);
+    }
+
+    // Looks a player up by name on the writer thread, the callback runs on the main thread with null if unknown
+    public void lookup(String name, Consumer<PlayerStats> callback) {
+        ioExecutor.execute(() -> {
+            PlayerStats found = null;
+            for (PlayerStats stats : totals.values()) {
+                if (name.equalsIgnoreCase(stats.getName())) {
+                    found = stats.copy();
+                    break;
+                }
+            }
+            PlayerStats result = found;
+            runOnMainThread(() -> callback.accept(result));
+        });
+    }
+
+    // Top entries of a statistic as of the last written batch, safe to call every tick
+    public List<LeaderboardEntry> getTop(StatType type) {
+        return cachedTop.getOrDefault(type, Collections.emptyList());
+    }
+
+    // One page of a leaderboard, read on the writer thread, the callback runs on the main thread
+    public void queryPage(StatType type, int page, int pageSize, Consumer<List<LeaderboardEntry>> callback) {
+        ioExecutor.execute(() -> {
+            List<LeaderboardEntry> entries = leaderboards.get(type).page(page * pageSize, pageSize, totals);
+            runOnMainThread(() -> callback.accept(entries));
+        });
+    }
+
+    private void change(Player player, Consumer<PlayerStats> update) {
+        UUID playerId = player.getUniqueId();
+        update.accept(pending.computeIfAbsent(playerId, id -> new PlayerStats(id, player.getName())));
+
+        PlayerStats cached = online.get(playerId);
+        if (cached == null) {
+            cached = loading.get(playerId);
+        }
+        if (cached != null) {
+            update.accept(cached);
+        }
+    }
+
+    // Hands the pending changes to the writer thread
+    private void flush() {
+        if (pending.isEmpty()) return;
+        Collection<PlayerStats> batch = pending.values();
+        pending = new HashMap<>();
+        if (ioExecutor.isShutdown()) return;
+
+        ioExecutor.execute(() -> {
+            append(batch);
+            for (PlayerStats change : batch) {
+                apply(change);
+            }
+            publishTop();
+            if (logLines > COMPACT_AFTER_LOG_LINES) {
+                compact();
+            }
+        });
+    }
+
+    private void apply(PlayerStats change) {
+        PlayerStats row = totals.get(change.getPlayerId());
+        boolean isNew = row == null;
+        if (isNew) {
+            row = new PlayerStats(change.getPlayerId(), null);
+            totals.put(row.getPlayerId(), row);
+        }
+
+        StatType[] types = StatType.values();
+        long[] previous = new long[types.length];
+        for (StatType type : types) {
+            previous[type.ordinal()] = row.get(type);
+        }
+        row.add(change);
+        for (StatType type : types) {
+            leaderboards.get(type).update(row.getPlayerId(), previous[type.ordinal()], row.get(type), isNew);
+        }
+    }
+
+    // Copies the head of every leaderboard for the main thread and tells it if anything moved
+    private void publishTop() {
+        Map<StatType, List<LeaderboardEntry>> top = new EnumMap<>(StatType.class);
+        for (Map.Entry<StatType, Leaderboard> entry : leaderboards.entrySet()) {
+            top.put(entry.getKey(), List.copyOf(entry.getValue().page(0, CACHED_TOP_ENTRIES, totals)));
+        }
+        if (top.equals(cachedTop)) return;
+
+        cachedTop = top;
+        Runnable listener = leaderboardListener;
+        if (listener != null) {
+            runOnMainThread(listener);
+        }
+    }
+
+    private void append(Collection<PlayerStats> batch) {
+        try {
+            Files.createDirectories(dataFolder);
+            try (BufferedWriter writer = Files.newBufferedWriter(getLogFile(generation), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (PlayerStats change : batch) {
+                    writer.write(change.toLine());
+                    writer.newLine();
+                }
+            }
+            logLines += batch.size();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not append to " + getLogFile(generation).getFileName(), e);
+        }
+    }
+
+    private Path getLogFile(long logGeneration) {
+        return dataFolder.resolve("stats-" + logGeneration + ".log");
+    }
+
+    private void load() {
+        readInto(snapshotFile);
+        readInto(getLogFile(generation));
+    }
+
+    private void readInto(Path file) {
+        if (!Files.exists(file)) return;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                if (line.startsWith("#generation ")) {
+                    generation = Long.parseLong(line.substring("#generation ".length()).trim());
+                    continue;
+                }
+                try {
+                    PlayerStats row = PlayerStats.fromLine(line);
+                    totals.computeIfAbsent(row.getPlayerId(), id -> new PlayerStats(id, null)).add(row);
+                } catch (IllegalArgumentException e) {
+                    // A torn last line after a crash loses one batch entry, not the whole file
+                    plugin.getLogger().warning("Skipping malformed line in " + file.getFileName() + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not read " + file.getFileName(), e);
+        }
+    }
+
+    // Rewrites the snapshot from the totals and starts the log of the next generation
+    private void compact() {
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        long nextGeneration = generation + 1;
+        try {
+            Files.createDirectories(dataFolder);
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write("#generation " + nextGeneration);
+                writer.newLine();
+                for (PlayerStats row : totals.values()) {
+                    writer.write(row.toLine());
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.deleteIfExists(getLogFile(generation));
+            generation = nextGeneration;
+            logLines = 0;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not compact player statistics", e);
+        }
+    }
+
+    private void runOnMainThread(Runnable runnable) {
+        if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, runnable);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package net.sudologic.elytraDogfightsRedux.status;
+
+// Minimal streaming JSON builder for the status endpoint. Callers open and close objects and arrays
+// themselves, commas between members are inserted automatically.
+class JsonWriter {
+    private final StringBuilder builder;
+    private boolean needsComma;
+
+    JsonWriter() {
+        this.builder = new StringBuilder(1024);
+    }
+
+    JsonWriter beginObject() {
+        separate();
+        builder.append('{');
+        needsComma = false;
+        return this;
+    }
+
+    JsonWriter endObject() {
+        builder.append('}');
+        needsComma = true;
+        return this;
+    }
+
+    JsonWriter beginArray() {
+        separate();
+        builder.append('[');
+        needsComma = false;
+        return this;
+    }
+
+    JsonWriter endArray() {
+        builder.append(']');
+        needsComma = true;
+        return this;
+    }
+
+    // Starts a member of the current object, followed by exactly one value or nested object or array
+    JsonWriter name(String name) {
+        separate();
+        quote(name);
+        builder.append(':');
+        needsComma = false;
+        return this;
+    }
+
+    JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            builder.append("null");
+        } else {
+            quote(value);
+        }
+        needsComma = true;
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        separate();
+        builder.append(value);
+        needsComma = true;
+        return this;
+    }
+
+    JsonWriter value(double value) {
+        separate();
+        // JSON has no NaN or infinity
+        builder.append(Double.isFinite(value) ? Double.toString(value) : "null");
+        needsComma = true;
+        return this;
+    }
+
+    JsonWriter value(boolean value) {
+        separate();
+        builder.append(value);
+        needsComma = true;
+        return this;
+    }
+
+    // Inserts an already rendered JSON value
+    JsonWriter rawValue(String json) {
+        separate();
+        builder.append(json);
+        needsComma = true;
+        return this;
+    }
+
+    JsonWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, double value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+
+    private void separate() {
+        if (needsComma) {
+            builder.append(',');
+        }
+    }
+
+    private void quote(String text) {
+        builder.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        builder.append('"');
+    }
+}
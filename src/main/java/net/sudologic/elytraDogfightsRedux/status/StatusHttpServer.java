@@ -0,0 +1,131 @@
+package net.sudologic.elytraDogfightsRedux.status;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.sudologic.elytraDogfightsRedux.metrics.Counter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// The HTTP side of the status endpoint. It holds no reference to the plugin, so request threads cannot
+// reach Bukkit: they only copy the bytes of the latest published snapshot out, and publishing is a
+// single volatile write that never waits for a request.
+final class StatusHttpServer {
+    private static final int BACKLOG = 64;
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+    private static final byte[] NOT_FOUND = "{\"error\":\"not found\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_READY = "{\"error\":\"starting\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] INDEX = ("{\"endpoints\":[\"/status\",\"/sessions\",\"/maps\",\"/metrics\",\"/metrics.prom\"]}")
+        .getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Counter requests;
+    private volatile Snapshot snapshot;
+
+    // Binds the port right away, requests are answered once start() is called
+    StatusHttpServer(String bindAddress, int port, Counter requests) throws IOException {
+        enableNoDelay();
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), BACKLOG);
+        this.requests = requests;
+        // Requests only copy bytes out, a virtual thread each is cheaper than sizing a pool
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    // The JDK server flushes the headers before the body is written, so without TCP_NODELAY every request
+    // after the first on a keep-alive connection waits out the client's delayed ACK, about 40ms. The
+    // property is process-wide: the JDK reads it once, when the first HttpServer in the JVM is created, and
+    // it applies to every other plugin's JDK HttpServer as well. Only set when the endpoint is enabled, and
+    // never over a value the server operator passed on the command line.
+    private static void enableNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void publish(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    // Runs on a virtual thread, only reads the published snapshot
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.increment();
+            String method = exchange.getRequestMethod();
+            boolean head = method.equals("HEAD");
+            if (!head && !method.equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            Snapshot current = snapshot;
+            int status = 200;
+            String type = JSON;
+            byte[] body;
+            if (current == null) {
+                status = 503;
+                body = NOT_READY;
+            } else {
+                switch (exchange.getRequestURI().getPath()) {
+                    case "/" -> body = INDEX;
+                    case "/status" -> body = current.status();
+                    case "/sessions" -> body = current.sessions();
+                    case "/maps" -> body = current.maps();
+                    case "/metrics" -> body = current.metricsJson();
+                    case "/metrics.prom" -> {
+                        body = current.metricsText();
+                        type = PROMETHEUS;
+                    }
+                    default -> {
+                        status = 404;
+                        body = NOT_FOUND;
+                    }
+                }
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", type);
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            if (head) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Response bodies of one publish, never modified after it is handed to request threads
+    record Snapshot(byte[] status, byte[] sessions, byte[] maps, byte[] metricsJson, byte[] metricsText) {
+    }
+}
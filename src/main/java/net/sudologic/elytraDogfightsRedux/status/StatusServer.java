@@ -0,0 +1,222 @@
+package net.sudologic.elytraDogfightsRedux.status;
+
+import net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux;
+import net.sudologic.elytraDogfightsRedux.config.DogfightMap;
+import net.sudologic.elytraDogfightsRedux.game.ArenaPool;
+import net.sudologic.elytraDogfightsRedux.game.Session;
+import net.sudologic.elytraDogfightsRedux.game.SessionState;
+import net.sudologic.elytraDogfightsRedux.metrics.Counter;
+import net.sudologic.elytraDogfightsRedux.metrics.Histogram;
+import net.sudologic.elytraDogfightsRedux.telemetry.TelemetrySummary;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+// Opt-in HTTP endpoint serving session state, metrics and per-map figures as JSON for monitoring.
+// Request threads never touch Bukkit: the main thread renders every response body into a snapshot
+// and hands it to StatusHttpServer, and requests only copy the latest snapshot's bytes out.
+// Session state is published every tick; metrics and maps, which cost more to render, once a second.
+// The main thread's share is recorded in edf_status_publish_seconds, whatever the request rate.
+public class StatusServer {
+    private static final long SLOW_PUBLISH_TICKS = 20L;
+    private static final long TELEMETRY_REFRESH_TICKS = 100L;
+
+    private final ElytraDogfightsRedux plugin;
+    private final Counter requests;
+    private final Histogram publishTime;
+    private final Map<String, TelemetrySummary> telemetry; // Main thread only, map name -> latest summary
+    private StatusHttpServer server;
+    private BukkitTask publishTask;
+    private long ticksSinceSlowPublish;
+    private long ticksSinceTelemetryRefresh;
+    private byte[] maps; // Main thread only, reused until the next slow publish
+    private byte[] metricsJson;
+    private byte[] metricsText;
+
+    public StatusServer(ElytraDogfightsRedux plugin) {
+        this.plugin = plugin;
+        this.requests = plugin.getMetrics().counter("edf_http_requests_total", "Requests served by the status endpoint");
+        this.publishTime = plugin.getMetrics().histogram("edf_status_publish_seconds",
+            "Time spent rendering and publishing the status endpoint's snapshot on the main thread", Histogram.NANOS);
+        this.telemetry = new HashMap<>();
+    }
+
+    // Listens on the configured port, does nothing if the endpoint is turned off
+    public void start() {
+        open(plugin.getConfigManager().getHttpPort());
+    }
+
+    public void stop() {
+        if (publishTask != null) {
+            publishTask.cancel();
+            publishTask = null;
+        }
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+    }
+
+    // Moves the endpoint to another port, 0 turns it off. False and the old port kept if the new one cannot be bound.
+    public boolean setPort(int port) {
+        int oldPort = plugin.getConfigManager().getHttpPort();
+        stop();
+        if (!open(port)) {
+            open(oldPort);
+            return false;
+        }
+        plugin.getConfigManager().setHttpPort(port);
+        return true;
+    }
+
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    // Address the endpoint listens on, null if it is turned off
+    public String getAddress() {
+        if (server == null) return null;
+        InetSocketAddress address = server.getAddress();
+        return address.getHostString() + ":" + address.getPort();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    private boolean open(int port) {
+        if (port <= 0) return true;
+
+        String bindAddress = plugin.getConfigManager().getHttpBindAddress();
+        try {
+            server = new StatusHttpServer(bindAddress, port, requests);
+        } catch (IOException | IllegalArgumentException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not start the status endpoint on " + bindAddress + ":" + port, e);
+            server = null;
+            return false;
+        }
+
+        // Render everything once so the first request already has an answer
+        ticksSinceSlowPublish = SLOW_PUBLISH_TICKS;
+        ticksSinceTelemetryRefresh = TELEMETRY_REFRESH_TICKS;
+        publish();
+        publishTask = Bukkit.getScheduler().runTaskTimer(plugin, this::publish, 1L, 1L);
+        server.start();
+        plugin.getLogger().info("Status endpoint listening on http://" + getAddress() + "/");
+        return true;
+    }
+
+    private void publish() {
+        long start = System.nanoTime();
+        if (++ticksSinceTelemetryRefresh >= TELEMETRY_REFRESH_TICKS) {
+            ticksSinceTelemetryRefresh = 0;
+            plugin.getTelemetry().getAggregator().list(summaries -> {
+                telemetry.clear();
+                for (TelemetrySummary summary : summaries) {
+                    telemetry.put(summary.mapName().toLowerCase(), summary);
+                }
+            });
+        }
+        if (++ticksSinceSlowPublish >= SLOW_PUBLISH_TICKS) {
+            ticksSinceSlowPublish = 0;
+            maps = renderMaps().getBytes(StandardCharsets.UTF_8);
+            metricsJson = plugin.getMetrics().renderJson().getBytes(StandardCharsets.UTF_8);
+            metricsText = plugin.getMetrics().renderPrometheus().getBytes(StandardCharsets.UTF_8);
+        }
+
+        String sessions = renderSessions(plugin.getSessionManager().getAllSessions());
+        JsonWriter status = new JsonWriter().beginObject()
+            .field("server", plugin.getConfigManager().getServerName())
+            .field("tick", Bukkit.getCurrentTick())
+            .field("publishedAt", System.currentTimeMillis())
+            .field("online", Bukkit.getOnlinePlayers().size())
+            .field("matchmakingQueue", plugin.getMatchmaker().getQueueSize())
+            .field("activeSessions", plugin.getSessionManager().getActiveSessionCount())
+            .name("sessions").rawValue(sessions)
+            .endObject();
+
+        server.publish(new StatusHttpServer.Snapshot(status.toString().getBytes(StandardCharsets.UTF_8),
+            sessions.getBytes(StandardCharsets.UTF_8), maps, metricsJson, metricsText));
+        publishTime.record(System.nanoTime() - start);
+    }
+
+    static String renderSessions(Collection<Session> sessions) {
+        JsonWriter json = new JsonWriter().beginArray();
+        for (Session session : sessions) {
+            json.beginObject()
+                .field("map", session.getMap().getName())
+                .field("instance", session.getInstanceIndex())
+                .field("name", session.getDisplayName())
+                .field("state", session.getState().name())
+                .field("queued", session.getQueuedPlayerCount())
+                .field("active", session.getActivePlayerCount())
+                .field("required", session.getRequiredPlayers())
+                .field("spectators", session.getSpectatorCount());
+            if (session.getState() == SessionState.ACTIVE) {
+                json.field("remainingSeconds", session.getRemainingSeconds());
+            } else if (session.getState() == SessionState.RESETTING) {
+                json.field("resetProgress", session.getResetProgress());
+            }
+            json.endObject();
+        }
+        return json.endArray().toString();
+    }
+
+    private String renderMaps() {
+        var sessionManager = plugin.getSessionManager();
+        JsonWriter json = new JsonWriter().beginArray();
+        for (DogfightMap map : plugin.getConfigManager().getMaps()) {
+            int queued = 0;
+            int active = 0;
+            int spectators = 0;
+            int instances = 0;
+            int busy = 0;
+            ArenaPool pool = sessionManager.getPool(map.getName());
+            if (pool != null) {
+                for (Session session : pool.getInstances()) {
+                    queued += session.getQueuedPlayerCount();
+                    active += session.getActivePlayerCount();
+                    spectators += session.getSpectatorCount();
+                }
+                instances = pool.getInstances().size();
+                busy = pool.getBusyCount();
+            }
+
+            json.beginObject()
+                .field("name", map.getName())
+                .field("world", map.getWorldName())
+                .field("teamConfig", map.getTeamConfig().name())
+                .field("maxInstances", pool != null ? pool.getMaxInstances() : map.getMaxInstances())
+                .field("openInstances", instances)
+                .field("busyInstances", busy)
+                .field("queued", queued)
+                .field("active", active)
+                .field("spectators", spectators);
+
+            TelemetrySummary summary = telemetry.get(map.getName().toLowerCase());
+            json.name("telemetry");
+            if (summary == null) {
+                json.value((String) null);
+            } else {
+                json.beginObject()
+                    .field("samples", summary.samples())
+                    .field("glidingShare", summary.getGlidingShare())
+                    .field("averageSpeed", summary.averageSpeed())
+                    .field("maxSpeed", summary.maxSpeed())
+                    .field("averageAltitude", summary.averageAltitude())
+                    .field("minAltitude", summary.minAltitude())
+                    .field("maxAltitude", summary.maxAltitude())
+                    .endObject();
+            }
+            json.endObject();
+        }
+        return json.endArray().toString();
+    }
+}
@@ -0,0 +1,116 @@
+package net.sudologic.elytraDogfightsRedux.telemetry;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+// Fixed-size grid of samples over one map's box seen from above. Large maps get coarser cells rather
+// than more of them, so a heatmap never grows past MAX_CELLS_PER_AXIS squared. Aggregator thread only.
+final class MapHeatmap {
+    static final int MAX_CELLS_PER_AXIS = 128;
+    private static final int IMAGE_SIZE = 512;
+
+    private final String mapName;
+    private final int sizeX, sizeZ;
+    private final int cellSize; // Blocks per cell along each axis
+    private final int gridX, gridZ;
+    private final int[] counts; // [cellZ * gridX + cellX]
+    private final double[] speedSums; // Doubles so long-running cells keep adding small speeds accurately
+
+    private long samples;
+    private long glidingSamples;
+    private double speedSum;
+    private double altitudeSum;
+    private float maxSpeed;
+    private float minAltitude = Float.POSITIVE_INFINITY;
+    private float maxAltitude = Float.NEGATIVE_INFINITY;
+
+    MapHeatmap(String mapName, int sizeX, int sizeZ) {
+        this.mapName = mapName;
+        this.sizeX = sizeX;
+        this.sizeZ = sizeZ;
+        int longest = Math.max(sizeX, sizeZ);
+        this.cellSize = Math.max(1, (longest + MAX_CELLS_PER_AXIS - 1) / MAX_CELLS_PER_AXIS);
+        this.gridX = (sizeX + cellSize - 1) / cellSize;
+        this.gridZ = (sizeZ + cellSize - 1) / cellSize;
+        this.counts = new int[gridX * gridZ];
+        this.speedSums = new double[gridX * gridZ];
+    }
+
+    boolean hasSize(int sizeX, int sizeZ) {
+        return this.sizeX == sizeX && this.sizeZ == sizeZ;
+    }
+
+    String getMapName() {
+        return mapName;
+    }
+
+    // x and z relative to the box's low corner, y absolute
+    void add(float x, float y, float z, float speed, boolean gliding) {
+        // Players briefly outside the box count towards the edge
+        int cellX = Math.min(gridX - 1, Math.max(0, (int) x / cellSize));
+        int cellZ = Math.min(gridZ - 1, Math.max(0, (int) z / cellSize));
+        int cell = cellZ * gridX + cellX;
+        counts[cell]++;
+        speedSums[cell] += speed;
+
+        samples++;
+        if (gliding) glidingSamples++;
+        speedSum += speed;
+        altitudeSum += y;
+        maxSpeed = Math.max(maxSpeed, speed);
+        minAltitude = Math.min(minAltitude, y);
+        maxAltitude = Math.max(maxAltitude, y);
+    }
+
+    TelemetrySummary summarize() {
+        if (samples == 0) {
+            return new TelemetrySummary(mapName, 0, 0, 0, 0, 0, 0, 0);
+        }
+        return new TelemetrySummary(mapName, samples, glidingSamples, speedSum / samples, maxSpeed,
+            altitudeSum / samples, minAltitude, maxAltitude);
+    }
+
+    // One row per visited cell, coordinates of the cell's corner relative to the box
+    void writeCsv(Writer writer) throws IOException {
+        writer.write("x,z,samples,average_speed\n");
+        for (int cellZ = 0; cellZ < gridZ; cellZ++) {
+            for (int cellX = 0; cellX < gridX; cellX++) {
+                int cell = cellZ * gridX + cellX;
+                if (counts[cell] == 0) continue;
+                writer.write((cellX * cellSize) + "," + (cellZ * cellSize) + "," + counts[cell] + ","
+                    + String.format(Locale.ROOT, "%.2f", speedSums[cell] / counts[cell]) + "\n");
+            }
+        }
+    }
+
+    // Log-scaled from dark blue for rarely visited cells to red for the busiest, unvisited cells black
+    BufferedImage render() {
+        int scale = Math.max(1, IMAGE_SIZE / Math.max(gridX, gridZ));
+        BufferedImage image = new BufferedImage(gridX * scale, gridZ * scale, BufferedImage.TYPE_INT_RGB);
+        int busiest = 0;
+        for (int count : counts) {
+            busiest = Math.max(busiest, count);
+        }
+        double logBusiest = Math.log1p(busiest);
+
+        for (int cellZ = 0; cellZ < gridZ; cellZ++) {
+            for (int cellX = 0; cellX < gridX; cellX++) {
+                int count = counts[cellZ * gridX + cellX];
+                int rgb = 0;
+                if (count > 0) {
+                    float heat = (float) (Math.log1p(count) / logBusiest);
+                    rgb = Color.HSBtoRGB(0.66f * (1 - heat), 1f, 0.4f + 0.6f * heat);
+                }
+                for (int py = 0; py < scale; py++) {
+                    for (int px = 0; px < scale; px++) {
+                        image.setRGB(cellX * scale + px, cellZ * scale + py, rgb);
+                    }
+                }
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,158 @@
+package net.sudologic.elytraDogfightsRedux.telemetry;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+// Folds sample buffers into per-map heatmaps on its own thread and writes exports under telemetry/.
+// The heatmaps live only in memory and start over when the server restarts.
+public class TelemetryAggregator {
+    // short map id, float x, float y, float z, float speed, byte gliding
+    static final int SAMPLE_BYTES = 2 + 4 * 4 + 1;
+
+    private final Plugin plugin;
+    private final Path exportFolder;
+    private final ExecutorService executor;
+
+    // Aggregator thread only
+    private final Map<Integer, MapHeatmap> heatmaps; // Map id -> heatmap
+    private final Map<String, MapHeatmap> heatmapsByName;
+
+    TelemetryAggregator(Plugin plugin) {
+        this.plugin = plugin;
+        this.exportFolder = new File(plugin.getDataFolder(), "telemetry").toPath();
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ElytraDogfights-telemetry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heatmaps = new HashMap<>();
+        this.heatmapsByName = new HashMap<>();
+    }
+
+    void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // A map seen for the first time, or whose box changed size and starts a fresh heatmap
+    void register(int mapId, String mapName, int sizeX, int sizeZ) {
+        execute(() -> {
+            MapHeatmap existing = heatmaps.get(mapId);
+            if (existing != null && existing.hasSize(sizeX, sizeZ)) return;
+            MapHeatmap heatmap = new MapHeatmap(mapName, sizeX, sizeZ);
+            heatmaps.put(mapId, heatmap);
+            heatmapsByName.put(mapName.toLowerCase(), heatmap);
+        });
+    }
+
+    // Reads a flipped buffer of samples, then hands it back through release
+    void submit(ByteBuffer buffer, Consumer<ByteBuffer> release) {
+        if (executor.isShutdown()) {
+            buffer.clear();
+            release.accept(buffer);
+            return;
+        }
+        executor.execute(() -> {
+            while (buffer.remaining() >= SAMPLE_BYTES) {
+                MapHeatmap heatmap = heatmaps.get((int) buffer.getShort());
+                float x = buffer.getFloat();
+                float y = buffer.getFloat();
+                float z = buffer.getFloat();
+                float speed = buffer.getFloat();
+                boolean gliding = buffer.get() != 0;
+                if (heatmap != null) {
+                    heatmap.add(x, y, z, speed, gliding);
+                }
+            }
+            buffer.clear();
+            release.accept(buffer);
+        });
+    }
+
+    // Every map with samples, busiest first, the callback runs on the main thread
+    public void list(Consumer<List<TelemetrySummary>> callback) {
+        execute(() -> {
+            List<TelemetrySummary> summaries = new ArrayList<>();
+            for (MapHeatmap heatmap : heatmapsByName.values()) {
+                summaries.add(heatmap.summarize());
+            }
+            summaries.sort(Comparator.comparingLong(TelemetrySummary::samples).reversed());
+            runOnMainThread(() -> callback.accept(summaries));
+        });
+    }
+
+    // The callback runs on the main thread with null if the map has no samples
+    public void summarize(String mapName, Consumer<TelemetrySummary> callback) {
+        execute(() -> {
+            MapHeatmap heatmap = heatmapsByName.get(mapName.toLowerCase());
+            TelemetrySummary summary = heatmap != null ? heatmap.summarize() : null;
+            runOnMainThread(() -> callback.accept(summary));
+        });
+    }
+
+    // Writes telemetry/<map>-heatmap.csv or .png, the callback runs on the main thread with the file or null
+    public void export(String mapName, boolean png, Consumer<Path> callback) {
+        execute(() -> {
+            MapHeatmap heatmap = heatmapsByName.get(mapName.toLowerCase());
+            Path written = null;
+            if (heatmap != null) {
+                String fileName = heatmap.getMapName().replaceAll("[^A-Za-z0-9_-]", "_") + "-heatmap" + (png ? ".png" : ".csv");
+                Path file = exportFolder.resolve(fileName);
+                Path temp = exportFolder.resolve(fileName + ".tmp");
+                try {
+                    Files.createDirectories(exportFolder);
+                    if (png) {
+                        ImageIO.write(heatmap.render(), "png", temp.toFile());
+                    } else {
+                        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                            heatmap.writeCsv(writer);
+                        }
+                    }
+                    try {
+                        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    written = file;
+                } catch (IOException e) {
+                    plugin.getLogger().log(Level.SEVERE, "Could not export telemetry for " + mapName, e);
+                }
+            }
+            Path result = written;
+            runOnMainThread(() -> callback.accept(result));
+        });
+    }
+
+    private void execute(Runnable task) {
+        if (!executor.isShutdown()) {
+            executor.execute(task);
+        }
+    }
+
+    private void runOnMainThread(Runnable runnable) {
+        if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, runnable);
+        }
+    }
+}
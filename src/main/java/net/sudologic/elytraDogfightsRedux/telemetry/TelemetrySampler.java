@@ -0,0 +1,196 @@
+package net.sudologic.elytraDogfightsRedux.telemetry;
+
+import net.sudologic.elytraDogfightsRedux.ElytraDogfightsRedux;
+import net.sudologic.elytraDogfightsRedux.config.ArenaBounds;
+import net.sudologic.elytraDogfightsRedux.game.Session;
+import net.sudologic.elytraDogfightsRedux.game.SessionState;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Samples where and how fast players in ACTIVE matches fly. Samples are packed into a small fixed set
+// of direct buffers that travel to the aggregator thread and back, so memory stays bounded however
+// long the server runs: when the aggregator falls behind and no buffer is free, samples are dropped.
+public class TelemetrySampler {
+    private static final int BUFFER_COUNT = 4;
+    private static final int SAMPLES_PER_BUFFER = 2048;
+    private static final double MAX_SPEED = 150.0; // Blocks per second, anything faster was a teleport
+
+    private final ElytraDogfightsRedux plugin;
+    private final TelemetryAggregator aggregator;
+    private final BlockingQueue<ByteBuffer> freeBuffers; // Returned by the aggregator thread
+    private final Map<String, Registration> registrations; // Map name -> id written into samples
+    private final Location scratch; // Reused for every sample
+    private final Map<UUID, LastPosition> lastPositions; // Player UUID -> where the previous sample saw them
+    private ByteBuffer current;
+    private BukkitTask sampleTask;
+    private long droppedSamples;
+
+    public TelemetrySampler(ElytraDogfightsRedux plugin) {
+        this.plugin = plugin;
+        this.aggregator = new TelemetryAggregator(plugin);
+        this.freeBuffers = new ArrayBlockingQueue<>(BUFFER_COUNT);
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            freeBuffers.add(ByteBuffer.allocateDirect(SAMPLES_PER_BUFFER * TelemetryAggregator.SAMPLE_BYTES));
+        }
+        this.registrations = new HashMap<>();
+        this.scratch = new Location(null, 0, 0, 0);
+        this.lastPositions = new HashMap<>();
+    }
+
+    public void start() {
+        stop();
+        int interval = plugin.getConfigManager().getTelemetryInterval();
+        if (interval > 0) {
+            sampleTask = Bukkit.getScheduler().runTaskTimer(plugin, this::sample, interval, interval);
+        }
+    }
+
+    public void stop() {
+        if (sampleTask != null) {
+            sampleTask.cancel();
+            sampleTask = null;
+        }
+        lastPositions.clear();
+    }
+
+    // Stops the aggregator thread as well, used on shutdown
+    public void shutdown() {
+        stop();
+        aggregator.shutdown();
+    }
+
+    public void setInterval(int ticks) {
+        plugin.getConfigManager().setTelemetryInterval(ticks);
+        start();
+    }
+
+    public int getInterval() {
+        return plugin.getConfigManager().getTelemetryInterval();
+    }
+
+    public long getDroppedSamples() {
+        return droppedSamples;
+    }
+
+    public TelemetryAggregator getAggregator() {
+        return aggregator;
+    }
+
+    private void sample() {
+        if (plugin.getSessionManager().getActiveSessionCount() == 0) {
+            lastPositions.clear();
+            return;
+        }
+
+        int tick = Bukkit.getCurrentTick();
+
+        for (Session session : plugin.getSessionManager().getAllSessions()) {
+            if (session.getState() != SessionState.ACTIVE) continue;
+            ArenaBounds bounds = session.getMap().getBounds();
+            if (bounds == null) continue;
+
+            int mapId = getMapId(session.getMap().getName(), bounds);
+            for (UUID playerId : session.getActivePlayerView()) {
+                Player player = Bukkit.getPlayer(playerId);
+                if (player == null) continue;
+                if (current == null || !current.hasRemaining()) {
+                    hand();
+                    current = freeBuffers.poll();
+                    if (current == null) {
+                        droppedSamples++;
+                        continue;
+                    }
+                }
+
+                // Instances are shifted copies, positions relative to the box line them all up
+                player.getLocation(scratch);
+                current.putShort((short) mapId);
+                current.putFloat((float) (scratch.getX() - bounds.getMinX()));
+                current.putFloat((float) scratch.getY());
+                current.putFloat((float) (scratch.getZ() - bounds.getMinZ()));
+                current.putFloat((float) speed(playerId, player, tick)); // Blocks per second
+                current.put(player.isGliding() ? (byte) 1 : (byte) 0);
+            }
+        }
+        hand();
+
+        // Forget players that were not sampled this run, they left the match
+        lastPositions.values().removeIf(last -> last.tick != tick);
+    }
+
+    // The server does not know the velocity of client-driven elytra flight, so speed is the distance
+    // flown since the player's previous sample. Falls back to the reported velocity for a player's
+    // first sample and after a teleport.
+    private double speed(UUID playerId, Player player, int tick) {
+        LastPosition last = lastPositions.get(playerId);
+        if (last == null) {
+            last = new LastPosition();
+            lastPositions.put(playerId, last);
+        } else if (last.world == scratch.getWorld() && tick > last.tick) {
+            double dx = scratch.getX() - last.x;
+            double dy = scratch.getY() - last.y;
+            double dz = scratch.getZ() - last.z;
+            double speed = Math.sqrt(dx * dx + dy * dy + dz * dz) * 20.0 / (tick - last.tick);
+            last.set(scratch, tick);
+            if (speed <= MAX_SPEED) {
+                return speed;
+            }
+            return player.getVelocity().length() * 20.0;
+        }
+        last.set(scratch, tick);
+        return player.getVelocity().length() * 20.0;
+    }
+
+    // Gives the filled buffer to the aggregator, it comes back to the free list once read
+    private void hand() {
+        if (current == null || current.position() == 0) return;
+        ByteBuffer filled = current;
+        current = null;
+        filled.flip();
+        aggregator.submit(filled, freeBuffers::offer);
+    }
+
+    // Tells the aggregator about new maps and about maps whose box changed size
+    private int getMapId(String mapName, ArenaBounds bounds) {
+        int sizeX = bounds.getMaxX() - bounds.getMinX() + 1;
+        int sizeZ = bounds.getMaxZ() - bounds.getMinZ() + 1;
+        Registration registration = registrations.get(mapName);
+        if (registration == null || registration.sizeX() != sizeX || registration.sizeZ() != sizeZ) {
+            int id = registration != null ? registration.id() : registrations.size();
+            registration = new Registration(id, sizeX, sizeZ);
+            registrations.put(mapName, registration);
+            aggregator.register(id, mapName, sizeX, sizeZ);
+        }
+        return registration.id();
+    }
+
+    private record Registration(int id, int sizeX, int sizeZ) {
+    }
+
+    // Mutable so a sample does not allocate
+    private static final class LastPosition {
+        private World world;
+        private double x;
+        private double y;
+        private double z;
+        private int tick;
+
+        private void set(Location location, int tick) {
+            this.world = location.getWorld();
+            this.x = location.getX();
+            this.y = location.getY();
+            this.z = location.getZ();
+            this.tick = tick;
+        }
+    }
+}
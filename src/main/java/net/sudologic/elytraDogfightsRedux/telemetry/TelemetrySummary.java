@@ -0,0 +1,17 @@
+package net.sudologic.elytraDogfightsRedux.telemetry;
+
+// Flight figures of one map over everything sampled since startup, speeds in blocks per second
+public record TelemetrySummary(String mapName, long samples, long glidingSamples, double averageSpeed, double maxSpeed,
+                               double averageAltitude, double minAltitude, double maxAltitude) {
+    public double getGlidingShare() {
+        return samples > 0 ? (double) glidingSamples / samples : 0;
+    }
+
+    public String describe() {
+        if (samples == 0) {
+            return mapName + ": no samples";
+        }
+        return String.format("%s: %d samples, %.0f%% gliding, speed avg %.1f max %.1f, altitude avg %.0f (%.0f to %.0f)",
+            mapName, samples, getGlidingShare() * 100, averageSpeed, maxSpeed, averageAltitude, minAltitude, maxAltitude);
+    }
+}
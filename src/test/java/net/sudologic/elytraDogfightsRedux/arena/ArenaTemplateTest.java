@@ -0,0 +1,176 @@
+package net.sudologic.elytraDogfightsRedux.arena;
+
+import net.sudologic.elytraDogfightsRedux.config.ArenaBounds;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Templates written by ArenaTemplateWriter must read back block for block, whatever the palette size
+// and however the box cuts through sections, and a damaged file must fail to open instead of
+// resetting an arena to garbage
+class ArenaTemplateTest {
+    // Not a multiple of 16 on any axis, so every far edge has cut-short sections
+    private static final ArenaBounds BOUNDS = new ArenaBounds("arena", -40, 60, 100, -8, 77, 146);
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void singleStateRoundTrips() throws IOException {
+        ArenaTemplate template = roundTrip((x, y, z) -> "minecraft:air");
+        assertEquals(1, template.getPaletteSize());
+        for (int i = 0; i < template.getSectionCount(); i++) {
+            assertEquals(1, sectionPaletteSize(template, i));
+        }
+    }
+
+    @Test
+    void twoStatesRoundTrip() throws IOException {
+        ArenaTemplate template = roundTrip((x, y, z) -> (x + y + z) % 2 == 0 ? "minecraft:stone" : "minecraft:glass");
+        assertEquals(2, template.getPaletteSize());
+    }
+
+    @Test
+    void paletteOverOneByteRoundTrips() throws IOException {
+        // 300 states, and a full section holds all of them so its entries need 9 bits
+        ArenaTemplate template = roundTrip((x, y, z) -> "minecraft:wool" + ((x * 31 + y * 17 + z * 7) % 300));
+        assertEquals(300, template.getPaletteSize());
+        assertEquals(300, sectionPaletteSize(template, 0));
+    }
+
+    @Test
+    void mixedSectionsRoundTrip() throws IOException {
+        // Solid ground, a layer of two states, then a few structures in open air
+        roundTrip((x, y, z) -> y < 5 ? "minecraft:stone" : y < 9 ? (x % 3 == 0 ? "minecraft:dirt" : "minecraft:grass_block[snowy=false]")
+            : (x * z + y) % 37 == 0 ? "minecraft:oak_log[axis=" + "xyz".charAt(y % 3) + "]" : "minecraft:air");
+    }
+
+    @Test
+    void singleBlockBoxRoundTrips() throws IOException {
+        Path file = folder.resolve("single.template");
+        ArenaTemplateWriter.write(file, new ArenaBounds("arena", 5, 5, 5, 5, 5, 5), (x, y, z) -> "minecraft:stone");
+        ArenaTemplate template = ArenaTemplate.open(file);
+        assertEquals(1, template.getSectionCount());
+        assertEquals("minecraft:stone", blockAt(template, 0, 0, 0));
+    }
+
+    @Test
+    void remembersItsBox() throws IOException {
+        ArenaTemplate template = roundTrip((x, y, z) -> "minecraft:air");
+        assertTrue(template.isOf(BOUNDS));
+        assertFalse(template.isOf(new ArenaBounds("other", -40, 60, 100, -8, 77, 146)));
+        assertFalse(template.isOf(new ArenaBounds("arena", -39, 60, 100, -7, 77, 146)));
+        assertFalse(template.isOf(new ArenaBounds("arena", -40, 60, 100, -8, 78, 146)));
+    }
+
+    @Test
+    void truncatedFilesFailToOpen() throws IOException {
+        byte[] bytes = write((x, y, z) -> y < 8 ? "minecraft:stone" : (x + z) % 5 == 0 ? "minecraft:glass" : "minecraft:air");
+        Path cut = folder.resolve("cut.template");
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(cut, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> ArenaTemplate.open(cut), "opened with " + length + " of " + bytes.length + " bytes");
+        }
+    }
+
+    @Test
+    void corruptHeadersFailToOpen() throws IOException {
+        byte[] bytes = write((x, y, z) -> "minecraft:stone");
+        assertCorrupt(bytes, buffer -> buffer.putInt(0, 0xCAFEBABE));
+        assertCorrupt(bytes, buffer -> buffer.putShort(4, (short) (ArenaTemplate.VERSION - 1)));
+        assertCorrupt(bytes, buffer -> buffer.putInt(6, 0));
+        // World name length
+        assertCorrupt(bytes, buffer -> buffer.putInt(18, -1));
+        assertCorrupt(bytes, buffer -> buffer.putInt(18, Integer.MAX_VALUE));
+        // Palette offset
+        int paletteOffsetAt = 22 + "arena".length() + 12;
+        assertCorrupt(bytes, buffer -> buffer.putLong(paletteOffsetAt, 0));
+        assertCorrupt(bytes, buffer -> buffer.putLong(paletteOffsetAt, bytes.length + 1L));
+        // Palette size
+        int paletteOffset = (int) ByteBuffer.wrap(bytes).getLong(paletteOffsetAt);
+        assertCorrupt(bytes, buffer -> buffer.putInt(paletteOffset, 0));
+        assertCorrupt(bytes, buffer -> buffer.putInt(paletteOffset, -5));
+        assertCorrupt(bytes, buffer -> buffer.putInt(paletteOffset + 4, 1000));
+    }
+
+    @Test
+    void corruptIndexFailsToOpen() throws IOException {
+        byte[] bytes = write((x, y, z) -> (x + y + z) % 2 == 0 ? "minecraft:stone" : "minecraft:glass");
+        int indexStart = 22 + "arena".length() + 12 + 8;
+        int paletteOffset = (int) ByteBuffer.wrap(bytes).getLong(indexStart - 8);
+        int lastEntry = indexStart + (sectionCount() - 1) * ArenaTemplate.INDEX_ENTRY_BYTES;
+        // Data overlapping the index or running into the palette
+        assertCorrupt(bytes, buffer -> buffer.putLong(indexStart, indexStart));
+        assertCorrupt(bytes, buffer -> buffer.putLong(lastEntry, paletteOffset - 8));
+        // Local palettes larger than the template's, empty, or with the wrong entry width
+        assertCorrupt(bytes, buffer -> buffer.putInt(indexStart + 8, 3).put(indexStart + 12, (byte) 2));
+        assertCorrupt(bytes, buffer -> buffer.putInt(indexStart + 8, 0).put(indexStart + 12, (byte) 0));
+        assertCorrupt(bytes, buffer -> buffer.put(indexStart + 12, (byte) 2));
+    }
+
+    @Test
+    void mapNamesNeverShareAFile() {
+        assertEquals("sky-arena2.template", ArenaTemplateStore.getFileName("Sky-Arena2"));
+        assertNotEquals(ArenaTemplateStore.getFileName("a.b"), ArenaTemplateStore.getFileName("a_b"));
+        assertNotEquals(ArenaTemplateStore.getFileName("a_b"), ArenaTemplateStore.getFileName("a_005fb"));
+        assertFalse(ArenaTemplateStore.getFileName("../up").contains("/"));
+    }
+
+    private ArenaTemplate roundTrip(ArenaTemplateWriter.BlockSource source) throws IOException {
+        Path file = folder.resolve("map.template");
+        ArenaTemplateWriter.write(file, BOUNDS, source);
+        ArenaTemplate template = ArenaTemplate.open(file);
+        assertEquals(sectionCount(), template.getSectionCount());
+        assertTrue(template.hasSize(33, 18, 47));
+        for (int y = 0; y < 18; y++) {
+            for (int z = 0; z < 47; z++) {
+                for (int x = 0; x < 33; x++) {
+                    assertEquals(source.blockAt(x, y, z), blockAt(template, x, y, z), "block at " + x + " " + y + " " + z);
+                }
+            }
+        }
+        return template;
+    }
+
+    private byte[] write(ArenaTemplateWriter.BlockSource source) throws IOException {
+        Path file = folder.resolve("map.template");
+        ArenaTemplateWriter.write(file, BOUNDS, source);
+        return Files.readAllBytes(file);
+    }
+
+    private void assertCorrupt(byte[] bytes, Consumer<ByteBuffer> damage) throws IOException {
+        byte[] copy = bytes.clone();
+        damage.accept(ByteBuffer.wrap(copy));
+        Path file = folder.resolve("corrupt.template");
+        Files.write(file, copy);
+        assertThrows(IOException.class, () -> ArenaTemplate.open(file));
+    }
+
+    private static int sectionCount() {
+        return 3 * 2 * 3;
+    }
+
+    private static String blockAt(ArenaTemplate template, int x, int y, int z) {
+        TemplateSection section = template.getSection(template.getSectionIndex(x, y, z));
+        int localX = x - section.getOriginX();
+        int localY = y - section.getOriginY();
+        int localZ = z - section.getOriginZ();
+        int blockIndex = (localY * section.getDepth() + localZ) * section.getWidth() + localX;
+        return template.getPalette()[section.getPaletteIndex(blockIndex)];
+    }
+
+    // Distinct states a section uses, read back through its blocks
+    private static int sectionPaletteSize(ArenaTemplate template, int sectionIndex) {
+        TemplateSection section = template.getSection(sectionIndex);
+        return (int) IntStream.range(0, section.getVolume()).map(section::getPaletteIndex).distinct().count();
+    }
+}
@@ -0,0 +1,117 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+import net.sudologic.elytraDogfightsRedux.config.DogfightMap;
+import net.sudologic.elytraDogfightsRedux.config.TeamConfiguration;
+import net.sudologic.elytraDogfightsRedux.metrics.MetricsRegistry;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A map without an instance offset keeps its instance limit, and its pool pastes a second copy as soon
+// as the first instance starts its match, provided copies can be provisioned when the pool is created
+class ArenaPoolTest {
+    private static final int SLOT_SPACING = 512;
+
+    private ServerMock server;
+    private World world;
+    private World arenaWorld;
+    private boolean provisioning;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        MockBukkit.createMockPlugin("ElytraDogfightsRedux");
+        world = server.addSimpleWorld("arena");
+        arenaWorld = server.addSimpleWorld("copies");
+        provisioning = true;
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void instanceLimitSurvivesWithoutOffset() {
+        DogfightMap map = map(3);
+        assertEquals(3, map.getMaxInstances());
+        assertNull(map.getInstanceOffset());
+        assertEquals(3, DogfightMap.deserialize(map.serialize()).getMaxInstances());
+        assertEquals(3, map.withInstances(1, null).withInstances(3, null).getMaxInstances());
+    }
+
+    @Test
+    void secondInstanceIsProvisionedWhenTheFirstStarts() {
+        SessionManager sessionManager = sessionManager();
+        sessionManager.createSession(map(3));
+        ArenaPool pool = sessionManager.getPool("alpha");
+        assertEquals(3, pool.getMaxInstances());
+        assertEquals(1, pool.getInstances().size());
+
+        PlayerMock first = server.addPlayer();
+        PlayerMock second = server.addPlayer();
+        assertTrue(sessionManager.queuePlayer(first, "alpha"));
+        assertTrue(sessionManager.queuePlayer(second, "alpha"));
+        server.getScheduler().performTicks(40);
+
+        Session running = sessionManager.getPlayerSession(first.getUniqueId());
+        assertEquals(SessionState.ACTIVE, running.getState());
+        assertEquals(2, pool.getInstances().size());
+        Session copy = pool.getJoinable();
+        assertNotNull(copy);
+        assertNotSame(running, copy);
+        assertEquals(1, copy.getInstanceIndex());
+        assertEquals("copies", copy.getMap().getWorldName());
+        assertEquals(SLOT_SPACING, copy.getMap().getBounds().getMinX());
+
+        // The next players queue into the copy while the first match runs
+        PlayerMock third = server.addPlayer();
+        assertTrue(sessionManager.queuePlayer(third, "alpha"));
+        assertSame(copy, sessionManager.getPlayerSession(third.getUniqueId()));
+    }
+
+    @Test
+    void poolStaysSingleWithoutProvisioning() {
+        provisioning = false;
+        SessionManager sessionManager = sessionManager();
+        sessionManager.createSession(map(3));
+        assertEquals(1, sessionManager.getPool("alpha").getMaxInstances());
+
+        // Copies become possible later, the idle pool is rebuilt with the map's limit
+        provisioning = true;
+        sessionManager.resizePools();
+        assertEquals(3, sessionManager.getPool("alpha").getMaxInstances());
+    }
+
+    // Stands in for the arena world, pasting each copy into its own slot
+    private SessionManager sessionManager() {
+        SessionManager sessionManager = new SessionManager(new MetricsRegistry()) {
+            @Override
+            public boolean canProvisionInstances() {
+                return provisioning;
+            }
+
+            @Override
+            DogfightMap provisionInstance(DogfightMap map, int instanceIndex) {
+                return provisioning ? map.relocate(arenaWorld, instanceIndex * SLOT_SPACING, 60, 0) : null;
+            }
+        };
+        sessionManager.setCountdownDuration(1);
+        sessionManager.setGlobalSpawn(new Location(world, 0, 64, 0));
+        return sessionManager;
+    }
+
+    private DogfightMap map(int maxInstances) {
+        return new DogfightMap("alpha", new Location(world, -32, 60, -32), new Location(world, 32, 120, 32),
+            TeamConfiguration.FREE_FOR_ALL, List.of(new Location(world, 0, 100, 0)), null, maxInstances, null);
+    }
+}
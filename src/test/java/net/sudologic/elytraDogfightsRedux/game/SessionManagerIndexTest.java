@@ -0,0 +1,217 @@
+package net.sudologic.elytraDogfightsRedux.game;
+
+import net.sudologic.elytraDogfightsRedux.config.DogfightMap;
+import net.sudologic.elytraDogfightsRedux.config.TeamConfiguration;
+import net.sudologic.elytraDogfightsRedux.metrics.MetricsRegistry;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The player index in SessionManager must always agree with the sets each session keeps itself,
+// checked after every step of queueing, leaving, match start, elimination, quitting and match end
+class SessionManagerIndexTest {
+    private ServerMock server;
+    private World world;
+    private SessionManager sessionManager;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        // Sessions look their plugin up by name for scheduling, a mock plugin makes them skip stats and replays
+        MockBukkit.createMockPlugin("ElytraDogfightsRedux");
+        world = server.addSimpleWorld("arena");
+
+        sessionManager = new SessionManager(new MetricsRegistry());
+        sessionManager.setCountdownDuration(1);
+        sessionManager.setGlobalSpawn(new Location(world, 0, 64, 0));
+        sessionManager.createSession(freeForAllMap("alpha", 0));
+        sessionManager.createSession(freeForAllMap("beta", 200));
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void queueAndLeaveKeepIndexInSync() {
+        PlayerMock first = server.addPlayer();
+        PlayerMock second = server.addPlayer();
+
+        assertTrue(sessionManager.queuePlayer(first, "alpha"));
+        assertIndexConsistent();
+        assertSame(sessionManager.getSession("alpha"), sessionManager.getPlayerSession(first.getUniqueId()));
+
+        // Queueing for another map moves the player, they are never indexed against both
+        assertTrue(sessionManager.queuePlayer(first, "beta"));
+        assertIndexConsistent();
+        assertSame(sessionManager.getSession("beta"), sessionManager.getPlayerSession(first.getUniqueId()));
+        assertEquals(0, sessionManager.getSession("alpha").getQueuedPlayerCount());
+
+        assertTrue(sessionManager.queuePlayer(second, "beta"));
+        assertIndexConsistent();
+        assertEquals(SessionState.COUNTDOWN, sessionManager.getSession("beta").getState());
+
+        // Dropping below the required players cancels the countdown and unindexes the player
+        sessionManager.removePlayerFromAllSessions(first.getUniqueId());
+        assertIndexConsistent();
+        assertNull(sessionManager.getPlayerSession(first.getUniqueId()));
+        assertEquals(SessionState.WAITING, sessionManager.getSession("beta").getState());
+    }
+
+    @Test
+    void matchLifecycleKeepsIndexInSync() {
+        sessionManager.setSpectateOnElimination(true);
+        List<PlayerMock> players = List.of(server.addPlayer(), server.addPlayer(), server.addPlayer());
+        for (PlayerMock player : players) {
+            assertTrue(sessionManager.queuePlayer(player, "alpha"));
+            assertIndexConsistent();
+        }
+        Session session = sessionManager.getPlayerSession(players.get(0).getUniqueId());
+
+        // Countdown, chunk preload and the teleport batches
+        server.getScheduler().performTicks(40);
+        assertEquals(SessionState.ACTIVE, session.getState());
+        assertIndexConsistent();
+        for (PlayerMock player : players) {
+            assertTrue(sessionManager.isPlayerInActiveGame(player.getUniqueId()));
+        }
+        // Nobody can queue into a running match
+        assertFalse(sessionManager.queuePlayer(server.addPlayer(), "alpha"));
+        assertIndexConsistent();
+
+        // Elimination turns the player into a spectator of the same session
+        session.eliminatePlayer(players.get(0), "§cEliminated");
+        server.getScheduler().performOneTick();
+        assertIndexConsistent();
+        assertNull(sessionManager.getPlayerSession(players.get(0).getUniqueId()));
+        assertSame(session, sessionManager.getSpectatedSession(players.get(0).getUniqueId()));
+
+        // A quit leaves one player standing, which ends the match
+        quit(players.get(1));
+        assertIndexConsistent();
+        assertNotEquals(SessionState.ACTIVE, session.getState());
+        server.getScheduler().performOneTick();
+        assertIndexConsistent();
+        assertTrue(sessionManager.getIndexedPlayers().isEmpty());
+        assertTrue(sessionManager.getIndexedActivePlayers().isEmpty());
+        assertTrue(sessionManager.getIndexedSpectators().isEmpty());
+        assertEquals(0, sessionManager.getActiveSessionCount());
+    }
+
+    @Test
+    void endGameMidMatchReleasesEveryone() {
+        List<PlayerMock> players = List.of(server.addPlayer(), server.addPlayer(), server.addPlayer());
+        for (PlayerMock player : players) {
+            sessionManager.queuePlayer(player, "beta");
+        }
+        Session session = sessionManager.getPlayerSession(players.get(0).getUniqueId());
+        server.getScheduler().performTicks(40);
+        assertEquals(SessionState.ACTIVE, session.getState());
+
+        session.endGame();
+        assertIndexConsistent();
+        assertTrue(sessionManager.getIndexedPlayers().isEmpty());
+        assertEquals(SessionState.WAITING, session.getState());
+
+        // Everyone can queue again straight away
+        for (PlayerMock player : players) {
+            assertTrue(sessionManager.queuePlayer(player, "beta"));
+        }
+        assertIndexConsistent();
+    }
+
+    @Test
+    void removingMapReleasesItsPlayers() {
+        PlayerMock first = server.addPlayer();
+        PlayerMock second = server.addPlayer();
+        sessionManager.queuePlayer(first, "alpha");
+        sessionManager.queuePlayer(second, "beta");
+
+        sessionManager.removeSession("alpha");
+        assertIndexConsistent();
+        assertNull(sessionManager.getPlayerSession(first.getUniqueId()));
+        assertNotNull(sessionManager.getPlayerSession(second.getUniqueId()));
+    }
+
+    @Test
+    void randomOperationsKeepIndexInSync() {
+        Random random = new Random(42);
+        List<PlayerMock> players = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            players.add(server.addPlayer());
+        }
+        String[] maps = {"alpha", "beta"};
+
+        for (int step = 0; step < 500; step++) {
+            PlayerMock player = players.get(random.nextInt(players.size()));
+            Session session = sessionManager.getPlayerSession(player.getUniqueId());
+            switch (random.nextInt(5)) {
+                case 0, 1 -> sessionManager.queuePlayer(player, maps[random.nextInt(maps.length)]);
+                case 2 -> sessionManager.removePlayerFromAllSessions(player.getUniqueId());
+                case 3 -> {
+                    if (session != null && session.isPlayerActive(player.getUniqueId())) {
+                        session.eliminatePlayer(player, "§cEliminated");
+                    }
+                }
+                default -> server.getScheduler().performTicks(random.nextInt(30));
+            }
+            assertIndexConsistent();
+        }
+    }
+
+    // Mirrors what the quit listener does with the player's session
+    private void quit(PlayerMock player) {
+        Session spectated = sessionManager.getSpectatedSession(player.getUniqueId());
+        if (spectated != null) {
+            spectated.removeSpectator(player);
+        }
+        Session session = sessionManager.getPlayerSession(player.getUniqueId());
+        if (session != null) {
+            session.removePlayer(player.getUniqueId());
+            if (session.shouldEnd()) {
+                session.endGameWithWinner();
+            }
+        }
+        player.disconnect();
+    }
+
+    // Every index entry points at the session that holds the player, and every held player is indexed
+    private void assertIndexConsistent() {
+        Set<UUID> players = new HashSet<>();
+        Set<UUID> activePlayers = new HashSet<>();
+        Set<UUID> spectators = new HashSet<>();
+        for (Session session : sessionManager.getAllSessions()) {
+            for (UUID playerId : session.getQueuedPlayers()) {
+                assertTrue(players.add(playerId), "player is in two sessions");
+                assertSame(session, sessionManager.getPlayerSession(playerId));
+            }
+            for (UUID playerId : session.getActivePlayers()) {
+                assertTrue(players.add(playerId), "player is in two sessions");
+                assertSame(session, sessionManager.getPlayerSession(playerId));
+                activePlayers.add(playerId);
+            }
+            for (UUID playerId : session.getSpectators()) {
+                assertTrue(spectators.add(playerId), "player spectates two sessions");
+                assertSame(session, sessionManager.getSpectatedSession(playerId));
+            }
+        }
+        assertEquals(players, sessionManager.getIndexedPlayers());
+        assertEquals(activePlayers, sessionManager.getIndexedActivePlayers());
+        assertEquals(spectators, sessionManager.getIndexedSpectators());
+    }
+
+    private DogfightMap freeForAllMap(String name, int x) {
+        return new DogfightMap(name, new Location(world, x - 32, 60, -32), new Location(world, x + 32, 120, 32),
+            TeamConfiguration.FREE_FOR_ALL, List.of(new Location(world, x, 100, 0)));
+    }
+}